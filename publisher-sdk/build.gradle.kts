@@ -46,6 +46,7 @@ androidLibModule {
     addBuildConfigField<String>("csmDirectoryName")
     addBuildConfigField<Int>("csmBatchSize")
     addBuildConfigField<Int>("maxSizeOfCsmMetricsFolder")
+    addBuildConfigField<Int>("csmMetricWriteDelayInMillis")
     addBuildConfigField<Int>("maxSizeOfCsmMetricSendingQueue")
     addBuildConfigField<Int>("estimatedSizeOfCsmMetric")
 
@@ -58,6 +59,17 @@ androidLibModule {
     addBuildConfigField<String>("remoteLogQueueFilename")
     addBuildConfigField<Int>("maxSizeOfRemoteLogSendingQueue")
     addBuildConfigField<Int>("estimatedSizeOfRemoteLog")
+    addBuildConfigField<Int>("maxPendingRemoteLogs")
+    addBuildConfigField<Int>("remoteLogAggregationWindowInMillis")
+    addBuildConfigField<Int>("maxAggregatedRemoteLogs")
+    addBuildConfigField<Int>("maxRemoteLogRecordsPerGroup")
+
+    // Sending queues
+    addBuildConfigField<Int>("sendingQueueRetryDelayInMillis")
+
+    // Diagnostics
+    addBuildConfigField<Int>("diagnosticsReportPeriodInMillis")
+    addBuildConfigField<Int>("safeRunnableStackTraceSamplingPeriod")
 
     // Misc
     addBuildConfigField<String>("pubSdkSharedPreferences")
@@ -65,6 +65,11 @@ csmBatchSize = 24
 // 48KB represents ~300 metrics (with ~164 bytes/metric) which already represent an extreme case.
 maxSizeOfCsmMetricsFolder = 48 * 1024
 
+// Maximum duration (in milliseconds) during which metric updates are only kept in memory before
+// being written on disk. Metrics that are ready to send are moved to the sending queue without
+// waiting for this delay. Updates are also written when the application goes in background.
+csmMetricWriteDelayInMillis = 5 * 1000
+
 // Maximum size (in bytes) of metric elements stored in the metric sending queue.
 // 60KB represents ~360 metrics (with ~170 bytes/metric) which already represent an extreme case.
 estimatedSizeOfCsmMetric = 170
@@ -92,6 +97,44 @@ remoteLogQueueFilename = 'criteo_remote_logs_queue'
 estimatedSizeOfRemoteLog = 5000
 maxSizeOfRemoteLogSendingQueue = 250 * 1024
 
+// Maximum number of logs kept in memory before being formatted and written in the sending queue by
+// a background worker. When this is reached, the oldest pending logs are dropped.
+maxPendingRemoteLogs = 256
+
+// Duration (in milliseconds) during which a recurring log is only sent once. Next occurrences during
+// this window are counted and summarized by a single log at the end of the window.
+remoteLogAggregationWindowInMillis = 60 * 1000
+
+// Maximum number of distinct recurring logs tracked at the same time. When this is reached, the
+// oldest one is summarized and forgotten.
+maxAggregatedRemoteLogs = 64
+
+// Maximum number of log records grouped under the same context in a single element of the sending
+// queue. 10 logs represent ~50KB with big stacktraces, which keeps elements small compared to the
+// queue.
+maxRemoteLogRecordsPerGroup = 10
+
+/**
+ * Sending queues configuration
+ */
+
+// Delay (in milliseconds) before sending again elements remaining in a sending queue (CSM or remote
+// logs) after a sending. This happens when the queue contains more than a batch, or when the
+// sending failed. Otherwise, sendings are only triggered by bid requests.
+sendingQueueRetryDelayInMillis = 60 * 1000
+
+/**
+ * Diagnostics configuration
+ */
+
+// Period (in milliseconds) of the reports sent to the diagnostics listener set by the publisher.
+// Nothing is measured nor reported when there is no listener.
+diagnosticsReportPeriodInMillis = 60 * 1000
+
+// Only one background task out of this number keeps the stacktrace of where it was created, to
+// give context when it fails. Capturing a stacktrace costs a stack walk at each task creation.
+safeRunnableStackTraceSamplingPeriod = 100
+
 environments {
     debug {
         eventUrl = 'https://an.url.that.does.not.exist'
@@ -107,6 +150,7 @@ environments {
 
         defaultMinLogLevel = 2 // All
         preconditionThrowsOnException = true
+        safeRunnableStackTraceSamplingPeriod = 1
     }
 
     staging {
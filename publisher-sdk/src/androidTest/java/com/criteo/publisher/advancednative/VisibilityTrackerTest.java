@@ -28,6 +28,7 @@ import androidx.test.rule.ActivityTestRule;
 import com.criteo.publisher.concurrent.RunOnUiThreadExecutor;
 import com.criteo.publisher.mock.MockedDependenciesRule;
 import com.criteo.publisher.test.activity.DummyActivity;
+import com.criteo.publisher.util.ViewTrackingEngine;
 import javax.inject.Inject;
 import org.junit.Before;
 import org.junit.Rule;
@@ -59,7 +60,10 @@ public class VisibilityTrackerTest {
   @Before
   public void setUp() throws Exception {
     uiHelper = new UiHelper(activityRule);
-    tracker = new VisibilityTracker(visibilityChecker, runOnUiThreadExecutor);
+    tracker = new VisibilityTracker(
+        visibilityChecker,
+        new ViewTrackingEngine(runOnUiThreadExecutor)
+    );
   }
 
   @Test
@@ -48,11 +48,14 @@ import org.junit.Test
 import org.mockito.Mockito.verifyNoInteractions
 import org.mockito.kotlin.KStubbing
 import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.stub
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 
 @Suppress("DEPRECATION")
@@ -237,6 +240,51 @@ class ConnectionTypeFetcherTest {
     assertThat(connectionType).isEqualTo(CELLULAR_5G)
   }
 
+  @Test
+  fun getConnectionType_GivenNoNetworkChange_FetchOnlyOnce() {
+    doReturn(WIFI).whenever(connectionTypeFetcher).fetchConnectionType()
+    givenMockedConnectivityService()
+
+    val connectionType1 = connectionTypeFetcher.getConnectionType()
+    val connectionType2 = connectionTypeFetcher.getConnectionType()
+
+    assertThat(connectionType1).isEqualTo(WIFI)
+    assertThat(connectionType2).isEqualTo(WIFI)
+    verify(connectionTypeFetcher, times(1)).fetchConnectionType()
+  }
+
+  @Test
+  fun getConnectionType_GivenNetworkChange_FetchAgain() {
+    doReturn(WIFI, CELLULAR_4G).whenever(connectionTypeFetcher).fetchConnectionType()
+    val connectivityManager = givenMockedConnectivityService()
+
+    val connectionType1 = connectionTypeFetcher.getConnectionType()
+
+    argumentCaptor<ConnectivityManager.NetworkCallback> {
+      verify(connectivityManager).registerDefaultNetworkCallback(capture())
+      firstValue.onLost(mock())
+    }
+
+    val connectionType2 = connectionTypeFetcher.getConnectionType()
+
+    assertThat(connectionType1).isEqualTo(WIFI)
+    assertThat(connectionType2).isEqualTo(CELLULAR_4G)
+    verify(connectionTypeFetcher, times(2)).fetchConnectionType()
+  }
+
+  @Test
+  fun getConnectionType_GivenCallbackRegistrationFailure_FetchOnEachCall() {
+    doReturn(WIFI).whenever(connectionTypeFetcher).fetchConnectionType()
+    givenMockedConnectivityService {
+      on { registerDefaultNetworkCallback(any()) } doThrow SecurityException::class
+    }
+
+    connectionTypeFetcher.getConnectionType()
+    connectionTypeFetcher.getConnectionType()
+
+    verify(connectionTypeFetcher, times(2)).fetchConnectionType()
+  }
+
   @Test
   fun fetchNewCellularConnectionType_NoTelephony_ReturnUnknownCellular() {
     val connectionType = connectionTypeFetcher.fetchNewCellularConnectionType(null)
@@ -41,6 +41,7 @@ import com.criteo.publisher.CriteoInitException;
 import com.criteo.publisher.TestAdUnits;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.csm.MetricRequest.MetricRequestFeedback;
+import com.criteo.publisher.csm.MetricRequest.MetricRequestSlot;
 import com.criteo.publisher.integration.Integration;
 import com.criteo.publisher.integration.IntegrationRegistry;
 import com.criteo.publisher.mock.MockedDependenciesRule;
@@ -215,19 +216,16 @@ public class CsmFunctionalTest {
     verify(api).postCsm(argThat(request -> {
       assertRequestHeaderIsExpected(request);
 
-      assertEquals(2, request.getFeedbacks().size());
-      MetricRequestFeedback feedback1 = request.getFeedbacks().get(0);
-      MetricRequestFeedback feedback2 = request.getFeedbacks().get(1);
-      assertItRepresentsNetworkError(feedback1);
-      assertItRepresentsNetworkError(feedback2);
+      // Both metrics come from the same CDB request (prefetch) and are packed in one feedback
+      assertEquals(1, request.getFeedbacks().size());
+      MetricRequestFeedback feedback = request.getFeedbacks().get(0);
+      assertItRepresentsNetworkError(feedback, 2);
 
       assertNotEquals(
-          feedback1.getSlots().get(0).getImpressionId(),
-          feedback2.getSlots().get(0).getImpressionId()
+          feedback.getSlots().get(0).getImpressionId(),
+          feedback.getSlots().get(1).getImpressionId()
       );
 
-      assertEquals(feedback1.getRequestGroupId(), feedback2.getRequestGroupId());
-
       return true;
     }));
   }
@@ -247,19 +245,16 @@ public class CsmFunctionalTest {
     verify(api).postCsm(argThat(request -> {
       assertRequestHeaderIsExpected(request);
 
-      assertEquals(2, request.getFeedbacks().size());
-      MetricRequestFeedback feedback1 = request.getFeedbacks().get(0);
-      MetricRequestFeedback feedback2 = request.getFeedbacks().get(1);
-      assertItRepresentsTimeoutError(feedback1);
-      assertItRepresentsTimeoutError(feedback2);
+      // Both metrics come from the same CDB request (prefetch) and are packed in one feedback
+      assertEquals(1, request.getFeedbacks().size());
+      MetricRequestFeedback feedback = request.getFeedbacks().get(0);
+      assertItRepresentsTimeoutError(feedback, 2);
 
       assertNotEquals(
-          feedback1.getSlots().get(0).getImpressionId(),
-          feedback2.getSlots().get(0).getImpressionId()
+          feedback.getSlots().get(0).getImpressionId(),
+          feedback.getSlots().get(1).getImpressionId()
       );
 
-      assertEquals(feedback1.getRequestGroupId(), feedback2.getRequestGroupId());
-
       return true;
     }));
   }
@@ -391,25 +386,37 @@ public class CsmFunctionalTest {
   }
 
   private void assertItRepresentsNetworkError(MetricRequestFeedback feedback) {
+    assertItRepresentsNetworkError(feedback, 1);
+  }
+
+  private void assertItRepresentsNetworkError(MetricRequestFeedback feedback, int expectedSlots) {
     assertEquals(0, feedback.getCdbCallStartElapsed());
     assertNull(feedback.getCdbCallEndElapsed());
     assertNull(feedback.getElapsed());
     assertFalse(feedback.isTimeout());
     assertNotNull(feedback.getRequestGroupId());
-    assertEquals(1, feedback.getSlots().size());
-    assertFalse(feedback.getSlots().get(0).getCachedBidUsed());
-    assertNull(feedback.getSlots().get(0).getZoneId());
+    assertEquals(expectedSlots, feedback.getSlots().size());
+    for (MetricRequestSlot slot : feedback.getSlots()) {
+      assertFalse(slot.getCachedBidUsed());
+      assertNull(slot.getZoneId());
+    }
   }
 
   private void assertItRepresentsTimeoutError(MetricRequestFeedback feedback) {
+    assertItRepresentsTimeoutError(feedback, 1);
+  }
+
+  private void assertItRepresentsTimeoutError(MetricRequestFeedback feedback, int expectedSlots) {
     assertEquals(0, feedback.getCdbCallStartElapsed());
     assertNull(feedback.getCdbCallEndElapsed());
     assertNull(feedback.getElapsed());
     assertTrue(feedback.isTimeout());
     assertNotNull(feedback.getRequestGroupId());
-    assertEquals(1, feedback.getSlots().size());
-    assertFalse(feedback.getSlots().get(0).getCachedBidUsed());
-    assertNull(feedback.getSlots().get(0).getZoneId());
+    assertEquals(expectedSlots, feedback.getSlots().size());
+    for (MetricRequestSlot slot : feedback.getSlots()) {
+      assertFalse(slot.getCachedBidUsed());
+      assertNull(slot.getZoneId());
+    }
   }
 
   private void waitForIdleState() {
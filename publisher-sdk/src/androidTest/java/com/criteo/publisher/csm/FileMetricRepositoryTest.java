@@ -640,6 +640,47 @@ public class FileMetricRepositoryTest {
     assertTrue(metrics.contains(Metric.builder("id").build()));
   }
 
+  @Test
+  public void moveById_GivenSuccessfulMove_ReleaseMetricFile() throws Exception {
+    repository.addOrUpdateById("id1", builder -> {});
+    repository.addOrUpdateById("id2", builder -> {});
+
+    repository.moveById("id1", metric -> true);
+
+    assertEquals(1, repository.getOpenMetricFileCount());
+  }
+
+  @Test
+  public void moveById_GivenUnsuccessfulMove_KeepMetricFile() throws Exception {
+    repository.addOrUpdateById("id", builder -> {});
+
+    repository.moveById("id", metric -> false);
+
+    assertEquals(1, repository.getOpenMetricFileCount());
+  }
+
+  @Test
+  public void updateById_GivenMoreMetricsThanOpenMetricFiles_KeepBoundedNumberOfOpenMetricFiles() throws Exception {
+    int metricCount = FileMetricRepository.MAX_OPEN_METRIC_FILES * 2;
+
+    for (int i = 0; i < metricCount; i++) {
+      long finalI = i;
+      repository.addOrUpdateById("id" + i, builder -> builder.setCdbCallStartTimestamp(finalI));
+    }
+
+    assertTrue(repository.getOpenMetricFileCount() <= FileMetricRepository.MAX_OPEN_METRIC_FILES);
+
+    repository.addOrUpdateById("id0", builder -> builder.setCdbCallEndTimestamp(42L));
+    Collection<Metric> metrics = repository.getAllStoredMetrics();
+
+    assertEquals(metricCount, metrics.size());
+    assertTrue(metrics.contains(Metric.builder("id0")
+        .setCdbCallStartTimestamp(0L)
+        .setCdbCallEndTimestamp(42L)
+        .build()));
+    assertTrue(repository.getOpenMetricFileCount() <= FileMetricRepository.MAX_OPEN_METRIC_FILES);
+  }
+
   private void awaitShortly(CountDownLatch latch) {
     try {
       // Timeout after 1 second to not block the test that is expected to only sleep for few IO operations.
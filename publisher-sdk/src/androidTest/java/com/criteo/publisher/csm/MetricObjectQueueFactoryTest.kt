@@ -20,7 +20,6 @@ import android.content.Context
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
 import com.criteo.publisher.util.JsonSerializer
-import com.squareup.tape.QueueFile
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.After
 import org.junit.Before
@@ -40,6 +39,8 @@ class MetricObjectQueueFactoryTest {
 
   private lateinit var queueFile: File
 
+  private lateinit var ringFile: File
+
   @Inject
   private lateinit var context: Context
 
@@ -56,6 +57,7 @@ class MetricObjectQueueFactoryTest {
     whenever(configuration.queueFilename).thenReturn("queueFile")
 
     queueFile = File(context.filesDir, "queueFile")
+    ringFile = File(queueFile.path + ".ring")
 
     factory = spy(ObjectQueueFactory(context, jsonSerializer, configuration)) {
       doReturn(queueFile).whenever(mock).queueFile
@@ -65,6 +67,7 @@ class MetricObjectQueueFactoryTest {
   @After
   fun tearDown() {
     queueFile.delete()
+    ringFile.delete()
   }
 
   @Test
@@ -74,7 +77,7 @@ class MetricObjectQueueFactoryTest {
     val requiredMetricsForOverflow = maxSize / smallSizeEstimationPerMetrics
     val requiredMetricsForOverflowWithMargin = (requiredMetricsForOverflow * 1.20).toInt()
 
-    val sendingQueue = SendingQueueFactory(factory, configuration).create()
+    val sendingQueue = SendingQueueFactory(factory, jsonSerializer, configuration).create()
 
     for (i in 0 until requiredMetricsForOverflowWithMargin) {
       val metric = Metric.builder("id$i")
@@ -89,12 +92,10 @@ class MetricObjectQueueFactoryTest {
     // The last element can overflow the limit, so we are lenient (up to 1%) on the below condition.
     assertThat(sendingQueue.totalSize * 0.99).isLessThanOrEqualTo(maxSize.toDouble())
 
-    // The queue file grows in power of 2. So it can be, at most, twice larger than expected.
-    // To not waste this memory, the max size should be near a power of 2. We are lenient (up to
-    // 10%) on this condition.
-    assertThat(queueFile.length().toDouble()).isLessThanOrEqualTo(maxSize * 1.10)
+    // The ring buffer has a fixed capacity, only a small header is added to it.
+    assertThat(ringFile.length().toDouble()).isLessThanOrEqualTo(maxSize * 1.10)
 
     // Verify that the queue can contain, at least, an expected number of elements
-    assertThat(QueueFile(queueFile).size()).isGreaterThanOrEqualTo(300)
+    assertThat(sendingQueue.poll(Int.MAX_VALUE)).hasSizeGreaterThanOrEqualTo(300)
   }
 }
@@ -25,6 +25,8 @@ import com.criteo.publisher.mock.MockedDependenciesRule;
 import com.criteo.publisher.mock.SpyBean;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import org.junit.After;
 import org.junit.Before;
@@ -42,6 +44,12 @@ public class MetricRepositoryFactoryTest {
   @Inject
   private JsonSerializer jsonSerializer;
 
+  @Inject
+  private Executor executor;
+
+  @Inject
+  private ScheduledExecutorService scheduledExecutorService;
+
   @SpyBean
   private BuildConfigWrapper buildConfigWrapper;
 
@@ -54,7 +62,9 @@ public class MetricRepositoryFactoryTest {
     factory = new MetricRepositoryFactory(
         context,
         jsonSerializer,
-        buildConfigWrapper
+        buildConfigWrapper,
+        executor,
+        scheduledExecutorService
     );
   }
 
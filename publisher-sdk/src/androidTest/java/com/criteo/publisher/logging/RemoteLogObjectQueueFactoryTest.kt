@@ -21,7 +21,6 @@ import com.criteo.publisher.csm.ObjectQueueFactory
 import com.criteo.publisher.csm.SendingQueueFactory
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.util.JsonSerializer
-import com.squareup.tape.QueueFile
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.After
 import org.junit.Before
@@ -41,6 +40,8 @@ class RemoteLogObjectQueueFactoryTest {
 
   private lateinit var queueFile: File
 
+  private lateinit var ringFile: File
+
   @Inject
   private lateinit var context: Context
 
@@ -58,6 +59,7 @@ class RemoteLogObjectQueueFactoryTest {
   @Before
   fun setUp() {
     queueFile = File(context.filesDir, configuration.queueFilename)
+    ringFile = File(queueFile.path + ".ring")
 
     factory = spy(ObjectQueueFactory(context, jsonSerializer, configuration)) {
       doReturn(queueFile).whenever(mock).queueFile
@@ -67,6 +69,7 @@ class RemoteLogObjectQueueFactoryTest {
   @After
   fun tearDown() {
     queueFile.delete()
+    ringFile.delete()
   }
 
   @Test
@@ -76,7 +79,7 @@ class RemoteLogObjectQueueFactoryTest {
     val requiredLogsForOverflow = maxSize / smallSizeEstimationPerLog
     val requiredLogsForOverflowWithMargin = (requiredLogsForOverflow * 1.20).toInt()
 
-    val sendingQueue = SendingQueueFactory(factory, configuration).create()
+    val sendingQueue = SendingQueueFactory(factory, jsonSerializer, configuration).create()
 
     for (i in 0 until requiredLogsForOverflowWithMargin) {
       val message = "#$i: Lorem ipsum dolor sit amet, consectetur adipiscing elit."
@@ -103,12 +106,10 @@ class RemoteLogObjectQueueFactoryTest {
     // The last element can overflow the limit, so we are lenient (up to 1%) on the below condition.
     assertThat(sendingQueue.totalSize * 0.99).isLessThanOrEqualTo(maxSize.toDouble())
 
-    // The queue file grows in power of 2. So it can be, at most, twice larger than expected.
-    // To not waste this memory, the max size should be near a power of 2. We are lenient (up to
-    // 10%) on this condition.
-    assertThat(queueFile.length().toDouble()).isLessThanOrEqualTo(maxSize * 1.10)
+    // The ring buffer has a fixed capacity, only a small header is added to it.
+    assertThat(ringFile.length().toDouble()).isLessThanOrEqualTo(maxSize * 1.10)
 
     // Verify that the queue can contain, at least, an expected number of elements
-    assertThat(QueueFile(queueFile).size()).isGreaterThanOrEqualTo(50)
+    assertThat(sendingQueue.poll(Int.MAX_VALUE)).hasSizeGreaterThanOrEqualTo(50)
   }
 }
@@ -32,6 +32,7 @@ import org.assertj.core.api.Assertions.assertThat
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.mockito.kotlin.argumentCaptor
 import org.mockito.kotlin.atLeastOnce
 import org.mockito.kotlin.check
 import org.mockito.kotlin.doReturn
@@ -108,11 +109,12 @@ class RemoteLoggingFunctionalTest {
     safeRunnable.run()
     mockedDependenciesRule.waitForIdleState()
 
-    verify(remoteLogSendingQueue).offer(check {
-      assertThat(it.context.exceptionType).isEqualTo("ExecutionException")
-      assertThat(it.logRecords[0].messages[0])
-          .doesNotContain(DummyPublisherCode.secrets)
-          .doesNotContain(DummyPublisherCode.javaClass.`package`!!.name)
-    })
+    val captor = argumentCaptor<Collection<RemoteLogRecords>>()
+    verify(remoteLogSendingQueue, atLeastOnce()).offerAll(captor.capture())
+    val logRecords = captor.allValues.flatten().single { it.context.exceptionType != null }
+    assertThat(logRecords.context.exceptionType).isEqualTo("ExecutionException")
+    assertThat(logRecords.logRecords[0].messages[0])
+        .doesNotContain(DummyPublisherCode.secrets)
+        .doesNotContain(DummyPublisherCode.javaClass.`package`!!.name)
   }
 }
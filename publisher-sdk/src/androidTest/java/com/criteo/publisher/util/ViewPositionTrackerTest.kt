@@ -72,7 +72,7 @@ class ViewPositionTrackerTest {
     MockitoAnnotations.openMocks(this)
     listener = mock()
     uiHelper = UiHelper(activityRule)
-    viewPositionTracker = ViewPositionTracker(runOnUiThreadExecutor, deviceUtil)
+    viewPositionTracker = ViewPositionTracker(ViewTrackingEngine(runOnUiThreadExecutor), deviceUtil)
   }
 
   @Test
@@ -24,9 +24,16 @@ import com.criteo.publisher.model.CacheAdUnit
 
 internal object BiddingLogMessage {
 
+  const val CONSUMABLE_BID_LOADED_LEVEL = Log.INFO
+
+  const val INVALID_AD_UNIT_LEVEL = Log.WARN
+
+  const val UNSUPPORTED_AD_FORMAT_LEVEL = Log.ERROR
+
   @JvmStatic
-  fun onConsumableBidLoaded(adUnit: AdUnit, bid: Bid?) = LogMessage(message =
-    "Getting bid response for $adUnit. Bid: ${bid?.loggingId}, price: ${bid?.price}"
+  fun onConsumableBidLoaded(adUnit: AdUnit, bid: Bid?) = LogMessage(
+      level = CONSUMABLE_BID_LOADED_LEVEL,
+      message = "Getting bid response for $adUnit. Bid: ${bid?.loggingId}, price: ${bid?.price}"
   )
 
   @JvmStatic
@@ -36,14 +43,14 @@ internal object BiddingLogMessage {
 
   @JvmStatic
   fun onInvalidAdUnit(adUnit: CacheAdUnit) = LogMessage(
-      level = Log.WARN,
+      level = INVALID_AD_UNIT_LEVEL,
       message = "Found an invalid AdUnit: $adUnit",
       logId = "onInvalidAdUnit"
   )
 
   @JvmStatic
   fun onUnsupportedAdFormat(cacheAdUnit: CacheAdUnit, integration: Integration) = LogMessage(
-      level = Log.ERROR,
+      level = UNSUPPORTED_AD_FORMAT_LEVEL,
       message = "$cacheAdUnit requested but it is not supported for $integration",
       logId = "onUnsupportedAdFormat"
   )
@@ -73,7 +73,9 @@ public class ConsumableBidLoader {
       }
 
       private void responseBid(@Nullable Bid bid) {
-        logger.log(BiddingLogMessage.onConsumableBidLoaded(adUnit, bid));
+        if (logger.isLoggable(BiddingLogMessage.CONSUMABLE_BID_LOADED_LEVEL)) {
+          logger.log(BiddingLogMessage.onConsumableBidLoaded(adUnit, bid));
+        }
 
         // The bid object is used for AppBidding and InHouse.
         // For InHouse, it is preferable.
@@ -31,6 +31,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.context.UserData;
+import com.criteo.publisher.diagnostics.CriteoDiagnosticsListener;
 import com.criteo.publisher.interstitial.InterstitialActivityHelper;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
@@ -66,6 +67,9 @@ public abstract class Criteo {
     @Nullable
     private Boolean tagForChildDirectedTreatment = null;
 
+    @Nullable
+    private CriteoDiagnosticsListener diagnosticsListener = null;
+
     public Builder(@NonNull Application application, @NonNull String criteoPublisherId) {
       this.application = application;
       this.criteoPublisherId = criteoPublisherId;
@@ -105,6 +109,15 @@ public abstract class Criteo {
       return this;
     }
 
+    /**
+     * Enable the instrumentation of the SDK background tasks and periodically report it to the
+     * given listener.
+     */
+    public Builder diagnosticsListener(@Nullable CriteoDiagnosticsListener diagnosticsListener) {
+      this.diagnosticsListener = diagnosticsListener;
+      return this;
+    }
+
     public Criteo init() throws CriteoInitException {
       return Criteo.init(this);
     }
@@ -124,6 +137,11 @@ public abstract class Criteo {
             dependencyProvider.provideConsoleHandler().setMinLogLevel(Log.INFO);
           }
 
+          if (builder.diagnosticsListener != null) {
+            // Set before anything is executed, so the burst of tasks at initialization is measured
+            dependencyProvider.provideTaskInstrumentation().setListener(builder.diagnosticsListener);
+          }
+
           DeviceUtil deviceUtil = dependencyProvider.provideDeviceUtil();
           if (deviceUtil.isVersionSupported()) {
             criteo = new CriteoInternal(
@@ -50,8 +50,11 @@ import com.criteo.publisher.bid.LoggingBidLifecycleListener;
 import com.criteo.publisher.bid.UniqueIdGenerator;
 import com.criteo.publisher.cache.SdkCache;
 import com.criteo.publisher.concurrent.AsyncResources;
+import com.criteo.publisher.concurrent.ExecutorLanes;
+import com.criteo.publisher.concurrent.InstrumentedExecutor;
 import com.criteo.publisher.concurrent.NoOpAsyncResources;
 import com.criteo.publisher.concurrent.RunOnUiThreadExecutor;
+import com.criteo.publisher.concurrent.TaskInstrumentation;
 import com.criteo.publisher.concurrent.ThreadPoolExecutorFactory;
 import com.criteo.publisher.context.ConnectionTypeFetcher;
 import com.criteo.publisher.context.ContextProvider;
@@ -112,6 +115,7 @@ import com.criteo.publisher.util.SafeSharedPreferences;
 import com.criteo.publisher.util.SharedPreferencesFactory;
 import com.criteo.publisher.util.TextUtils;
 import com.criteo.publisher.util.ViewPositionTracker;
+import com.criteo.publisher.util.ViewTrackingEngine;
 import com.criteo.publisher.util.jsonadapter.BooleanJsonAdapter;
 import com.criteo.publisher.util.jsonadapter.URIAdapter;
 import com.criteo.publisher.util.jsonadapter.URLAdapter;
@@ -133,7 +137,7 @@ import kotlin.jvm.functions.Function0;
  */
 public class DependencyProvider {
 
-  protected static DependencyProvider instance;
+  protected static volatile DependencyProvider instance;
 
   protected final ConcurrentMap<Class<?>, Object> services = new ConcurrentHashMap<>();
 
@@ -144,11 +148,19 @@ public class DependencyProvider {
   }
 
   @NonNull
-  public static synchronized DependencyProvider getInstance() {
-    if (instance == null) {
-      instance = new DependencyProvider();
+  public static DependencyProvider getInstance() {
+    // Avoid locking once the instance is created: this is called by every LoggerFactory#getLogger
+    DependencyProvider dependencyProvider = instance;
+    if (dependencyProvider == null) {
+      synchronized (DependencyProvider.class) {
+        dependencyProvider = instance;
+        if (dependencyProvider == null) {
+          dependencyProvider = new DependencyProvider();
+          instance = dependencyProvider;
+        }
+      }
     }
-    return instance;
+    return dependencyProvider;
   }
 
   /**KEEP VISIBILITY AS PACKAGE-PRIVATE **/
@@ -246,7 +258,26 @@ public class DependencyProvider {
 
   @NonNull
   public Executor provideThreadPoolExecutor() {
-    return getOrCreate(Executor.class, new ThreadPoolExecutorFactory());
+    return getOrCreate(Executor.class, () -> new InstrumentedExecutor(
+        new ThreadPoolExecutorFactory(provideTaskInstrumentation()).create(),
+        provideTaskInstrumentation()
+    ));
+  }
+
+  @NonNull
+  public ExecutorLanes provideExecutorLanes() {
+    return getOrCreate(ExecutorLanes.class, () -> new ExecutorLanes(
+        provideThreadPoolExecutor(),
+        provideTaskInstrumentation()
+    ));
+  }
+
+  @NonNull
+  public TaskInstrumentation provideTaskInstrumentation() {
+    return getOrCreate(TaskInstrumentation.class, () -> new TaskInstrumentation(
+        provideScheduledExecutorService(),
+        provideBuildConfigWrapper()
+    ));
   }
 
   @NonNull
@@ -263,7 +294,8 @@ public class DependencyProvider {
   public Config provideConfig() {
     return getOrCreate(Config.class, () -> new Config(
         provideSharedPreferencesFactory().getInternal(),
-        provideJsonSerializer()
+        provideJsonSerializer(),
+        provideThreadPoolExecutor()
     ));
   }
 
@@ -329,7 +361,7 @@ public class DependencyProvider {
         providePubSdkApi(),
         provideUserPrivacyUtil(),
         provideDeviceInfo(),
-        provideThreadPoolExecutor()
+        provideExecutorLanes().getBackgroundIoExecutor()
     ));
   }
 
@@ -337,7 +369,8 @@ public class DependencyProvider {
   public AppLifecycleUtil provideAppLifecycleUtil() {
     return getOrCreate(AppLifecycleUtil.class, () -> new AppLifecycleUtil(
         provideAppEvents(),
-        provideBidManager()
+        provideBidManager(),
+        provideMetricRepository()
     ));
   }
 
@@ -415,7 +448,7 @@ public class DependencyProvider {
           provideClock(),
           provideConfig(),
           provideConsentData(),
-          provideThreadPoolExecutor()
+          provideExecutorLanes().getBackgroundIoExecutor()
       ));
 
       return listener;
@@ -428,7 +461,7 @@ public class DependencyProvider {
         provideVisibilityTracker(),
         new ImpressionHelper(
             providePubSdkApi(),
-            provideThreadPoolExecutor(),
+            provideExecutorLanes().getBackgroundIoExecutor(),
             provideRunOnUiThreadExecutor()
         ),
         provideClickDetection(),
@@ -446,10 +479,18 @@ public class DependencyProvider {
   public VisibilityTracker provideVisibilityTracker() {
     return getOrCreate(VisibilityTracker.class, () -> new VisibilityTracker(
         new VisibilityChecker(),
-        provideRunOnUiThreadExecutor()
+        provideViewTrackingEngine()
     ));
   }
 
+  @NonNull
+  public ViewTrackingEngine provideViewTrackingEngine() {
+    return getOrCreate(
+        ViewTrackingEngine.class,
+        () -> new ViewTrackingEngine(provideRunOnUiThreadExecutor())
+    );
+  }
+
   @NonNull
   public ClickDetection provideClickDetection() {
     return getOrCreate(ClickDetection.class, ClickDetection::new);
@@ -575,7 +616,8 @@ public class DependencyProvider {
         providePubSdkApi(),
         provideBuildConfigWrapper(),
         provideConfig(),
-        provideThreadPoolExecutor()
+        provideExecutorLanes().getTelemetryExecutor(),
+        provideScheduledExecutorService()
     ));
   }
 
@@ -601,6 +643,7 @@ public class DependencyProvider {
             provideJsonSerializer(),
             configuration
         ),
+        provideJsonSerializer(),
         configuration
     ).create();
   }
@@ -620,7 +663,9 @@ public class DependencyProvider {
     return getOrCreate(MetricRepository.class, new MetricRepositoryFactory(
         provideContext(),
         provideJsonSerializer(),
-        provideBuildConfigWrapper()
+        provideBuildConfigWrapper(),
+        provideExecutorLanes().getBackgroundIoExecutor(),
+        provideScheduledExecutorService()
     ));
   }
 
@@ -734,8 +779,11 @@ public class DependencyProvider {
         provideRemoteLogRecordsFactory(),
         provideRemoteLogSendingQueue(),
         provideConfig(),
-        provideThreadPoolExecutor(),
-        provideConsentData()
+        provideConsentData(),
+        provideClock(),
+        provideBuildConfigWrapper(),
+        provideExecutorLanes().getTelemetryExecutor(),
+        provideScheduledExecutorService()
     ));
   }
 
@@ -746,7 +794,8 @@ public class DependencyProvider {
         providePubSdkApi(),
         provideBuildConfigWrapper(),
         provideAdvertisingInfo(),
-        provideThreadPoolExecutor()
+        provideExecutorLanes().getTelemetryExecutor(),
+        provideScheduledExecutorService()
     ));
   }
 
@@ -810,7 +859,7 @@ public class DependencyProvider {
   public ViewPositionTracker provideViewPositionTracker() {
     return getOrCreate(
         ViewPositionTracker.class,
-        () -> new ViewPositionTracker(provideRunOnUiThreadExecutor(), provideDeviceUtil())
+        () -> new ViewPositionTracker(provideViewTrackingEngine(), provideDeviceUtil())
     );
   }
 
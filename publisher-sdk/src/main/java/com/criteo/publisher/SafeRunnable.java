@@ -20,6 +20,8 @@ import static com.criteo.publisher.ErrorLogMessage.onUncaughtErrorInThread;
 import static com.criteo.publisher.ErrorLogMessage.onUncaughtExpectedExceptionInThread;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.util.PreconditionsUtil;
@@ -28,30 +30,84 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.net.ssl.SSLException;
 
 public abstract class SafeRunnable implements Runnable {
 
-  private final Logger logger = LoggerFactory.getLogger(SafeRunnable.class);
+  private static final int UNKNOWN_SAMPLING_PERIOD = -1;
+
+  private static final AtomicInteger creationCount = new AtomicInteger();
 
   /**
-   * This stackTrace provides contextual information for tasks executed on a separate
-   * thread. Specifically, it allows keeping the stacktrace of the thread from where the task was
-   * sent for execution on a different thread.
+   * The sampling period is a build constant. It is read once, instead of looking up the build
+   * config at each task creation.
    */
-  private final StackTraceElement[] stackTrace;
+  private static volatile int samplingPeriod = UNKNOWN_SAMPLING_PERIOD;
+
+  /**
+   * This provides contextual information for tasks executed on a separate thread. Specifically, it
+   * allows keeping the stacktrace of the thread from where the task was sent for execution on a
+   * different thread.
+   * <p>
+   * As tasks are created on hot paths, this is only captured for a sample of them. The throwable
+   * is only filled with the native stack at creation: stack trace elements are only built if the
+   * task fails.
+   */
+  @Nullable
+  private final Throwable creationSite;
 
   public SafeRunnable() {
-    this.stackTrace = Thread.currentThread().getStackTrace();
+    this.creationSite = shouldCaptureCreationSite() ? new Throwable() : null;
+  }
+
+  private static boolean shouldCaptureCreationSite() {
+    int period = getSamplingPeriod();
+
+    int count = creationCount.getAndIncrement() & Integer.MAX_VALUE;
+    return period > 0 && count % period == 0;
+  }
+
+  private static int getSamplingPeriod() {
+    int period = samplingPeriod;
+    if (period == UNKNOWN_SAMPLING_PERIOD) {
+      // Concurrent first calls may read it several times, but they all read the same value
+      period = Math.max(0, DependencyProvider.getInstance()
+          .provideBuildConfigWrapper()
+          .getSafeRunnableStackTraceSamplingPeriod());
+      samplingPeriod = period;
+    }
+    return period;
+  }
+
+  @VisibleForTesting
+  static void resetSamplingPeriod() {
+    samplingPeriod = UNKNOWN_SAMPLING_PERIOD;
   }
 
   @Override
   public void run() {
+    runAndCheckFailure();
+  }
+
+  /**
+   * Run this task as {@link #run()} does, and indicate if it failed. Failures are generally only
+   * logged, so this lets callers, such as the task instrumentation, know about them.
+   *
+   * @return <code>true</code> if the task failed, else <code>false</code>
+   */
+  public boolean runAndCheckFailure() {
     try {
       runSafely();
+      return false;
     } catch (Throwable throwable) {
       ExecutionException e = new ExecutionException(throwable);
-      e.setStackTrace(stackTrace);
+      if (creationSite != null) {
+        e.setStackTrace(creationSite.getStackTrace());
+      }
+
+      // The logger is only looked up on failure, as many tasks are created on the hot path
+      Logger logger = LoggerFactory.getLogger(SafeRunnable.class);
 
       if (throwable instanceof RuntimeException) {
         PreconditionsUtil.throwOrLog(e);
@@ -62,6 +118,7 @@ public abstract class SafeRunnable implements Runnable {
       } else {
         logger.log(onUncaughtErrorInThread(e));
       }
+      return true;
     }
   }
 
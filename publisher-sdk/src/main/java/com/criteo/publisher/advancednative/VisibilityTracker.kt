@@ -20,7 +20,7 @@ import android.view.ViewTreeObserver
 import androidx.annotation.GuardedBy
 import androidx.annotation.VisibleForTesting
 import com.criteo.publisher.annotation.OpenForTesting
-import com.criteo.publisher.concurrent.RunOnUiThreadExecutor
+import com.criteo.publisher.util.ViewTrackingEngine
 import java.lang.ref.Reference
 import java.lang.ref.WeakReference
 import java.util.WeakHashMap
@@ -28,7 +28,7 @@ import java.util.WeakHashMap
 @OpenForTesting
 internal class VisibilityTracker(
     private val visibilityChecker: VisibilityChecker,
-    private val runOnUiThreadExecutor: RunOnUiThreadExecutor
+    private val viewTrackingEngine: ViewTrackingEngine
 ) {
   @GuardedBy("lock")
   private val trackedViews: MutableMap<View, VisibilityTrackingTask> = WeakHashMap()
@@ -67,28 +67,27 @@ internal class VisibilityTracker(
     return VisibilityTrackingTask(
         WeakReference(view),
         visibilityChecker,
-        runOnUiThreadExecutor
+        viewTrackingEngine
     )
   }
 
+  /**
+   * Check the visibility of its view each time the view is drawn or laid out. Checks are run by the
+   * [ViewTrackingEngine], at most once per frame, and periodically while the view is on screen.
+   */
   @VisibleForTesting
   internal class VisibilityTrackingTask(
       private val trackedViewRef: Reference<View>,
       private val visibilityChecker: VisibilityChecker,
-      private val runOnUiThreadExecutor: RunOnUiThreadExecutor
+      private val viewTrackingEngine: ViewTrackingEngine
   ) : ViewTreeObserver.OnPreDrawListener,
-      ViewTreeObserver.OnGlobalLayoutListener {
+      ViewTreeObserver.OnGlobalLayoutListener,
+      ViewTrackingEngine.TrackedView {
     @Volatile
     private var listener: VisibilityListener? = null
 
-    private val checkVisibilityRunnable: Runnable = object : Runnable {
-      override fun run() {
-        checkVisibility()
-        if (shouldPollView()) {
-          runOnUiThreadExecutor.executeAsync(this, VISIBILITY_POLL_INTERVAL)
-        }
-      }
-    }
+    override val isAlive: Boolean
+      get() = trackedViewRef.get() != null
 
     init {
       setUpObserver()
@@ -99,6 +98,7 @@ internal class VisibilityTracker(
         val observer = trackedViewRef.get()?.viewTreeObserver
         observer?.addOnPreDrawListener(this)
         observer?.addOnGlobalLayoutListener(this)
+        viewTrackingEngine.track(this)
       }
     }
 
@@ -107,17 +107,17 @@ internal class VisibilityTracker(
     }
 
     override fun onPreDraw(): Boolean {
-      invalidateVisibility()
+      viewTrackingEngine.invalidate(this)
       return true
     }
 
     override fun onGlobalLayout() {
-      invalidateVisibility()
+      viewTrackingEngine.invalidate(this)
     }
 
-    private fun invalidateVisibility() {
-      runOnUiThreadExecutor.cancel(checkVisibilityRunnable)
-      runOnUiThreadExecutor.execute(checkVisibilityRunnable)
+    override fun check(): Boolean {
+      checkVisibility()
+      return shouldPollView() && trackedViewRef.get()?.isAttachedToWindow == true
     }
 
     private fun checkVisibility() {
@@ -131,9 +131,5 @@ internal class VisibilityTracker(
       val view = trackedViewRef.get()
       return view != null && view.viewTreeObserver.isAlive
     }
-
-    companion object {
-      const val VISIBILITY_POLL_INTERVAL = 200L
-    }
   }
 }
@@ -16,6 +16,7 @@
 
 package com.criteo.publisher.bid;
 
+import android.util.Log;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
@@ -27,6 +28,9 @@ import com.criteo.publisher.model.CdbResponseSlot;
 
 /**
  * Listener that logs debug messages given the different steps of a bid lifecycle.
+ * <p>
+ * Debug level is checked before calling the logger, so the varargs of the messages are not
+ * allocated on each bid when debug logs are disabled.
  */
 public class LoggingBidLifecycleListener implements BidLifecycleListener {
 
@@ -47,12 +51,16 @@ public class LoggingBidLifecycleListener implements BidLifecycleListener {
 
   @Override
   public void onCdbCallStarted(@NonNull CdbRequest request) {
-    logger.debug("onCdbCallStarted: %s", request);
+    if (logger.isLoggable(Log.DEBUG)) {
+      logger.debug("onCdbCallStarted: %s", request);
+    }
   }
 
   @Override
   public void onCdbCallFinished(@NonNull CdbRequest request, @NonNull CdbResponse response) {
-    logger.debug("onCdbCallFinished: %s", response);
+    if (logger.isLoggable(Log.DEBUG)) {
+      logger.debug("onCdbCallFinished: %s", response);
+    }
   }
 
   @Override
@@ -62,12 +70,16 @@ public class LoggingBidLifecycleListener implements BidLifecycleListener {
 
   @Override
   public void onBidConsumed(@NonNull CacheAdUnit adUnit, @NonNull CdbResponseSlot consumedBid) {
-    logger.debug("onBidConsumed: %s", consumedBid);
+    if (logger.isLoggable(Log.DEBUG)) {
+      logger.debug("onBidConsumed: %s", consumedBid);
+    }
   }
 
   @Override
   public void onBidCached(@NonNull CdbResponseSlot cachedBid) {
-    logger.debug("onBidCached: %s", cachedBid);
+    if (logger.isLoggable(Log.DEBUG)) {
+      logger.debug("onBidCached: %s", cachedBid);
+    }
   }
 
 }
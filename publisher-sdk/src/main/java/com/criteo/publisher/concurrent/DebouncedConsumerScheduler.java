@@ -0,0 +1,160 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.SafeRunnable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run a single consumer of a queue on an executor, with at most one consumption in flight.
+ * <p>
+ * Consumption is requested with {@link #wakeUp()}. Wake-ups happening while a consumption is
+ * already submitted are coalesced: once the current consumption is done, the consumer runs only
+ * once more in the same task. So a burst of wake-ups results in a single executor submission.
+ * <p>
+ * When the consumer indicates that elements remain in its queue (because it only consumed a batch
+ * of them, or because it failed and rolled them back), it is woken up again after a delay, unless
+ * another wake-up comes first.
+ */
+public class DebouncedConsumerScheduler {
+
+  public interface Consumer {
+
+    /**
+     * Consume the next elements of the queue.
+     *
+     * @return <code>true</code> if elements remain in the queue and should be consumed later
+     */
+    boolean consume();
+  }
+
+  private static final int IDLE = 0;
+  private static final int DELAYED = 1;
+  private static final int RUNNING = 2;
+  private static final int RUNNING_AND_WOKEN_UP = 3;
+
+  @NonNull
+  private final Executor executor;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  private final long retryDelayInMillis;
+
+  @NonNull
+  private final String taskType;
+
+  @NonNull
+  private final Consumer consumer;
+
+  @NonNull
+  private final AtomicInteger state = new AtomicInteger(IDLE);
+
+  public DebouncedConsumerScheduler(
+      @NonNull Executor executor,
+      @NonNull ScheduledExecutorService scheduledExecutorService,
+      long retryDelayInMillis,
+      @NonNull String taskType,
+      @NonNull Consumer consumer
+  ) {
+    this.executor = executor;
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.retryDelayInMillis = retryDelayInMillis;
+    this.taskType = taskType;
+    this.consumer = consumer;
+  }
+
+  /**
+   * Request a consumption as soon as possible.
+   * <p>
+   * This is cheap when a consumption is already in flight: nothing is submitted to the executor.
+   */
+  public void wakeUp() {
+    while (true) {
+      int current = state.get();
+      if (current == RUNNING_AND_WOKEN_UP) {
+        return;
+      } else if (current == RUNNING) {
+        if (state.compareAndSet(RUNNING, RUNNING_AND_WOKEN_UP)) {
+          return;
+        }
+      } else if (state.compareAndSet(current, RUNNING)) {
+        submit();
+        return;
+      }
+    }
+  }
+
+  private void onRetryDelayElapsed() {
+    // The state may have changed since the delay was scheduled, in which case there is nothing to do
+    if (state.compareAndSet(DELAYED, RUNNING)) {
+      submit();
+    }
+  }
+
+  private void submit() {
+    try {
+      executor.execute(new ConsumeTask());
+    } catch (RuntimeException e) {
+      state.set(IDLE);
+      throw e;
+    }
+  }
+
+  private class ConsumeTask extends SafeRunnable implements TaskInstrumentation.Typed {
+
+    @NonNull
+    @Override
+    public String getTaskType() {
+      return taskType;
+    }
+
+    @Override
+    public void runSafely() {
+      while (true) {
+        boolean hasRemainingElements;
+        try {
+          hasRemainingElements = consumer.consume();
+        } catch (Throwable t) {
+          // Release the consumer so next wake-ups are not ignored
+          state.set(IDLE);
+          throw t;
+        }
+
+        int next = hasRemainingElements ? DELAYED : IDLE;
+        if (state.compareAndSet(RUNNING, next)) {
+          if (hasRemainingElements) {
+            scheduledExecutorService.schedule(
+                DebouncedConsumerScheduler.this::onRetryDelayElapsed,
+                retryDelayInMillis,
+                TimeUnit.MILLISECONDS
+            );
+          }
+          return;
+        }
+
+        // Woken up during the consumption: consume once more. No other thread changes the state
+        // until then.
+        state.set(RUNNING);
+      }
+    }
+  }
+}
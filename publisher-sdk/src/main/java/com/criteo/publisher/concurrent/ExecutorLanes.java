@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import java.util.concurrent.Executor;
+
+/**
+ * Lanes sharing the SDK thread pool, each one with its own concurrency cap.
+ * <p>
+ * Latency-critical tasks (bids, creatives, and what they depend on) directly use the thread pool.
+ * Other tasks use one of the lanes below. As lanes can only occupy few threads of the pool, a
+ * burst of background tasks cannot delay the critical ones.
+ */
+public class ExecutorLanes {
+
+  private static final int BACKGROUND_IO_CONCURRENCY = 2;
+  private static final int TELEMETRY_CONCURRENCY = 2;
+
+  @NonNull
+  private final Executor backgroundIoExecutor;
+
+  @NonNull
+  private final Executor telemetryExecutor;
+
+  public ExecutorLanes(
+      @NonNull Executor threadPoolExecutor,
+      @NonNull TaskInstrumentation taskInstrumentation
+  ) {
+    // Tasks are instrumented before entering the lanes, so their wait in the lanes is measured
+    this.backgroundIoExecutor = new InstrumentedExecutor(
+        new LimitedConcurrencyExecutor(threadPoolExecutor, BACKGROUND_IO_CONCURRENCY),
+        taskInstrumentation
+    );
+    this.telemetryExecutor = new InstrumentedExecutor(
+        new LimitedConcurrencyExecutor(threadPoolExecutor, TELEMETRY_CONCURRENCY),
+        taskInstrumentation
+    );
+  }
+
+  /**
+   * Lane for I/O that nothing is waiting for: app events, impression pixels, metric files, ...
+   */
+  @NonNull
+  public Executor getBackgroundIoExecutor() {
+    return backgroundIoExecutor;
+  }
+
+  /**
+   * Lane for reporting about the SDK itself: persistence and sending of CSM and remote logs.
+   */
+  @NonNull
+  public Executor getTelemetryExecutor() {
+    return telemetryExecutor;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor measuring the tasks it runs with the given {@link TaskInstrumentation}.
+ */
+public class InstrumentedExecutor implements Executor {
+
+  @NonNull
+  private final Executor delegate;
+
+  @NonNull
+  private final TaskInstrumentation taskInstrumentation;
+
+  public InstrumentedExecutor(
+      @NonNull Executor delegate,
+      @NonNull TaskInstrumentation taskInstrumentation
+  ) {
+    this.delegate = delegate;
+    this.taskInstrumentation = taskInstrumentation;
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    delegate.execute(taskInstrumentation.instrument(command));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running tasks on a delegate executor, with at most a given number of them running at
+ * the same time. Other tasks wait, in submission order, until a running one is over.
+ * <p>
+ * Each task is submitted separately to the delegate, so the threads of the delegate are never held
+ * by this executor between two tasks.
+ */
+public class LimitedConcurrencyExecutor implements Executor {
+
+  @NonNull
+  private final Executor delegate;
+
+  private final int maxConcurrency;
+
+  @NonNull
+  private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+  @NonNull
+  private final AtomicInteger runningTasks = new AtomicInteger();
+
+  public LimitedConcurrencyExecutor(@NonNull Executor delegate, int maxConcurrency) {
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("Max concurrency should be positive: " + maxConcurrency);
+    }
+
+    this.delegate = delegate;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    pendingTasks.offer(command);
+    submitIfPossible();
+  }
+
+  private void submitIfPossible() {
+    while (true) {
+      int running = runningTasks.get();
+      if (running >= maxConcurrency) {
+        // A running task submits the pending ones once it is over
+        return;
+      }
+
+      if (runningTasks.compareAndSet(running, running + 1)) {
+        try {
+          delegate.execute(new PendingTaskRunner());
+        } catch (RuntimeException e) {
+          runningTasks.decrementAndGet();
+          throw e;
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * This only runs a task of the lane: it is transparent so the task itself is measured instead.
+   */
+  private class PendingTaskRunner implements Runnable, TaskInstrumentation.Transparent {
+
+    @Override
+    public void run() {
+      try {
+        Runnable task = pendingTasks.poll();
+        if (task != null) {
+          task.run();
+        }
+      } finally {
+        runningTasks.decrementAndGet();
+
+        // A task may have been offered while this one was counted as running
+        if (!pendingTasks.isEmpty()) {
+          submitIfPossible();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.SafeRunnable;
+import com.criteo.publisher.diagnostics.CriteoDiagnosticsListener;
+import com.criteo.publisher.diagnostics.DurationHistogram;
+import com.criteo.publisher.diagnostics.ExecutorDiagnostics;
+import com.criteo.publisher.diagnostics.TaskDiagnostics;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measure, by type of task, how long tasks of the SDK wait in queues and run, and how often they
+ * fail.
+ * <p>
+ * This is disabled until a {@link CriteoDiagnosticsListener} is set: tasks are then executed as
+ * is, without any overhead. Once enabled, statistics are accumulated in fixed-size histograms and
+ * periodically reported to the listener.
+ */
+public class TaskInstrumentation {
+
+  /**
+   * Marker for tasks that should not be measured because they only run other tasks that are
+   * already measured.
+   */
+  public interface Transparent {
+  }
+
+  /**
+   * Task giving its own type, for generic tasks whose class is shared by different features.
+   */
+  public interface Typed {
+
+    /**
+     * Stable name under which executions of this task are reported.
+     */
+    @NonNull
+    String getTaskType();
+  }
+
+  /**
+   * Bucket {@code i} counts durations below {@code 2^i} µs. The last one counts durations above
+   * {@code 2^(BUCKET_SIZE - 2)} µs, that is ~8s.
+   */
+  @VisibleForTesting
+  static final int BUCKET_SIZE = 25;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @NonNull
+  private final BuildConfigWrapper buildConfigWrapper;
+
+  @NonNull
+  private final ConcurrentMap<String, TaskStats> statsByTaskType = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final AtomicLong backupExecutionCount = new AtomicLong();
+
+  @Nullable
+  private volatile CriteoDiagnosticsListener listener;
+
+  public TaskInstrumentation(
+      @NonNull ScheduledExecutorService scheduledExecutorService,
+      @NonNull BuildConfigWrapper buildConfigWrapper
+  ) {
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.buildConfigWrapper = buildConfigWrapper;
+  }
+
+  /**
+   * Enable the instrumentation and report periodically to the given listener.
+   * <p>
+   * Only the first listener is taken into account, others are ignored.
+   */
+  public void setListener(@NonNull CriteoDiagnosticsListener listener) {
+    synchronized (this) {
+      if (this.listener != null) {
+        return;
+      }
+      this.listener = listener;
+    }
+
+    long periodInMillis = buildConfigWrapper.getDiagnosticsReportPeriodInMillis();
+    scheduledExecutorService.scheduleWithFixedDelay(
+        new ReportTask(listener),
+        periodInMillis,
+        periodInMillis,
+        TimeUnit.MILLISECONDS
+    );
+  }
+
+  public boolean isEnabled() {
+    return listener != null;
+  }
+
+  /**
+   * Wrap the given task so its execution is measured once run.
+   * <p>
+   * The waiting time in queue is measured from the call of this method, so this should be called
+   * when the task is submitted.
+   */
+  @NonNull
+  public Runnable instrument(@NonNull Runnable task) {
+    if (!isEnabled() || task instanceof InstrumentedTask || task instanceof Transparent) {
+      return task;
+    }
+
+    return new InstrumentedTask(task, getOrCreateStats(getTaskType(task)));
+  }
+
+  @NonNull
+  private static String getTaskType(@NonNull Runnable task) {
+    if (task instanceof Typed) {
+      return ((Typed) task).getTaskType();
+    }
+    return task.getClass().getName();
+  }
+
+  /**
+   * Count a task that could not be run by the main thread pool and was queued on its backup one.
+   */
+  public void onBackupExecution() {
+    if (isEnabled()) {
+      backupExecutionCount.incrementAndGet();
+    }
+  }
+
+  @NonNull
+  public ExecutorDiagnostics getDiagnostics() {
+    List<TaskDiagnostics> tasks = new ArrayList<>(statsByTaskType.size());
+    for (Map.Entry<String, TaskStats> entry : statsByTaskType.entrySet()) {
+      tasks.add(entry.getValue().toDiagnostics(entry.getKey()));
+    }
+    return new ExecutorDiagnostics(backupExecutionCount.get(), tasks);
+  }
+
+  @NonNull
+  private TaskStats getOrCreateStats(@NonNull String taskType) {
+    TaskStats stats = statsByTaskType.get(taskType);
+    if (stats == null) {
+      TaskStats newStats = new TaskStats();
+      stats = statsByTaskType.putIfAbsent(taskType, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+
+  @VisibleForTesting
+  static int bucketOf(long durationInNanos) {
+    long durationInMicros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, durationInNanos));
+    int bucket = Long.SIZE - Long.numberOfLeadingZeros(durationInMicros);
+    return Math.min(bucket, BUCKET_SIZE - 1);
+  }
+
+  private static class TaskStats {
+
+    private final AtomicLong executionCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLongArray queueWait = new AtomicLongArray(BUCKET_SIZE);
+    private final AtomicLongArray runTime = new AtomicLongArray(BUCKET_SIZE);
+
+    void onExecution(long queueWaitInNanos, long runTimeInNanos, boolean isFailed) {
+      executionCount.incrementAndGet();
+      if (isFailed) {
+        failureCount.incrementAndGet();
+      }
+      queueWait.incrementAndGet(bucketOf(queueWaitInNanos));
+      runTime.incrementAndGet(bucketOf(runTimeInNanos));
+    }
+
+    @NonNull
+    TaskDiagnostics toDiagnostics(@NonNull String taskType) {
+      return new TaskDiagnostics(
+          taskType,
+          executionCount.get(),
+          failureCount.get(),
+          toHistogram(queueWait),
+          toHistogram(runTime)
+      );
+    }
+
+    @NonNull
+    private static DurationHistogram toHistogram(@NonNull AtomicLongArray buckets) {
+      long[] bucketCounts = new long[buckets.length()];
+      for (int i = 0; i < bucketCounts.length; i++) {
+        bucketCounts[i] = buckets.get(i);
+      }
+      return new DurationHistogram(bucketCounts);
+    }
+  }
+
+  private static class InstrumentedTask implements Runnable {
+
+    @NonNull
+    private final Runnable delegate;
+
+    @NonNull
+    private final TaskStats stats;
+
+    private final long submissionTimeInNanos = System.nanoTime();
+
+    InstrumentedTask(@NonNull Runnable delegate, @NonNull TaskStats stats) {
+      this.delegate = delegate;
+      this.stats = stats;
+    }
+
+    @Override
+    public void run() {
+      long startTimeInNanos = System.nanoTime();
+      boolean isFailed = true;
+      try {
+        if (delegate instanceof SafeRunnable) {
+          // Safe tasks catch their failures, they would not be seen from here
+          isFailed = ((SafeRunnable) delegate).runAndCheckFailure();
+        } else {
+          delegate.run();
+          isFailed = false;
+        }
+      } finally {
+        long endTimeInNanos = System.nanoTime();
+        stats.onExecution(
+            startTimeInNanos - submissionTimeInNanos,
+            endTimeInNanos - startTimeInNanos,
+            isFailed
+        );
+      }
+    }
+  }
+
+  private class ReportTask extends SafeRunnable {
+
+    @NonNull
+    private final CriteoDiagnosticsListener listener;
+
+    ReportTask(@NonNull CriteoDiagnosticsListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void runSafely() {
+      listener.onExecutorDiagnostics(getDiagnostics());
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.criteo.publisher.concurrent;
 
+import android.os.Process;
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.DependencyProvider.Factory;
@@ -23,6 +24,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -37,6 +39,13 @@ public class ThreadPoolExecutorFactory implements Factory<ThreadPoolExecutor> {
   private static final int BACKUP_POOL_SIZE = 5;
   private static final int KEEP_ALIVE_SECONDS = 3;
 
+  @NonNull
+  private final TaskInstrumentation taskInstrumentation;
+
+  public ThreadPoolExecutorFactory(@NonNull TaskInstrumentation taskInstrumentation) {
+    this.taskInstrumentation = taskInstrumentation;
+  }
+
   /**
    * Create new thread pools independent from the {@linkplain android.os.AsyncTask#THREAD_POOL_EXECUTOR
    * Android one}.
@@ -47,6 +56,10 @@ public class ThreadPoolExecutorFactory implements Factory<ThreadPoolExecutor> {
    *   <li>Tasks are independent, this means that a long task should not limit another one</li>
    *   <li>There is a burst of tasks at the initialization of the SDK</li>
    * </ul>
+   *
+   * Threads run with a background priority, so the SDK never competes with the UI thread of the
+   * application. Non latency-critical tasks should go through {@link ExecutorLanes} so they
+   * can't occupy the whole pool.
    */
   @NonNull
   @Override
@@ -56,21 +69,30 @@ public class ThreadPoolExecutorFactory implements Factory<ThreadPoolExecutor> {
         MAXIMUM_POOL_SIZE,
         KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
         new SynchronousQueue<>(),
-        Executors.defaultThreadFactory()
+        new BackgroundThreadFactory()
     );
 
-    threadPoolExecutor.setRejectedExecutionHandler(new BackupExecutionHandler());
+    threadPoolExecutor.setRejectedExecutionHandler(new BackupExecutionHandler(taskInstrumentation));
 
     return threadPoolExecutor;
   }
 
   private static class BackupExecutionHandler implements RejectedExecutionHandler {
 
+    @NonNull
+    private final TaskInstrumentation taskInstrumentation;
+
     @GuardedBy("this")
     private ThreadPoolExecutor backupExecutor;
 
+    BackupExecutionHandler(@NonNull TaskInstrumentation taskInstrumentation) {
+      this.taskInstrumentation = taskInstrumentation;
+    }
+
     @Override
     public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+      taskInstrumentation.onBackupExecution();
+
       // As a last ditch fallback, run it on an executor with an unbounded queue.
       // Create this executor lazily, hopefully almost never.
       synchronized (this) {
@@ -80,7 +102,7 @@ public class ThreadPoolExecutorFactory implements Factory<ThreadPoolExecutor> {
               BACKUP_POOL_SIZE,
               KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
               new LinkedBlockingQueue<>(),
-              Executors.defaultThreadFactory());
+              new BackgroundThreadFactory());
         }
       }
 
@@ -88,4 +110,17 @@ public class ThreadPoolExecutorFactory implements Factory<ThreadPoolExecutor> {
     }
   }
 
+  private static class BackgroundThreadFactory implements ThreadFactory {
+
+    private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      return delegate.newThread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        runnable.run();
+      });
+    }
+  }
+
 }
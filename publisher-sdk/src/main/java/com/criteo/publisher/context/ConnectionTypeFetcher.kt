@@ -21,7 +21,9 @@ import android.annotation.SuppressLint
 import android.content.Context
 import android.content.pm.PackageManager
 import android.net.ConnectivityManager
+import android.net.Network
 import android.net.NetworkCapabilities
+import android.net.NetworkRequest
 import android.os.Build
 import android.telephony.TelephonyManager
 import androidx.annotation.RequiresApi
@@ -29,6 +31,8 @@ import androidx.annotation.VisibleForTesting
 import androidx.core.content.ContextCompat
 import com.criteo.publisher.annotation.OpenForTesting
 import com.criteo.publisher.logging.LoggerFactory
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 
 @OpenForTesting
 internal class ConnectionTypeFetcher(
@@ -37,6 +41,65 @@ internal class ConnectionTypeFetcher(
 
   private val logger = LoggerFactory.getLogger(ConnectionTypeFetcher::class.java)
 
+  private val isCallbackRegistrationRequested = AtomicBoolean(false)
+
+  @Volatile
+  private var isCallbackRegistered = false
+
+  /**
+   * Incremented each time the network callback notifies a change, so a cached value computed before the change is
+   * never considered as up-to-date.
+   */
+  private val networkGeneration = AtomicInteger()
+
+  @Volatile
+  private var cachedConnectionType: CachedConnectionType? = null
+
+  /**
+   * Return the current connection type, like [fetchConnectionType] but without querying the system on each call.
+   *
+   * The first call registers a network callback. Then the connection type is only fetched again after the network
+   * changed. If the callback cannot be registered (before Lollipop or when the system refuses it), this falls back on
+   * fetching the connection type on every call.
+   */
+  internal fun getConnectionType(): ConnectionType? {
+    registerNetworkCallbackOnce()
+
+    val generation = networkGeneration.get()
+    val cached = cachedConnectionType
+    if (isCallbackRegistered && cached != null && cached.generation == generation) {
+      return cached.connectionType
+    }
+
+    val connectionType = fetchConnectionType()
+    cachedConnectionType = CachedConnectionType(generation, connectionType)
+    return connectionType
+  }
+
+  private fun registerNetworkCallbackOnce() {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP ||
+        !isCallbackRegistrationRequested.compareAndSet(false, true)) {
+      return
+    }
+
+    val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE)
+        as? ConnectivityManager ?: return
+
+    @Suppress("TooGenericExceptionCaught")
+    try {
+      val callback = InvalidatingNetworkCallback()
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+        connectivityManager.registerDefaultNetworkCallback(callback)
+      } else {
+        connectivityManager.registerNetworkCallback(NetworkRequest.Builder().build(), callback)
+      }
+      isCallbackRegistered = true
+    } catch (e: RuntimeException) {
+      // Some devices throw a SecurityException, and the system limits the number of callbacks per app
+      logger.debug("Network callback can't be registered, connection type is fetched on each request", e)
+    }
+  }
+
   @SuppressLint("NewApi")
   internal fun fetchConnectionType(): ConnectionType? {
     val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE)
@@ -149,6 +212,23 @@ internal class ConnectionTypeFetcher(
     }
   }
 
+  private class CachedConnectionType(val generation: Int, val connectionType: ConnectionType?)
+
+  @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+  private inner class InvalidatingNetworkCallback : ConnectivityManager.NetworkCallback() {
+    override fun onAvailable(network: Network) {
+      networkGeneration.incrementAndGet()
+    }
+
+    override fun onLost(network: Network) {
+      networkGeneration.incrementAndGet()
+    }
+
+    override fun onCapabilitiesChanged(network: Network, networkCapabilities: NetworkCapabilities) {
+      networkGeneration.incrementAndGet()
+    }
+  }
+
   @VisibleForTesting
   @Suppress("MagicNumber")
   internal enum class ConnectionType(val openRtbValue: Int) {
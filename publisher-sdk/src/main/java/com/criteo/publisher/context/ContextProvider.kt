@@ -62,7 +62,7 @@ internal class ContextProvider(
    * Network connection type. Refer to [ConnectionTypeFetcher.ConnectionType].
    */
   internal fun fetchDeviceConnectionType(): Int? {
-    return connectionTypeFetcher.fetchConnectionType()?.openRtbValue
+    return connectionTypeFetcher.getConnectionType()?.openRtbValue
   }
 
   /**
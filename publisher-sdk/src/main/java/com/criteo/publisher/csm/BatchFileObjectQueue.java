@@ -0,0 +1,194 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import static com.criteo.publisher.csm.SendingQueueLogMessage.onErrorWhenPollingQueueFile;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.squareup.tape.FileException;
+import com.squareup.tape.FileObjectQueue.Converter;
+import com.squareup.tape.ObjectQueue;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Equivalent of Tape's {@link com.squareup.tape.FileObjectQueue} backed by a
+ * {@link BatchQueueFile}, so several elements can be added or polled with a single commit.
+ * <p>
+ * Like the {@link com.squareup.tape.FileObjectQueue}, this class is not thread-safe.
+ */
+class BatchFileObjectQueue<T> implements ObjectQueue<T> {
+
+  @NonNull
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final File file;
+
+  @NonNull
+  private final BatchQueueFile queueFile;
+
+  @NonNull
+  private final Converter<T> converter;
+
+  @Nullable
+  private Listener<T> listener;
+
+  BatchFileObjectQueue(@NonNull File file, @NonNull Converter<T> converter) throws IOException {
+    this.file = file;
+    this.queueFile = new BatchQueueFile(file);
+    this.converter = converter;
+  }
+
+  @Override
+  public int size() {
+    return queueFile.size();
+  }
+
+  /**
+   * Number of bytes used in the queue file by the elements of this queue.
+   */
+  int getUsedBytes() {
+    return queueFile.usedBytes();
+  }
+
+  @Override
+  public void add(T entry) {
+    addAll(Collections.singletonList(entry));
+  }
+
+  /**
+   * Add all the given elements at the end of this queue. Either all of them are added, or none of
+   * them in case of error.
+   *
+   * @throws FileException if an error occurs while serializing or writing the elements
+   */
+  void addAll(@NonNull Collection<? extends T> entries) {
+    List<byte[]> elements = new ArrayList<>(entries.size());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try {
+      for (T entry : entries) {
+        bytes.reset();
+        converter.toStream(entry, bytes);
+        elements.add(bytes.toByteArray());
+      }
+
+      queueFile.add(elements);
+    } catch (IOException e) {
+      throw new FileException("Failed to add entries.", e, file);
+    }
+
+    if (listener != null) {
+      for (T entry : entries) {
+        listener.onAdd(this, entry);
+      }
+    }
+  }
+
+  @Nullable
+  @Override
+  public T peek() {
+    try {
+      byte[] bytes = queueFile.peek();
+      if (bytes == null) {
+        return null;
+      }
+      return converter.from(bytes);
+    } catch (IOException e) {
+      throw new FileException("Failed to peek.", e, file);
+    }
+  }
+
+  @Override
+  public void remove() {
+    try {
+      queueFile.remove(1);
+    } catch (IOException e) {
+      throw new FileException("Failed to remove.", e, file);
+    }
+
+    if (listener != null) {
+      listener.onRemove(this);
+    }
+  }
+
+  /**
+   * Retrieve and remove up to <code>max</code> elements from the head of this queue.
+   * <p>
+   * Elements that cannot be read back (for instance because they were corrupted on the storage)
+   * are removed but not returned, so they do not block the queue.
+   *
+   * @throws FileException if an error occurs while reading the queue file. In this case, no element
+   * is removed.
+   */
+  @NonNull
+  List<T> poll(int max) {
+    List<byte[]> polledBytes;
+    try {
+      polledBytes = queueFile.poll(max);
+    } catch (IOException e) {
+      throw new FileException("Failed to poll.", e, file);
+    }
+
+    List<T> elements = new ArrayList<>(polledBytes.size());
+    Exception exception = null;
+
+    for (byte[] bytes : polledBytes) {
+      try {
+        T element = converter.from(bytes);
+        if (element != null) {
+          elements.add(element);
+        }
+      } catch (IOException | RuntimeException e) {
+        if (exception == null) {
+          exception = e;
+        } else {
+          exception.addSuppressed(e);
+        }
+      }
+
+      if (listener != null) {
+        listener.onRemove(this);
+      }
+    }
+
+    if (exception != null) {
+      logger.log(onErrorWhenPollingQueueFile(exception));
+    }
+
+    return elements;
+  }
+
+  /**
+   * Set the listener notified of the next additions and removals.
+   * <p>
+   * Contrary to Tape's queue, the listener is not notified of the elements already in the queue.
+   */
+  @Override
+  public void setListener(@Nullable Listener<T> listener) {
+    this.listener = listener;
+  }
+}
@@ -0,0 +1,429 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * File based FIFO queue of byte arrays supporting batch operations.
+ * <p>
+ * The file format is the one of Tape's {@link com.squareup.tape.QueueFile}, so queue files written
+ * by previous versions of the SDK are still readable. The file is a ring buffer starting with a
+ * 16 bytes header (file length, element count, position of the first element and position of the
+ * last element), and each element is written with a 4 bytes header containing its length.
+ * <p>
+ * Like in Tape, a change is committed when the header is written. But while Tape commits every
+ * single element, {@link #add(Collection)} and {@link #poll(int)} commit a whole batch with one
+ * header write.
+ * <p>
+ * This class is not thread-safe.
+ */
+class BatchQueueFile implements Closeable {
+
+  @VisibleForTesting
+  static final int INITIAL_LENGTH = 4096;
+
+  @VisibleForTesting
+  static final int HEADER_LENGTH = 16;
+
+  private static final int ELEMENT_HEADER_LENGTH = 4;
+
+  /**
+   * Opened in <code>rwd</code> mode, so every write is synchronously written on the storage.
+   */
+  @NonNull
+  private final RandomAccessFile raf;
+
+  private final byte[] buffer = new byte[HEADER_LENGTH];
+
+  private int fileLength;
+
+  private int elementCount;
+
+  /**
+   * Position of the first element, or 0 if the queue is empty
+   */
+  private int firstPosition;
+
+  /**
+   * Position of the last element, or 0 if the queue is empty
+   */
+  private int lastPosition;
+
+  private int lastLength;
+
+  BatchQueueFile(@NonNull File file) throws IOException {
+    if (!file.exists()) {
+      initialize(file);
+    }
+
+    raf = new RandomAccessFile(file, "rwd");
+    try {
+      readHeader();
+    } catch (IOException e) {
+      raf.close();
+      throw e;
+    }
+  }
+
+  int size() {
+    return elementCount;
+  }
+
+  /**
+   * Number of bytes used by the header and the elements of this queue.
+   * <p>
+   * The file itself grows in power of 2, so its length is generally bigger than this.
+   */
+  int usedBytes() {
+    if (elementCount == 0) {
+      return HEADER_LENGTH;
+    }
+
+    int endOfLastElement = lastPosition + ELEMENT_HEADER_LENGTH + lastLength;
+    if (lastPosition >= firstPosition) {
+      // Contiguous queue
+      return HEADER_LENGTH + endOfLastElement - firstPosition;
+    } else {
+      // Wrapped queue
+      return endOfLastElement + fileLength - firstPosition;
+    }
+  }
+
+  /**
+   * Append all the given elements at the end of the queue and commit them at once.
+   */
+  void add(@NonNull Collection<byte[]> elements) throws IOException {
+    if (elements.isEmpty()) {
+      return;
+    }
+
+    long batchLength = 0;
+    for (byte[] element : elements) {
+      batchLength += ELEMENT_HEADER_LENGTH + element.length;
+    }
+    if (batchLength > Integer.MAX_VALUE - usedBytes()) {
+      throw new IOException("Batch is too big: " + batchLength);
+    }
+
+    expandIfNecessary((int) batchLength);
+
+    // Elements are serialized contiguously so the whole batch is written at once (twice if it is
+    // wrapping around the end of the file).
+    byte[] batch = new byte[(int) batchLength];
+    int offset = 0;
+    int lastOffset = 0;
+    int newLastLength = 0;
+    for (byte[] element : elements) {
+      writeInt(batch, offset, element.length);
+      System.arraycopy(element, 0, batch, offset + ELEMENT_HEADER_LENGTH, element.length);
+      lastOffset = offset;
+      newLastLength = element.length;
+      offset += ELEMENT_HEADER_LENGTH + element.length;
+    }
+
+    boolean wasEmpty = elementCount == 0;
+    int position = wasEmpty
+        ? HEADER_LENGTH
+        : wrapPosition(lastPosition + ELEMENT_HEADER_LENGTH + lastLength);
+
+    ringWrite(position, batch, 0, batch.length);
+
+    int newFirstPosition = wasEmpty ? position : firstPosition;
+    int newLastPosition = wrapPosition(position + lastOffset);
+    int newElementCount = elementCount + elements.size();
+    writeHeader(fileLength, newElementCount, newFirstPosition, newLastPosition);
+
+    elementCount = newElementCount;
+    firstPosition = newFirstPosition;
+    lastPosition = newLastPosition;
+    lastLength = newLastLength;
+  }
+
+  /**
+   * Read the first element of the queue without removing it.
+   *
+   * @return the first element, or <code>null</code> if the queue is empty
+   */
+  @Nullable
+  byte[] peek() throws IOException {
+    if (elementCount == 0) {
+      return null;
+    }
+
+    int length = readElementLength(firstPosition);
+    byte[] data = new byte[length];
+    ringRead(firstPosition + ELEMENT_HEADER_LENGTH, data, 0, length);
+    return data;
+  }
+
+  /**
+   * Read and remove up to <code>max</code> elements from the head of the queue, committing the
+   * removal at once.
+   * <p>
+   * In case of error, nothing is removed.
+   */
+  @NonNull
+  List<byte[]> poll(int max) throws IOException {
+    if (max <= 0 || elementCount == 0) {
+      return Collections.emptyList();
+    }
+
+    int count = Math.min(max, elementCount);
+    List<byte[]> elements = new ArrayList<>(count);
+    int position = firstPosition;
+    for (int i = 0; i < count; i++) {
+      int length = readElementLength(position);
+      byte[] data = new byte[length];
+      ringRead(position + ELEMENT_HEADER_LENGTH, data, 0, length);
+      elements.add(data);
+      position = wrapPosition(position + ELEMENT_HEADER_LENGTH + length);
+    }
+
+    removeUntil(count, position);
+    return elements;
+  }
+
+  /**
+   * Remove up to <code>max</code> elements from the head of the queue, committing the removal at
+   * once.
+   */
+  void remove(int max) throws IOException {
+    if (max <= 0 || elementCount == 0) {
+      return;
+    }
+
+    int count = Math.min(max, elementCount);
+    int position = firstPosition;
+    for (int i = 0; i < count; i++) {
+      position = wrapPosition(position + ELEMENT_HEADER_LENGTH + readElementLength(position));
+    }
+
+    removeUntil(count, position);
+  }
+
+  void clear() throws IOException {
+    writeHeader(INITIAL_LENGTH, 0, 0, 0);
+    elementCount = 0;
+    firstPosition = 0;
+    lastPosition = 0;
+    lastLength = 0;
+
+    if (fileLength > INITIAL_LENGTH) {
+      raf.setLength(INITIAL_LENGTH);
+    }
+    fileLength = INITIAL_LENGTH;
+  }
+
+  @Override
+  public void close() throws IOException {
+    raf.close();
+  }
+
+  private void removeUntil(int count, int newFirstPosition) throws IOException {
+    if (count == elementCount) {
+      clear();
+      return;
+    }
+
+    int newElementCount = elementCount - count;
+    writeHeader(fileLength, newElementCount, newFirstPosition, lastPosition);
+    elementCount = newElementCount;
+    firstPosition = newFirstPosition;
+  }
+
+  private void expandIfNecessary(int length) throws IOException {
+    int usedBytes = usedBytes();
+    if (fileLength - usedBytes >= length) {
+      return;
+    }
+
+    long newLength = fileLength;
+    do {
+      newLength <<= 1;
+    } while (newLength - usedBytes < length);
+
+    if (newLength > Integer.MAX_VALUE) {
+      throw new IOException("Queue file is full");
+    }
+
+    raf.setLength(newLength);
+
+    // If the elements are wrapping around the end of the file, the wrapped part is moved after the
+    // previous end of the file, so the elements are contiguous again.
+    // Bytes are copied by hand: FileChannel#transferTo is known to silently write zeros on some
+    // Android versions.
+    int wrappedLength = firstPosition + usedBytes - HEADER_LENGTH - fileLength;
+    if (elementCount > 0 && wrappedLength > 0) {
+      copy(HEADER_LENGTH, fileLength, wrappedLength);
+    }
+
+    int newLastPosition = lastPosition;
+    if (lastPosition < firstPosition) {
+      newLastPosition = lastPosition + fileLength - HEADER_LENGTH;
+    }
+
+    writeHeader((int) newLength, elementCount, firstPosition, newLastPosition);
+    fileLength = (int) newLength;
+    lastPosition = newLastPosition;
+  }
+
+  private void copy(int from, int to, int length) throws IOException {
+    byte[] chunk = new byte[Math.min(length, INITIAL_LENGTH)];
+    int copied = 0;
+    while (copied < length) {
+      int count = Math.min(chunk.length, length - copied);
+      raf.seek(from + copied);
+      raf.readFully(chunk, 0, count);
+      raf.seek(to + copied);
+      raf.write(chunk, 0, count);
+      copied += count;
+    }
+  }
+
+  private void readHeader() throws IOException {
+    raf.seek(0);
+    raf.readFully(buffer);
+
+    fileLength = readInt(buffer, 0);
+    elementCount = readInt(buffer, 4);
+    firstPosition = readInt(buffer, 8);
+    lastPosition = readInt(buffer, 12);
+
+    if (fileLength <= HEADER_LENGTH || fileLength > raf.length()) {
+      throw new IOException("Corrupted queue file: invalid length " + fileLength);
+    }
+
+    if (elementCount < 0) {
+      throw new IOException("Corrupted queue file: invalid element count " + elementCount);
+    }
+
+    if (elementCount == 0) {
+      firstPosition = 0;
+      lastPosition = 0;
+      lastLength = 0;
+      return;
+    }
+
+    checkPosition(firstPosition);
+    checkPosition(lastPosition);
+    lastLength = readElementLength(lastPosition);
+
+    if (usedBytes() > fileLength) {
+      throw new IOException("Corrupted queue file: elements are bigger than the file");
+    }
+  }
+
+  private void checkPosition(int position) throws IOException {
+    if (position < HEADER_LENGTH || position >= fileLength) {
+      throw new IOException("Corrupted queue file: invalid position " + position);
+    }
+  }
+
+  private int readElementLength(int position) throws IOException {
+    ringRead(position, buffer, 0, ELEMENT_HEADER_LENGTH);
+    int length = readInt(buffer, 0);
+    if (length < 0 || length > fileLength - HEADER_LENGTH - ELEMENT_HEADER_LENGTH) {
+      throw new IOException("Corrupted queue file: invalid element length " + length);
+    }
+    return length;
+  }
+
+  private void writeHeader(
+      int fileLength,
+      int elementCount,
+      int firstPosition,
+      int lastPosition
+  ) throws IOException {
+    writeInt(buffer, 0, fileLength);
+    writeInt(buffer, 4, elementCount);
+    writeInt(buffer, 8, firstPosition);
+    writeInt(buffer, 12, lastPosition);
+    raf.seek(0);
+    raf.write(buffer, 0, HEADER_LENGTH);
+  }
+
+  private int wrapPosition(int position) {
+    return position < fileLength ? position : HEADER_LENGTH + position - fileLength;
+  }
+
+  private void ringWrite(int position, byte[] data, int offset, int count) throws IOException {
+    position = wrapPosition(position);
+    if (position + count <= fileLength) {
+      raf.seek(position);
+      raf.write(data, offset, count);
+    } else {
+      int beforeEof = fileLength - position;
+      raf.seek(position);
+      raf.write(data, offset, beforeEof);
+      raf.seek(HEADER_LENGTH);
+      raf.write(data, offset + beforeEof, count - beforeEof);
+    }
+  }
+
+  private void ringRead(int position, byte[] data, int offset, int count) throws IOException {
+    position = wrapPosition(position);
+    if (position + count <= fileLength) {
+      raf.seek(position);
+      raf.readFully(data, offset, count);
+    } else {
+      int beforeEof = fileLength - position;
+      raf.seek(position);
+      raf.readFully(data, offset, beforeEof);
+      raf.seek(HEADER_LENGTH);
+      raf.readFully(data, offset + beforeEof, count - beforeEof);
+    }
+  }
+
+  private static void initialize(@NonNull File file) throws IOException {
+    File tempFile = new File(file.getPath() + ".tmp");
+    try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rwd")) {
+      raf.setLength(INITIAL_LENGTH);
+      byte[] header = new byte[HEADER_LENGTH];
+      writeInt(header, 0, INITIAL_LENGTH);
+      raf.write(header);
+    }
+
+    if (!tempFile.renameTo(file)) {
+      throw new IOException("Cannot create queue file " + file);
+    }
+  }
+
+  private static int readInt(byte[] buffer, int offset) {
+    return ((buffer[offset] & 0xff) << 24)
+        + ((buffer[offset + 1] & 0xff) << 16)
+        + ((buffer[offset + 2] & 0xff) << 8)
+        + (buffer[offset + 3] & 0xff);
+  }
+
+  private static void writeInt(byte[] buffer, int offset, int value) {
+    buffer[offset] = (byte) (value >> 24);
+    buffer[offset + 1] = (byte) (value >> 16);
+    buffer[offset + 2] = (byte) (value >> 8);
+    buffer[offset + 3] = (byte) value;
+  }
+}
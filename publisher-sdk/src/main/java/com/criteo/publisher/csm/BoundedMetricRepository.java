@@ -20,6 +20,13 @@ import androidx.annotation.NonNull;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import java.util.Collection;
 
+/**
+ * Repository skipping the creation of new metrics once the delegate is full.
+ * <p>
+ * The bound is checked before every update, so the delegate is expected to answer
+ * {@link #getTotalSize()} and {@link #contains(String)} without any I/O, as
+ * {@link LogMetricRepository} does with its in-memory index.
+ */
 class BoundedMetricRepository extends MetricRepository {
 
   @NonNull
@@ -67,4 +74,9 @@ class BoundedMetricRepository extends MetricRepository {
   boolean contains(@NonNull String impressionId) {
     return delegate.contains(impressionId);
   }
+
+  @Override
+  public void onApplicationStopped() {
+    delegate.onApplicationStopped();
+  }
 }
@@ -18,6 +18,7 @@ package com.criteo.publisher.csm;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import java.util.Collection;
 import java.util.List;
 
 class BoundedSendingQueue<T> implements ConcurrentSendingQueue<T> {
@@ -50,6 +51,16 @@ class BoundedSendingQueue<T> implements ConcurrentSendingQueue<T> {
     }
   }
 
+  @Override
+  public boolean offerAll(@NonNull Collection<? extends T> elements) {
+    synchronized (delegateLock) {
+      if (getTotalSize() >= sendingQueueConfiguration.getMaxSizeOfSendingQueue()) {
+        delegate.poll(elements.size());
+      }
+      return delegate.offerAll(elements);
+    }
+  }
+
   @NonNull
   @Override
   public List<T> poll(int max) {
@@ -62,4 +73,9 @@ class BoundedSendingQueue<T> implements ConcurrentSendingQueue<T> {
   public int getTotalSize() {
     return delegate.getTotalSize();
   }
+
+  @Override
+  public boolean isEmpty() {
+    return delegate.isEmpty();
+  }
 }
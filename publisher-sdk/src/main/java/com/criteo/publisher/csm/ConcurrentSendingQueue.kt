@@ -30,6 +30,17 @@ internal interface ConcurrentSendingQueue<T> {
    */
   fun offer(element: T): Boolean
 
+  /**
+   * Inserts all the specified elements into this queue.
+   *
+   * Implementations should commit all elements at once when possible, rather than committing them
+   * one by one.
+   *
+   * @param elements new elements to insert into this queue
+   * @return `true` if all elements were successfully inserted, else `false`
+   */
+  fun offerAll(elements: Collection<T>): Boolean
+
   /**
    * Retrieves and removes up to `max` elements from this queue.
    *
@@ -47,4 +58,14 @@ internal interface ConcurrentSendingQueue<T> {
    * @return total size in bytes of stored elements
    */
   val totalSize: Int
+
+  /**
+   * Indicate if this queue contains no element.
+   *
+   * This should be preferred over [totalSize] to know if elements remain in the queue: an empty
+   * queue may still use some bytes for its own metadata.
+   *
+   * @return `true` if there is no element in this queue, else `false`
+   */
+  val isEmpty: Boolean
 }
@@ -17,6 +17,7 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.util.MapUtilKt;
@@ -24,13 +25,22 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import kotlin.jvm.functions.Function0;
 
 class FileMetricRepository extends MetricRepository {
 
+  /**
+   * Maximum number of {@link SyncMetricFile} kept in memory. Metric files of moved metrics are
+   * released right away, so this only bounds the number of pending metrics being cached.
+   */
+  @VisibleForTesting
+  static final int MAX_OPEN_METRIC_FILES = 128;
+
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   @NonNull
@@ -46,10 +56,13 @@ class FileMetricRepository extends MetricRepository {
   @Override
   void addOrUpdateById(@NonNull String impressionId, @NonNull MetricUpdater updater) {
     File metricFile = directory.createMetricFile(impressionId);
-    SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
 
     try {
-      syncMetricFile.update(updater);
+      SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
+      while (!syncMetricFile.update(updater)) {
+        release(metricFile, syncMetricFile);
+        syncMetricFile = getOrCreateMetricFile(metricFile);
+      }
     } catch (IOException e) {
       logger.debug("Error while updating metric", e);
     }
@@ -58,10 +71,18 @@ class FileMetricRepository extends MetricRepository {
   @Override
   void moveById(@NonNull String impressionId, @NonNull MetricMover mover) {
     File metricFile = directory.createMetricFile(impressionId);
-    SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
 
     try {
-      syncMetricFile.moveWith(mover);
+      SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
+      while (!syncMetricFile.moveWith(mover)) {
+        release(metricFile, syncMetricFile);
+        syncMetricFile = getOrCreateMetricFile(metricFile);
+      }
+
+      if (syncMetricFile.isClosed()) {
+        // The metric was moved, so its file is deleted and there is no need to keep it in memory.
+        release(metricFile, syncMetricFile);
+      }
     } catch (IOException e) {
       logger.debug("Error while moving metric", e);
     }
@@ -75,7 +96,14 @@ class FileMetricRepository extends MetricRepository {
     List<Metric> metrics = new ArrayList<>(files.size());
     for (File metricFile : files) {
       try {
-        Metric metric = getOrCreateMetricFile(metricFile).read();
+        SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
+        Metric metric = syncMetricFile.read();
+        while (metric == null) {
+          release(metricFile, syncMetricFile);
+          syncMetricFile = getOrCreateMetricFile(metricFile);
+          metric = syncMetricFile.read();
+        }
+
         metrics.add(metric);
       } catch (IOException e) {
         logger.debug("Error while reading metric", e);
@@ -100,22 +128,60 @@ class FileMetricRepository extends MetricRepository {
     return directory.listFiles().contains(metricFile);
   }
 
+  @VisibleForTesting
+  int getOpenMetricFileCount() {
+    return metricFileById.size();
+  }
+
   /**
    * Atomically get or create a synchronized metric file on the given file.
    * <p>
-   * At most, one {@link SyncMetricFile} should exist for an underlying file.
+   * At most, one open {@link SyncMetricFile} should exist for an underlying file. The returned
+   * instance may be closed concurrently, in which case it should be {@linkplain #release(File,
+   * SyncMetricFile) released} and a new one should be created.
+   * <p>
+   * If there are too many metric files in memory, others are closed and released.
    *
    * @param metricFile underlying file to synchronized
    * @return unique instance of synchronized and atomic file over given one
    */
   @NonNull
   private SyncMetricFile getOrCreateMetricFile(@NonNull File metricFile) {
-    return MapUtilKt.getOrCompute(metricFileById, metricFile, new Function0<SyncMetricFile>() {
-      @Override
-      public SyncMetricFile invoke() {
-        return directory.createSyncMetricFile(metricFile);
+    SyncMetricFile syncMetricFile = MapUtilKt.getOrCompute(
+        metricFileById,
+        metricFile,
+        new Function0<SyncMetricFile>() {
+          @Override
+          public SyncMetricFile invoke() {
+            return directory.createSyncMetricFile(metricFile);
+          }
+        }
+    );
+
+    if (metricFileById.size() > MAX_OPEN_METRIC_FILES) {
+      evictMetricFiles(metricFile);
+    }
+
+    return syncMetricFile;
+  }
+
+  private void evictMetricFiles(@NonNull File excludedMetricFile) {
+    Iterator<Map.Entry<File, SyncMetricFile>> iterator = metricFileById.entrySet().iterator();
+    while (metricFileById.size() > MAX_OPEN_METRIC_FILES && iterator.hasNext()) {
+      Map.Entry<File, SyncMetricFile> entry = iterator.next();
+      if (!entry.getKey().equals(excludedMetricFile)) {
+        entry.getValue().close();
+        release(entry.getKey(), entry.getValue());
       }
-    });
+    }
+  }
+
+  /**
+   * Remove the given closed metric file from memory, if it is still the one associated to the
+   * underlying file.
+   */
+  private void release(@NonNull File metricFile, @NonNull SyncMetricFile syncMetricFile) {
+    metricFileById.remove(metricFile, syncMetricFile);
   }
 
 }
@@ -0,0 +1,500 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.util.JsonSerializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Repository storing all metrics in a single append-only log file.
+ * <p>
+ * Each update appends a record containing the new version of the metric, and each move appends a
+ * removal record. An in-memory index keeps the last version of every metric, so reads never touch
+ * the disk, and the log is only replayed once, at the first access. When the log mostly contains
+ * outdated records, it is compacted: live metrics are written in a new file that atomically
+ * replaces the log.
+ * <p>
+ * Every record is checksummed. A record torn by a crash, or corrupted, stops the replay: the log is
+ * truncated to its last valid record, so only the metrics written after it are lost.
+ * <p>
+ * Metrics stored by older versions of the SDK (one file per metric) are imported in the log when
+ * it is loaded.
+ */
+class LogMetricRepository extends MetricRepository {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte RECORD_TYPE_UPDATE = 1;
+  private static final byte RECORD_TYPE_REMOVE = 2;
+
+  /**
+   * Size of the record header: payload length (int), checksum (int) and record type (byte).
+   */
+  private static final int RECORD_HEADER_SIZE = 9;
+
+  /**
+   * Upper bound of a valid payload. Anything bigger is necessarily a corrupted length.
+   */
+  private static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+
+  /**
+   * Below this size, the log is never compacted, as there is nothing significant to reclaim.
+   */
+  @VisibleForTesting
+  static final int MIN_LOG_SIZE_FOR_COMPACTION = 16 * 1024;
+
+  private static final String COMPACTION_FILE_SUFFIX = ".compact";
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final MetricDirectory directory;
+
+  @NonNull
+  private final JsonSerializer jsonSerializer;
+
+  @NonNull
+  private final MetricRepository legacyRepository;
+
+  @NonNull
+  private final ConcurrentMap<String, IndexedMetric> index = new ConcurrentHashMap<>();
+
+  /**
+   * Lock protecting the log file and any modification of the index.
+   * <p>
+   * Reads of the index do not need it.
+   */
+  @NonNull
+  private final Object logLock = new Object();
+
+  @GuardedBy("logLock")
+  @Nullable
+  private File logFile;
+
+  @GuardedBy("logLock")
+  @Nullable
+  private OutputStream logOutput;
+
+  /**
+   * Size of the valid part of the log. Bytes after it, if any, come from a failed append.
+   */
+  @GuardedBy("logLock")
+  private long logSize = 0;
+
+  /**
+   * Sum of the serialized size of all live metrics. Written while holding {@link #logLock}.
+   */
+  private volatile int liveSize = 0;
+
+  private volatile boolean isLoaded = false;
+
+  LogMetricRepository(
+      @NonNull MetricDirectory directory,
+      @NonNull JsonSerializer jsonSerializer,
+      @NonNull MetricRepository legacyRepository
+  ) {
+    this.directory = directory;
+    this.jsonSerializer = jsonSerializer;
+    this.legacyRepository = legacyRepository;
+  }
+
+  @Override
+  void addOrUpdateById(@NonNull String impressionId, @NonNull MetricUpdater updater) {
+    ensureLoaded();
+
+    // The updater is called outside the lock so a slow update does not block other metrics. If a
+    // concurrent update is committed in the meantime, the update is restarted on the new version.
+    while (true) {
+      IndexedMetric current = index.get(impressionId);
+
+      Metric.Builder builder;
+      if (current == null) {
+        builder = Metric.builder(impressionId);
+      } else {
+        builder = current.metric.toBuilder();
+      }
+      updater.update(builder);
+      Metric newMetric = builder.build();
+
+      byte[] payload;
+      try {
+        payload = serialize(newMetric);
+      } catch (IOException e) {
+        logger.debug("Error while updating metric", e);
+        return;
+      }
+
+      synchronized (logLock) {
+        if (index.get(impressionId) != current) {
+          continue;
+        }
+
+        if (append(RECORD_TYPE_UPDATE, payload)) {
+          putInIndex(new IndexedMetric(newMetric, payload));
+          compactIfNeeded();
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Move the metric matching the given ID with the given mover.
+   * <p>
+   * A removal record is appended before offering the metric to the destination. If the move is not
+   * a success, the metric is appended again. As in {@link SyncMetricFile#moveWith(MetricMover)}, it
+   * is preferable to lose a metric in case of crash rather than duplicating it.
+   */
+  @Override
+  void moveById(@NonNull String impressionId, @NonNull MetricMover mover) {
+    ensureLoaded();
+
+    synchronized (logLock) {
+      IndexedMetric current = index.get(impressionId);
+      if (current == null) {
+        return;
+      }
+
+      if (!append(RECORD_TYPE_REMOVE, impressionId.getBytes(UTF_8))) {
+        return;
+      }
+      removeFromIndex(impressionId);
+
+      boolean success = false;
+      try {
+        if (mover.offerToDestination(current.metric)) {
+          success = true;
+        }
+      } finally {
+        if (!success && append(RECORD_TYPE_UPDATE, current.payload)) {
+          putInIndex(current);
+        }
+      }
+
+      compactIfNeeded();
+    }
+  }
+
+  @NonNull
+  @Override
+  Collection<Metric> getAllStoredMetrics() {
+    ensureLoaded();
+
+    List<Metric> metrics = new ArrayList<>(index.size());
+    for (IndexedMetric indexedMetric : index.values()) {
+      metrics.add(indexedMetric.metric);
+    }
+    return metrics;
+  }
+
+  @Override
+  int getTotalSize() {
+    ensureLoaded();
+    return liveSize;
+  }
+
+  @Override
+  boolean contains(@NonNull String impressionId) {
+    ensureLoaded();
+    return index.containsKey(impressionId);
+  }
+
+  private void ensureLoaded() {
+    if (isLoaded) {
+      return;
+    }
+
+    synchronized (logLock) {
+      if (isLoaded) {
+        return;
+      }
+
+      File file = getLogFile();
+
+      // A leftover compaction file comes from a crash before it replaced the log: the log is still
+      // complete, so the compaction file can be dropped.
+      getCompactionFile(file).delete();
+
+      replayLog(file);
+      importLegacyMetrics();
+      compactIfNeeded();
+
+      isLoaded = true;
+    }
+  }
+
+  @GuardedBy("logLock")
+  private void replayLog(@NonNull File logFile) {
+    if (!logFile.exists()) {
+      return;
+    }
+
+    long fileSize = logFile.length();
+    long validSize = 0;
+    try (FileInputStream fis = new FileInputStream(logFile);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(fis))) {
+      while (validSize < fileSize) {
+        int payloadSize = input.readInt();
+        int checksum = input.readInt();
+        byte type = input.readByte();
+        if (payloadSize < 0 || payloadSize > MAX_PAYLOAD_SIZE) {
+          break;
+        }
+
+        byte[] payload = new byte[payloadSize];
+        input.readFully(payload);
+        if (checksum != computeChecksum(type, payload) || !replayRecord(type, payload)) {
+          break;
+        }
+
+        validSize += RECORD_HEADER_SIZE + payloadSize;
+      }
+    } catch (IOException e) {
+      // The log ends with a torn record, the valid part of the log is kept.
+      logger.debug("Error while reading metric log", e);
+    }
+
+    logSize = validSize;
+  }
+
+  @GuardedBy("logLock")
+  private boolean replayRecord(byte type, @NonNull byte[] payload) throws IOException {
+    if (type == RECORD_TYPE_UPDATE) {
+      Metric metric = jsonSerializer.read(Metric.class, new ByteArrayInputStream(payload));
+      putInIndex(new IndexedMetric(metric, payload));
+      return true;
+    } else if (type == RECORD_TYPE_REMOVE) {
+      removeFromIndex(new String(payload, UTF_8));
+      return true;
+    }
+    return false;
+  }
+
+  @GuardedBy("logLock")
+  private void importLegacyMetrics() {
+    for (Metric legacyMetric : legacyRepository.getAllStoredMetrics()) {
+      legacyRepository.moveById(legacyMetric.getImpressionId(), metric -> {
+        if (index.containsKey(metric.getImpressionId())) {
+          // The log is more recent than the legacy file, the latter can be dropped.
+          return true;
+        }
+
+        try {
+          byte[] payload = serialize(metric);
+          if (append(RECORD_TYPE_UPDATE, payload)) {
+            putInIndex(new IndexedMetric(metric, payload));
+            return true;
+          }
+        } catch (IOException e) {
+          logger.debug("Error while importing metric", e);
+        }
+        return false;
+      });
+    }
+  }
+
+  @GuardedBy("logLock")
+  private void putInIndex(@NonNull IndexedMetric indexedMetric) {
+    IndexedMetric previous = index.put(indexedMetric.metric.getImpressionId(), indexedMetric);
+    int previousSize = previous == null ? 0 : previous.payload.length;
+    liveSize += indexedMetric.payload.length - previousSize;
+  }
+
+  @GuardedBy("logLock")
+  private void removeFromIndex(@NonNull String impressionId) {
+    IndexedMetric previous = index.remove(impressionId);
+    if (previous != null) {
+      liveSize -= previous.payload.length;
+    }
+  }
+
+  /**
+   * Append a record to the log.
+   * <p>
+   * The record is written in a single call, without buffering, so it reaches the OS as soon as this
+   * method returns. If the write fails, the log is reopened, and truncated, at the next append.
+   *
+   * @return <code>true</code> if the record is appended, else <code>false</code>
+   */
+  @GuardedBy("logLock")
+  private boolean append(byte type, @NonNull byte[] payload) {
+    try {
+      OutputStream output = getOrOpenLogOutput();
+      byte[] record = encodeRecord(type, payload);
+      output.write(record);
+      logSize += record.length;
+      return true;
+    } catch (IOException e) {
+      logger.debug("Error while appending to metric log", e);
+      closeLogOutput();
+      return false;
+    }
+  }
+
+  @GuardedBy("logLock")
+  @NonNull
+  private OutputStream getOrOpenLogOutput() throws IOException {
+    if (logOutput != null) {
+      return logOutput;
+    }
+
+    File file = getLogFile();
+    if (file.length() > logSize) {
+      // Drop the corrupted or torn tail, else records appended after it would be unreachable.
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+        randomAccessFile.setLength(logSize);
+      }
+    }
+
+    logOutput = new FileOutputStream(file, true);
+    return logOutput;
+  }
+
+  @GuardedBy("logLock")
+  private void closeLogOutput() {
+    if (logOutput == null) {
+      return;
+    }
+
+    try {
+      logOutput.close();
+    } catch (IOException e) {
+      logger.debug("Error while closing metric log", e);
+    }
+    logOutput = null;
+  }
+
+  /**
+   * Compact the log if most of it is made of outdated records.
+   * <p>
+   * All live metrics are written and synced in a new file, which then atomically replaces the log.
+   * In case of error, the current log is kept as is.
+   */
+  @GuardedBy("logLock")
+  private void compactIfNeeded() {
+    long liveLogSize = liveSize + (long) index.size() * RECORD_HEADER_SIZE;
+    if (logSize < MIN_LOG_SIZE_FOR_COMPACTION || logSize < 2 * liveLogSize) {
+      return;
+    }
+
+    File file = getLogFile();
+    File compactionFile = getCompactionFile(file);
+    closeLogOutput();
+
+    try {
+      long compactedSize = 0;
+      try (FileOutputStream fos = new FileOutputStream(compactionFile);
+          BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+        for (IndexedMetric indexedMetric : index.values()) {
+          byte[] record = encodeRecord(RECORD_TYPE_UPDATE, indexedMetric.payload);
+          bos.write(record);
+          compactedSize += record.length;
+        }
+        bos.flush();
+        fos.getFD().sync();
+      }
+
+      if (!compactionFile.renameTo(file)) {
+        throw new IOException("Error while replacing metric log");
+      }
+      logSize = compactedSize;
+    } catch (IOException e) {
+      logger.debug("Error while compacting metric log", e);
+      compactionFile.delete();
+    }
+  }
+
+  @GuardedBy("logLock")
+  @NonNull
+  private File getLogFile() {
+    if (logFile == null) {
+      logFile = directory.getLogFile();
+    }
+    return logFile;
+  }
+
+  @NonNull
+  private static File getCompactionFile(@NonNull File logFile) {
+    return new File(logFile.getPath() + COMPACTION_FILE_SUFFIX);
+  }
+
+  @NonNull
+  private byte[] serialize(@NonNull Metric metric) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    jsonSerializer.write(metric, baos);
+    return baos.toByteArray();
+  }
+
+  @NonNull
+  private static byte[] encodeRecord(byte type, @NonNull byte[] payload) {
+    return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+        .putInt(payload.length)
+        .putInt(computeChecksum(type, payload))
+        .put(type)
+        .put(payload)
+        .array();
+  }
+
+  private static int computeChecksum(byte type, @NonNull byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(type);
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+
+  private static class IndexedMetric {
+
+    @NonNull
+    private final Metric metric;
+
+    /**
+     * Serialized version of the metric, as written in the log. This avoids serializing it again
+     * during compaction and rollback of moves.
+     */
+    @NonNull
+    private final byte[] payload;
+
+    private IndexedMetric(@NonNull Metric metric, @NonNull byte[] payload) {
+      this.metric = metric;
+      this.payload = payload;
+    }
+  }
+}
@@ -0,0 +1,381 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed capacity FIFO of byte arrays stored in a memory-mapped file.
+ * <p>
+ * The file starts with a header containing the capacity of the buffer and the positions of its
+ * head and tail, followed by the ring buffer itself. Positions are ever-increasing offsets, so the
+ * physical index of a position is the position modulo the capacity. Each record is written with its
+ * length and the CRC32 of its payload, and is never split around the end of the buffer: the
+ * remaining bytes are skipped instead.
+ * <p>
+ * When there is not enough room for a new record, the oldest records are overwritten.
+ * <p>
+ * Producers are serialized with a lock, but consumers never wait for them: a consumer reads
+ * records from the head, and then moves the head after them with a CAS. If a producer moved the
+ * head in the meantime (because it overwrote old records), the read records are discarded and the
+ * consumer retries.
+ * <p>
+ * Writes go to the memory of the mapped file. They survive a crash of the application, but not a
+ * power loss before the system writes them on the storage. In this case, the records with an
+ * invalid checksum are dropped when the buffer is opened again.
+ */
+class MappedRingBuffer {
+
+  private static final int MAGIC = 0x43524231; // "CRB1"
+
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int HEAD_OFFSET = 8;
+  private static final int TAIL_OFFSET = 16;
+
+  @VisibleForTesting
+  static final int HEADER_LENGTH = 24;
+
+  /**
+   * Length and checksum of a record
+   */
+  @VisibleForTesting
+  static final int RECORD_HEADER_LENGTH = 8;
+
+  /**
+   * Length written in place of a record when the rest of the buffer is skipped
+   */
+  private static final int PADDING = -1;
+
+  @NonNull
+  private final ByteBuffer buffer;
+
+  private final int capacity;
+
+  @NonNull
+  private final AtomicLong head;
+
+  private volatile long tail;
+
+  @NonNull
+  private final Object producerLock = new Object();
+
+  @NonNull
+  private final CRC32 producerCrc = new CRC32();
+
+  @NonNull
+  static MappedRingBuffer open(@NonNull File file, int capacity) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      int length = HEADER_LENGTH + capacity;
+      raf.setLength(length);
+
+      // The mapping stays valid after the file is closed
+      ByteBuffer buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, length);
+      return new MappedRingBuffer(buffer, capacity);
+    }
+  }
+
+  @VisibleForTesting
+  MappedRingBuffer(@NonNull ByteBuffer buffer, int capacity) {
+    if (capacity <= RECORD_HEADER_LENGTH || buffer.capacity() < HEADER_LENGTH + capacity) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+
+    this.buffer = buffer;
+    this.capacity = capacity;
+    this.head = new AtomicLong();
+    recover();
+  }
+
+  /**
+   * Number of bytes used by the records of this buffer, including their headers.
+   */
+  int usedBytes() {
+    // Read tail first: the head can only move forward in the meantime
+    long tail = this.tail;
+    return (int) Math.max(0, tail - head.get());
+  }
+
+  /**
+   * Append the given record, overwriting the oldest records if there is not enough room.
+   *
+   * @return <code>false</code> if the record is bigger than the whole buffer
+   */
+  boolean offer(@NonNull byte[] payload) {
+    return offerAll(Collections.singletonList(payload));
+  }
+
+  /**
+   * Append the given records, overwriting the oldest records if there is not enough room.
+   *
+   * @return <code>false</code> if one of the records is bigger than the whole buffer. Other records
+   * are still appended.
+   */
+  boolean offerAll(@NonNull Collection<byte[]> payloads) {
+    boolean isAllOffered = true;
+
+    synchronized (producerLock) {
+      for (byte[] payload : payloads) {
+        if (RECORD_HEADER_LENGTH + payload.length > capacity) {
+          isAllOffered = false;
+          continue;
+        }
+
+        // Records are published one by one, so a batch bigger than the buffer can overwrite its own
+        // first records without moving the head after the tail.
+        long position = write(tail, payload);
+        buffer.putLong(TAIL_OFFSET, position);
+        tail = position;
+      }
+    }
+
+    return isAllOffered;
+  }
+
+  /**
+   * Retrieve and remove up to <code>max</code> records from the head of this buffer.
+   * <p>
+   * This never waits for producers.
+   */
+  @NonNull
+  List<byte[]> poll(int max) {
+    if (max <= 0) {
+      return Collections.emptyList();
+    }
+
+    // Each consumer needs its own buffer position to read payloads
+    ByteBuffer reader = buffer.duplicate();
+    CRC32 crc = new CRC32();
+
+    while (true) {
+      long head = this.head.get();
+      long tail = this.tail;
+      long position = head;
+      List<byte[]> payloads = new ArrayList<>();
+
+      while (payloads.size() < max && position < tail) {
+        int index = physicalIndex(position);
+        int remaining = capacity - index;
+        int length = remaining < RECORD_HEADER_LENGTH ? PADDING : buffer.getInt(HEADER_LENGTH + index);
+
+        if (length == PADDING) {
+          position += remaining;
+          continue;
+        }
+
+        if (length < 0 || length > remaining - RECORD_HEADER_LENGTH
+            || position + RECORD_HEADER_LENGTH + length > tail) {
+          // This is either a concurrent overwrite that will make the CAS fail, or a corruption. In
+          // the latter case, the following records cannot be found anymore and are dropped.
+          position = tail;
+          break;
+        }
+
+        byte[] payload = new byte[length];
+        reader.position(HEADER_LENGTH + index + RECORD_HEADER_LENGTH);
+        reader.get(payload);
+        position += RECORD_HEADER_LENGTH + length;
+
+        if (checksum(crc, payload) == buffer.getInt(HEADER_LENGTH + index + 4)) {
+          payloads.add(payload);
+        }
+      }
+
+      if (position == head) {
+        return Collections.emptyList();
+      }
+
+      if (this.head.compareAndSet(head, position)) {
+        persistHead();
+        return payloads;
+      }
+    }
+  }
+
+  @GuardedBy("producerLock")
+  private long write(long position, @NonNull byte[] payload) {
+    int index = physicalIndex(position);
+    int remaining = capacity - index;
+    int recordLength = RECORD_HEADER_LENGTH + payload.length;
+
+    long start = position;
+    if (remaining < recordLength) {
+      // Records are not split, the end of the buffer is skipped
+      start += remaining;
+    }
+
+    long end = start + recordLength;
+    makeRoomUntil(position, start, end);
+
+    if (start != position && remaining >= RECORD_HEADER_LENGTH) {
+      buffer.putInt(HEADER_LENGTH + index, PADDING);
+    }
+
+    int startIndex = physicalIndex(start);
+    buffer.putInt(HEADER_LENGTH + startIndex, payload.length);
+    buffer.putInt(HEADER_LENGTH + startIndex + 4, checksum(producerCrc, payload));
+
+    ByteBuffer writer = buffer.duplicate();
+    writer.position(HEADER_LENGTH + startIndex + RECORD_HEADER_LENGTH);
+    writer.put(payload);
+
+    return end;
+  }
+
+  /**
+   * Move the head forward, so a record starting at <code>start</code> can be written until
+   * <code>end</code>.
+   *
+   * @param tail current tail, after which there is no record to skip
+   */
+  @GuardedBy("producerLock")
+  private void makeRoomUntil(long tail, long start, long end) {
+    boolean isHeadMoved = false;
+
+    long head;
+    while (end - (head = this.head.get()) > capacity) {
+      // Once all the records are skipped, the bytes until the new record only contain stale data:
+      // the head goes directly to the new record.
+      long next = head >= tail ? start : nextPosition(head);
+
+      // Consumers may move the head concurrently, then the CAS fails, and we check again.
+      if (this.head.compareAndSet(head, next)) {
+        isHeadMoved = true;
+      }
+    }
+
+    if (isHeadMoved) {
+      persistHead();
+    }
+  }
+
+  /**
+   * Position of the record following the one at the given position.
+   * <p>
+   * The given position should be a valid record that is not concurrently written.
+   */
+  private long nextPosition(long position) {
+    int index = physicalIndex(position);
+    int remaining = capacity - index;
+    if (remaining < RECORD_HEADER_LENGTH) {
+      return position + remaining;
+    }
+
+    int length = buffer.getInt(HEADER_LENGTH + index);
+    if (length == PADDING || length < 0 || length > remaining - RECORD_HEADER_LENGTH) {
+      return position + remaining;
+    }
+
+    return position + RECORD_HEADER_LENGTH + length;
+  }
+
+  /**
+   * Write the current head in the header of the file.
+   * <p>
+   * Both consumers and producers move the head. If they persist it concurrently, the one writing a
+   * stale value sees it and writes again, so the last written value is the current one.
+   */
+  private void persistHead() {
+    long head;
+    do {
+      head = this.head.get();
+      buffer.putLong(HEAD_OFFSET, head);
+    } while (head != this.head.get());
+  }
+
+  /**
+   * Read the header and check the stored records, so the buffer starts in a consistent state.
+   * <p>
+   * The buffer is reset if its header is invalid, and it is truncated before the first invalid
+   * record.
+   */
+  private void recover() {
+    long head = buffer.getLong(HEAD_OFFSET);
+    long tail = buffer.getLong(TAIL_OFFSET);
+
+    if (buffer.getInt(MAGIC_OFFSET) != MAGIC
+        || buffer.getInt(CAPACITY_OFFSET) != capacity
+        || head < 0
+        || tail < head
+        || tail - head > capacity) {
+      head = 0;
+      tail = 0;
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+      buffer.putInt(CAPACITY_OFFSET, capacity);
+    }
+
+    ByteBuffer reader = buffer.duplicate();
+    CRC32 crc = new CRC32();
+    long position = head;
+
+    while (position < tail) {
+      int index = physicalIndex(position);
+      int remaining = capacity - index;
+      int length = remaining < RECORD_HEADER_LENGTH ? PADDING : buffer.getInt(HEADER_LENGTH + index);
+
+      if (length == PADDING) {
+        position += remaining;
+        continue;
+      }
+
+      if (length < 0 || length > remaining - RECORD_HEADER_LENGTH
+          || position + RECORD_HEADER_LENGTH + length > tail) {
+        break;
+      }
+
+      byte[] payload = new byte[length];
+      reader.position(HEADER_LENGTH + index + RECORD_HEADER_LENGTH);
+      reader.get(payload);
+      if (checksum(crc, payload) != buffer.getInt(HEADER_LENGTH + index + 4)) {
+        break;
+      }
+
+      position += RECORD_HEADER_LENGTH + length;
+    }
+
+    // Drop the invalid records, if any
+    tail = Math.min(position, tail);
+
+    buffer.putLong(HEAD_OFFSET, head);
+    buffer.putLong(TAIL_OFFSET, tail);
+    this.head.set(head);
+    this.tail = tail;
+  }
+
+  private int physicalIndex(long position) {
+    return (int) (position % capacity);
+  }
+
+  private static int checksum(@NonNull CRC32 crc, @NonNull byte[] payload) {
+    crc.reset();
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import static com.criteo.publisher.csm.SendingQueueLogMessage.onErrorWhenPollingQueueFile;
+import static com.criteo.publisher.csm.SendingQueueLogMessage.onFallbackToQueueFile;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.util.JsonSerializer;
+import com.criteo.publisher.util.PreconditionsUtil;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sending queue backed by a {@link MappedRingBuffer} whose capacity is the
+ * {@link SendingQueueConfiguration#getMaxSizeOfSendingQueue() maximum size of the queue}. When the
+ * queue is full, the oldest elements are overwritten.
+ * <p>
+ * The ring buffer is opened on first use. Elements remaining in the queue file of previous
+ * versions are then moved into it. If the buffer cannot be opened, the fallback queue is used
+ * instead.
+ */
+class MappedSendingQueue<T> implements ConcurrentSendingQueue<T> {
+
+  @VisibleForTesting
+  static final String FILE_SUFFIX = ".ring";
+
+  @NonNull
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final ObjectQueueFactory<T> objectQueueFactory;
+
+  @NonNull
+  private final JsonSerializer jsonSerializer;
+
+  @NonNull
+  private final SendingQueueConfiguration<T> sendingQueueConfiguration;
+
+  @NonNull
+  private final ConcurrentSendingQueue<T> fallbackQueue;
+
+  @NonNull
+  private final Object openLock = new Object();
+
+  @Nullable
+  private volatile MappedRingBuffer ringBuffer;
+
+  private volatile boolean isOpened = false;
+
+  MappedSendingQueue(
+      @NonNull ObjectQueueFactory<T> objectQueueFactory,
+      @NonNull JsonSerializer jsonSerializer,
+      @NonNull SendingQueueConfiguration<T> sendingQueueConfiguration,
+      @NonNull ConcurrentSendingQueue<T> fallbackQueue
+  ) {
+    this.objectQueueFactory = objectQueueFactory;
+    this.jsonSerializer = jsonSerializer;
+    this.sendingQueueConfiguration = sendingQueueConfiguration;
+    this.fallbackQueue = fallbackQueue;
+  }
+
+  @Override
+  public boolean offer(@NonNull T element) {
+    MappedRingBuffer ringBuffer = getRingBuffer();
+    if (ringBuffer == null) {
+      return fallbackQueue.offer(element);
+    }
+
+    byte[] payload = serialize(element);
+    return payload != null && ringBuffer.offer(payload);
+  }
+
+  @Override
+  public boolean offerAll(@NonNull Collection<? extends T> elements) {
+    MappedRingBuffer ringBuffer = getRingBuffer();
+    if (ringBuffer == null) {
+      return fallbackQueue.offerAll(elements);
+    }
+
+    boolean isAllSerialized = true;
+    List<byte[]> payloads = new ArrayList<>(elements.size());
+    for (T element : elements) {
+      byte[] payload = serialize(element);
+      if (payload == null) {
+        isAllSerialized = false;
+      } else {
+        payloads.add(payload);
+      }
+    }
+
+    return ringBuffer.offerAll(payloads) && isAllSerialized;
+  }
+
+  @NonNull
+  @Override
+  public List<T> poll(int max) {
+    MappedRingBuffer ringBuffer = getRingBuffer();
+    if (ringBuffer == null) {
+      return fallbackQueue.poll(max);
+    }
+
+    List<byte[]> payloads = ringBuffer.poll(max);
+    List<T> elements = new ArrayList<>(payloads.size());
+    Exception exception = null;
+
+    for (byte[] payload : payloads) {
+      try (ByteArrayInputStream input = new ByteArrayInputStream(payload)) {
+        elements.add(jsonSerializer.read(sendingQueueConfiguration.getElementClass(), input));
+      } catch (IOException | RuntimeException e) {
+        if (exception == null) {
+          exception = e;
+        } else {
+          exception.addSuppressed(e);
+        }
+      }
+    }
+
+    if (exception != null) {
+      logger.log(onErrorWhenPollingQueueFile(exception));
+    }
+
+    return elements;
+  }
+
+  @Override
+  public int getTotalSize() {
+    MappedRingBuffer ringBuffer = getRingBuffer();
+    if (ringBuffer == null) {
+      return fallbackQueue.getTotalSize();
+    }
+
+    return ringBuffer.usedBytes();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    MappedRingBuffer ringBuffer = getRingBuffer();
+    if (ringBuffer == null) {
+      return fallbackQueue.isEmpty();
+    }
+
+    // Used bytes of the ring buffer only account for records, not for its header
+    return ringBuffer.usedBytes() == 0;
+  }
+
+  @Nullable
+  private byte[] serialize(@NonNull T element) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      jsonSerializer.write(element, output);
+      return output.toByteArray();
+    } catch (IOException e) {
+      PreconditionsUtil.throwOrLog(e);
+      return null;
+    }
+  }
+
+  @Nullable
+  private MappedRingBuffer getRingBuffer() {
+    if (!isOpened) {
+      synchronized (openLock) {
+        if (!isOpened) {
+          ringBuffer = openRingBuffer();
+          isOpened = true;
+        }
+      }
+    }
+    return ringBuffer;
+  }
+
+  @Nullable
+  private MappedRingBuffer openRingBuffer() {
+    File legacyFile = objectQueueFactory.getQueueFile();
+    File file = new File(legacyFile.getPath() + FILE_SUFFIX);
+
+    MappedRingBuffer ringBuffer;
+    try {
+      ringBuffer = MappedRingBuffer.open(file, sendingQueueConfiguration.getMaxSizeOfSendingQueue());
+    } catch (IOException | RuntimeException e) {
+      logger.log(onFallbackToQueueFile(e));
+      return null;
+    }
+
+    importLegacyQueue(legacyFile, ringBuffer);
+    return ringBuffer;
+  }
+
+  /**
+   * Move elements of the queue file used by previous versions into the ring buffer.
+   * <p>
+   * Elements are moved as is: they are serialized the same way in both queues.
+   */
+  private void importLegacyQueue(@NonNull File legacyFile, @NonNull MappedRingBuffer ringBuffer) {
+    if (!legacyFile.exists()) {
+      return;
+    }
+
+    try (BatchQueueFile legacyQueue = new BatchQueueFile(legacyFile)) {
+      ringBuffer.offerAll(legacyQueue.poll(Integer.MAX_VALUE));
+    } catch (IOException e) {
+      logger.log(onErrorWhenPollingQueueFile(e));
+    }
+
+    legacyFile.delete();
+  }
+}
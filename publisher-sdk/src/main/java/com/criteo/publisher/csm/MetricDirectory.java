@@ -19,6 +19,7 @@ package com.criteo.publisher.csm;
 import android.content.Context;
 import android.util.AtomicFile;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
@@ -32,6 +33,8 @@ class MetricDirectory {
 
   private static final String METRIC_FILE_EXTENSION = ".csm";
 
+  private static final String METRIC_LOG_FILENAME = "metrics.log";
+
   @NonNull
   private final Context context;
 
@@ -41,6 +44,13 @@ class MetricDirectory {
   @NonNull
   private final JsonSerializer jsonSerializer;
 
+  /**
+   * Directory resolved at first access. This avoids asking the context, which checks the existence
+   * of the directory, at each access.
+   */
+  @Nullable
+  private volatile File directoryFile;
+
   MetricDirectory(
       @NonNull Context context,
       @NonNull BuildConfigWrapper buildConfigWrapper,
@@ -79,10 +89,27 @@ class MetricDirectory {
     return new SyncMetricFile(impressionId, atomicFile, jsonSerializer);
   }
 
+  /**
+   * Return the file of the append-only log used by {@link LogMetricRepository}.
+   * <p>
+   * The log does not have the metric file extension, so it is never listed as a metric file.
+   *
+   * @return file of the metric log in this directory
+   */
+  @NonNull
+  File getLogFile() {
+    return new File(getDirectoryFile(), METRIC_LOG_FILENAME);
+  }
+
   @VisibleForTesting
   @NonNull
   File getDirectoryFile() {
-    return context.getDir(buildConfigWrapper.getCsmDirectoryName(), Context.MODE_PRIVATE);
+    File file = directoryFile;
+    if (file == null) {
+      file = context.getDir(buildConfigWrapper.getCsmDirectoryName(), Context.MODE_PRIVATE);
+      directoryFile = file;
+    }
+    return file;
   }
 
   /**
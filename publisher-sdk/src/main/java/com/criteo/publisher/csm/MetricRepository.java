@@ -17,9 +17,10 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import com.criteo.publisher.util.ApplicationStoppedListener;
 import java.util.Collection;
 
-public abstract class MetricRepository {
+public abstract class MetricRepository implements ApplicationStoppedListener {
 
   /**
    * Atomically update the metric matching the given id with the given updater.
@@ -75,6 +76,16 @@ public abstract class MetricRepository {
    */
   abstract boolean contains(@NonNull String impressionId);
 
+  /**
+   * Indicate that the application goes in background and may be killed.
+   * <p>
+   * Repositories keeping metrics only in memory should persist them. By default, nothing is done.
+   */
+  @Override
+  public void onApplicationStopped() {
+    // nothing to do by default
+  }
+
   interface MetricUpdater {
 
     void update(@NonNull Metric.Builder metricBuilder);
@@ -21,6 +21,8 @@ import androidx.annotation.NonNull;
 import com.criteo.publisher.DependencyProvider.Factory;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class MetricRepositoryFactory implements Factory<MetricRepository> {
 
@@ -33,21 +35,42 @@ public class MetricRepositoryFactory implements Factory<MetricRepository> {
   @NonNull
   private final BuildConfigWrapper buildConfigWrapper;
 
+  @NonNull
+  private final Executor executor;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
   public MetricRepositoryFactory(
       @NonNull Context context,
       @NonNull JsonSerializer jsonSerializer,
-      @NonNull BuildConfigWrapper buildConfigWrapper
+      @NonNull BuildConfigWrapper buildConfigWrapper,
+      @NonNull Executor executor,
+      @NonNull ScheduledExecutorService scheduledExecutorService
   ) {
     this.context = context;
     this.jsonSerializer = jsonSerializer;
     this.buildConfigWrapper = buildConfigWrapper;
+    this.executor = executor;
+    this.scheduledExecutorService = scheduledExecutorService;
   }
 
   @NonNull
   @Override
   public MetricRepository create() {
     MetricDirectory directory = new MetricDirectory(context, buildConfigWrapper, jsonSerializer);
-    MetricRepository fileMetricRepository = new FileMetricRepository(directory);
-    return new BoundedMetricRepository(fileMetricRepository, buildConfigWrapper);
+    MetricRepository legacyRepository = new FileMetricRepository(directory);
+    MetricRepository logMetricRepository = new LogMetricRepository(
+        directory,
+        jsonSerializer,
+        legacyRepository
+    );
+    MetricRepository writeBehindMetricRepository = new WriteBehindMetricRepository(
+        logMetricRepository,
+        buildConfigWrapper,
+        executor,
+        scheduledExecutorService
+    );
+    return new BoundedMetricRepository(writeBehindMetricRepository, buildConfigWrapper);
   }
 }
@@ -33,7 +33,31 @@ data class MetricRequest internal constructor(
       metrics: Collection<Metric>,
       sdkVersion: String,
       profileId: Int
-  ) : this(metrics.map { MetricRequestFeedback(it) }, sdkVersion, profileId)
+  ) : this(createFeedbacks(metrics), sdkVersion, profileId)
+
+  companion object {
+    /**
+     * Metrics coming from the same CDB call share the same feedback, only their slot differs. They
+     * are packed into a single feedback with many slots, instead of repeating the same feedback for
+     * each slot.
+     *
+     * Only metrics having a request group ID are packed, and feedbacks keep the order of their
+     * first metric.
+     */
+    private fun createFeedbacks(metrics: Collection<Metric>): List<MetricRequestFeedback> {
+      return metrics.map { MetricRequestFeedback(it) }
+          .groupBy {
+            if (it.requestGroupId == null) {
+              it
+            } else {
+              it.copy(slots = emptyList())
+            }
+          }
+          .map { (feedback, feedbacks) ->
+            feedback.copy(slots = feedbacks.flatMap { it.slots })
+          }
+    }
+  }
 
   @OpenForTesting
   @JsonClass(generateAdapter = true)
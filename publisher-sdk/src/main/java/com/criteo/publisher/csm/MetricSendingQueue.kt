@@ -20,9 +20,14 @@ internal interface MetricSendingQueue : ConcurrentSendingQueue<Metric> {
   class AdapterMetricSendingQueue(private val delegate: ConcurrentSendingQueue<Metric>) : MetricSendingQueue {
     override fun offer(element: Metric) = delegate.offer(element)
 
+    override fun offerAll(elements: Collection<Metric>) = delegate.offerAll(elements)
+
     override fun poll(max: Int): List<Metric> = delegate.poll(max)
 
     override val totalSize: Int
       get() = delegate.totalSize
+
+    override val isEmpty: Boolean
+      get() = delegate.isEmpty
   }
 }
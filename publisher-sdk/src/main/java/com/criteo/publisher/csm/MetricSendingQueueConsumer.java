@@ -17,10 +17,12 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import com.criteo.publisher.concurrent.DebouncedConsumerScheduler;
 import com.criteo.publisher.model.Config;
 import com.criteo.publisher.network.PubSdkApi;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class MetricSendingQueueConsumer {
 
@@ -37,20 +39,27 @@ public class MetricSendingQueueConsumer {
   private final Config config;
 
   @NonNull
-  private final Executor executor;
+  private final DebouncedConsumerScheduler scheduler;
 
   public MetricSendingQueueConsumer(
       @NonNull MetricSendingQueue queue,
       @NonNull PubSdkApi api,
       @NonNull BuildConfigWrapper buildConfigWrapper,
       @NonNull Config config,
-      @NonNull Executor executor
+      @NonNull Executor executor,
+      @NonNull ScheduledExecutorService scheduledExecutorService
   ) {
     this.queue = queue;
     this.api = api;
     this.buildConfigWrapper = buildConfigWrapper;
     this.config = config;
-    this.executor = executor;
+    this.scheduler = new DebouncedConsumerScheduler(
+        executor,
+        scheduledExecutorService,
+        buildConfigWrapper.getSendingQueueRetryDelayInMillis(),
+        "MetricSending",
+        this::consumeBatch
+    );
   }
 
   /**
@@ -62,11 +71,20 @@ public class MetricSendingQueueConsumer {
    * The batch is polled from the queue (instead of peeked). Data loss is tolerated if the process
    * is terminated while the batch is being sent to the CSM backed. This is to ensure that the same
    * metric will never be sent to CSM backend twice.
+   * <p>
+   * At most one batch is sent at a time: calls happening meanwhile are coalesced into a single
+   * sending once the current one is done. If metrics remain in the queue after a sending, another
+   * one is done after a delay.
    */
   public void sendMetricBatch() {
     if (config.isCsmEnabled()) {
-      executor.execute(new MetricSendingTask(queue, api, buildConfigWrapper));
+      scheduler.wakeUp();
     }
   }
 
+  private boolean consumeBatch() {
+    new MetricSendingTask(queue, api, buildConfigWrapper).run();
+    return config.isCsmEnabled() && !queue.isEmpty();
+  }
+
 }
@@ -63,8 +63,6 @@ internal class MetricSendingTask(
   }
 
   private fun rollback(metrics: Collection<Metric>) {
-    metrics.forEach {
-      queue.offer(it)
-    }
+    queue.offerAll(metrics)
   }
 }
@@ -71,7 +71,7 @@ public class ObjectQueueFactory<T> {
   private ObjectQueue<T> createTapeObjectQueue(@NonNull File file) {
     Throwable exception;
     try {
-      FileObjectQueue<T> queue = new FileObjectQueue<>(file, new AdapterConverter<>(
+      BatchFileObjectQueue<T> queue = new BatchFileObjectQueue<>(file, new AdapterConverter<>(
           jsonSerializer,
           sendingQueueConfiguration.getElementClass()
       ));
@@ -90,7 +90,7 @@ public class ObjectQueueFactory<T> {
 
     if (isDeleted) {
       try {
-        return new FileObjectQueue<>(file, new AdapterConverter<>(
+        return new BatchFileObjectQueue<>(file, new AdapterConverter<>(
             jsonSerializer,
             sendingQueueConfiguration.getElementClass()
         ));
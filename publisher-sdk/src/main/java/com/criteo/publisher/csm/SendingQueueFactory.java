@@ -18,20 +18,26 @@ package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
 import com.criteo.publisher.DependencyProvider.Factory;
+import com.criteo.publisher.util.JsonSerializer;
 
 public class SendingQueueFactory<T> implements Factory<ConcurrentSendingQueue<T>> {
 
   @NonNull
   private final ObjectQueueFactory<T> objectQueueFactory;
 
+  @NonNull
+  private final JsonSerializer jsonSerializer;
+
   @NonNull
   private final SendingQueueConfiguration<T> sendingQueueConfiguration;
 
   public SendingQueueFactory(
       @NonNull ObjectQueueFactory<T> objectQueueFactory,
+      @NonNull JsonSerializer jsonSerializer,
       @NonNull SendingQueueConfiguration<T> sendingQueueConfiguration
   ) {
     this.objectQueueFactory = objectQueueFactory;
+    this.jsonSerializer = jsonSerializer;
     this.sendingQueueConfiguration = sendingQueueConfiguration;
   }
 
@@ -39,6 +45,12 @@ public class SendingQueueFactory<T> implements Factory<ConcurrentSendingQueue<T>
   @Override
   public ConcurrentSendingQueue<T> create() {
     ConcurrentSendingQueue<T> tapeQueue = new TapeSendingQueue<>(objectQueueFactory, sendingQueueConfiguration);
-    return new BoundedSendingQueue<>(tapeQueue, sendingQueueConfiguration);
+    ConcurrentSendingQueue<T> fallbackQueue = new BoundedSendingQueue<>(tapeQueue, sendingQueueConfiguration);
+    return new MappedSendingQueue<>(
+        objectQueueFactory,
+        jsonSerializer,
+        sendingQueueConfiguration,
+        fallbackQueue
+    );
   }
 }
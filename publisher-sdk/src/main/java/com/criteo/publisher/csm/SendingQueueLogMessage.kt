@@ -36,4 +36,12 @@ internal object SendingQueueLogMessage {
       exception,
       "onErrorWhenPollingQueueFile"
   )
+
+  @JvmStatic
+  fun onFallbackToQueueFile(exception: Throwable) = LogMessage(
+      Log.WARN,
+      "Error while opening memory-mapped queue. Falling back on queue file",
+      exception,
+      "onFallbackToQueueFile"
+  )
 }
@@ -19,6 +19,7 @@ package com.criteo.publisher.csm;
 import android.util.AtomicFile;
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.csm.MetricRepository.MetricUpdater;
 import com.criteo.publisher.util.JsonSerializer;
@@ -35,7 +36,7 @@ import java.lang.ref.SoftReference;
  * by multiple threads at the same time. The {@link SyncMetricFile} handle this synchronization
  * level per file.
  * <p>
- * So only, at most, one {@link SyncMetricFile} should exist for an underlying file.
+ * So only, at most, one open {@link SyncMetricFile} should exist for an underlying file.
  */
 class SyncMetricFile {
 
@@ -60,6 +61,9 @@ class SyncMetricFile {
   @NonNull
   private volatile SoftReference<Metric> metricInMemory;
 
+  @GuardedBy("fileLock")
+  private boolean isClosed = false;
+
   SyncMetricFile(
       @NonNull String impressionId,
       @NonNull AtomicFile file,
@@ -71,8 +75,19 @@ class SyncMetricFile {
     this.metricInMemory = new SoftReference<>(null);
   }
 
+  /**
+   * Read the metric of this file, or a new empty one if the file does not exist.
+   *
+   * @return the read metric, or <code>null</code> if this instance is {@linkplain #close() closed}
+   * @throws IOException in case of error during read
+   */
+  @Nullable
   Metric read() throws IOException {
     synchronized (fileLock) {
+      if (isClosed) {
+        return null;
+      }
+
       Metric inMemory = metricInMemory.get();
       if (inMemory != null) {
         return inMemory;
@@ -95,15 +110,27 @@ class SyncMetricFile {
     }
   }
 
-  void update(MetricUpdater updater) throws IOException {
+  /**
+   * Update the metric of this file with the given updater.
+   *
+   * @param updater update to apply
+   * @return <code>true</code> if the update is done, <code>false</code> if this instance is
+   * {@linkplain #close() closed}
+   * @throws IOException in case of error during read or write
+   */
+  boolean update(MetricUpdater updater) throws IOException {
     synchronized (fileLock) {
       Metric metric = read();
+      if (metric == null) {
+        return false;
+      }
 
       Metric.Builder builder = metric.toBuilder();
       updater.update(builder);
       Metric newMetric = builder.build();
 
       write(newMetric);
+      return true;
     }
   }
 
@@ -119,24 +146,54 @@ class SyncMetricFile {
    * potential risk of duplication of this metric file. In the context of metrics, it is preferable
    * to lose some data rather than producing duplicate ones.
    *
+   * <p>
+   * Once the move is a success, the file is deleted and this instance is {@linkplain #close()
+   * closed}.
+   *
    * @param mover definition of the move to do
+   * @return <code>true</code> if the move was attempted, <code>false</code> if this instance is
+   * {@linkplain #close() closed}
    * @throws IOException in case of error during read or rollback
    */
-  void moveWith(MetricMover mover) throws IOException {
+  boolean moveWith(MetricMover mover) throws IOException {
     synchronized (fileLock) {
       Metric metric = read();
+      if (metric == null) {
+        return false;
+      }
 
       delete();
       boolean success = false;
       try {
         if (mover.offerToDestination(metric)) {
           success = true;
+          isClosed = true;
         }
       } finally {
         if (!success) {
           write(metric);
         }
       }
+      return true;
+    }
+  }
+
+  /**
+   * Release this instance: any later operation is refused, and a new instance should be created to
+   * access the underlying file. The file itself is kept as is.
+   * <p>
+   * This waits for any running operation on this instance to finish.
+   */
+  void close() {
+    synchronized (fileLock) {
+      isClosed = true;
+      metricInMemory = new SoftReference<>(null);
+    }
+  }
+
+  boolean isClosed() {
+    synchronized (fileLock) {
+      return isClosed;
     }
   }
 
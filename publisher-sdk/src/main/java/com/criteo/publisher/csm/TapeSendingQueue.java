@@ -21,17 +21,14 @@ import static com.criteo.publisher.csm.SendingQueueLogMessage.onErrorWhenPolling
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.util.PreconditionsUtil;
 import com.squareup.tape.FileException;
-import com.squareup.tape.FileObjectQueue;
 import com.squareup.tape.ObjectQueue;
-import com.squareup.tape.QueueFile;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
@@ -46,12 +43,6 @@ class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
   @GuardedBy("queueLock")
   private ObjectQueue<T> queue;
 
-  @Nullable
-  private Method usedBytesMethod;
-
-  @Nullable
-  private QueueFile queueFile;
-
   @NonNull
   private final ObjectQueueFactory<T> queueFactory;
 
@@ -64,8 +55,6 @@ class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
   ) {
     this.queueFactory = queueFactory;
     this.sendingQueueConfiguration = sendingQueueConfiguration;
-    this.usedBytesMethod = null;
-    this.queueFile = null;
   }
 
   @Override
@@ -83,12 +72,38 @@ class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
     }
   }
 
+  @Override
+  public boolean offerAll(@NonNull Collection<? extends T> elements) {
+    synchronized (queueLock) {
+      ObjectQueue<T> queue = createQueueIfNecessary();
+
+      try {
+        if (queue instanceof BatchFileObjectQueue) {
+          // All elements are committed at once
+          ((BatchFileObjectQueue<T>) queue).addAll(elements);
+        } else {
+          for (T element : elements) {
+            queue.add(element);
+          }
+        }
+        return true;
+      } catch (FileException e) {
+        PreconditionsUtil.throwOrLog(e);
+        return false;
+      }
+    }
+  }
+
   @NonNull
   @Override
   public List<T> poll(int max) {
     synchronized (queueLock) {
       ObjectQueue<T> queue = createQueueIfNecessary();
 
+      if (queue instanceof BatchFileObjectQueue) {
+        return pollBatch((BatchFileObjectQueue<T>) queue, max);
+      }
+
       List<T> elements = new ArrayList<>();
       Exception exception = null;
 
@@ -135,6 +150,22 @@ class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
     }
   }
 
+  @NonNull
+  @GuardedBy("queueLock")
+  private List<T> pollBatch(@NonNull BatchFileObjectQueue<T> queue, int max) {
+    if (max <= 0) {
+      return Collections.emptyList();
+    }
+
+    try {
+      // All polled elements are removed at once
+      return queue.poll(max);
+    } catch (FileException e) {
+      logger.log(onErrorWhenPollingQueueFile(e));
+      return Collections.emptyList();
+    }
+  }
+
   @Override
   public int getTotalSize() {
     synchronized (queueLock) {
@@ -145,47 +176,25 @@ class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
       // the capacity of the queue.
       // Moreover the file is shrinked after some removal. This is a detail of the implementation.
       // And even if we make some room in the queue, we will not see it.
-      // There is a usedBytes method in the internal queueFile of the file object queue. This method
-      // is used to get the real size of the queue.
+      // The batch queue keeps track of the bytes used by its elements.
 
       ObjectQueue<T> queue = createQueueIfNecessary();
 
-      if (queue instanceof FileObjectQueue) {
-        try {
-          Method usedBytesMethod = getUsedBytesMethod();
-          QueueFile queueFile = getQueueFile((FileObjectQueue) queue);
-          return (Integer) usedBytesMethod.invoke(queueFile);
-        } catch (Exception e) {
-          PreconditionsUtil.throwOrLog(e);
-        }
+      if (queue instanceof BatchFileObjectQueue) {
+        return ((BatchFileObjectQueue<T>) queue).getUsedBytes();
       }
 
-      // In case of error or in-memory queue, we fallback on estimation
+      // For other queues, we fallback on estimation
       return queue.size() * sendingQueueConfiguration.getEstimatedSize();
     }
   }
 
-  @NonNull
-  private Method getUsedBytesMethod() throws ReflectiveOperationException {
-    if (usedBytesMethod == null) {
-      usedBytesMethod = QueueFile.class.getDeclaredMethod("usedBytes");
-      usedBytesMethod.setAccessible(true);
-    }
-
-    return usedBytesMethod;
-  }
-
-  @NonNull
-  @VisibleForTesting
-  QueueFile getQueueFile(@NonNull FileObjectQueue<?> fileObjectQueue)
-      throws ReflectiveOperationException, ClassCastException {
-    if (queueFile == null) {
-      Field queueFileField = FileObjectQueue.class.getDeclaredField("queueFile");
-      queueFileField.setAccessible(true);
-      queueFile = (QueueFile) queueFileField.get(fileObjectQueue);
+  @Override
+  public boolean isEmpty() {
+    synchronized (queueLock) {
+      // The total size of an empty queue file is not zero because of its header
+      return createQueueIfNecessary().size() == 0;
     }
-
-    return queueFile;
   }
 
   private ObjectQueue<T> createQueueIfNecessary() {
@@ -0,0 +1,247 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.SafeRunnable;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository keeping metric updates in memory before writing them in its delegate.
+ * <p>
+ * During a bid lifecycle, a metric is updated several times, but it only matters once it is ready
+ * to send. Updates are then only recorded, and successive updates of the same metric are merged
+ * into a single write in the delegate. Pending updates are written:
+ * <ul>
+ *   <li>when the metric is moved: if the metric was never written, it is directly moved from
+ *   memory without any write in the delegate,</li>
+ *   <li>at most {@link BuildConfigWrapper#getCsmMetricWriteDelayInMillis()} after the first
+ *   pending update,</li>
+ *   <li>when the application goes in background.</li>
+ * </ul>
+ * <p>
+ * Pending updates are lost if the application is killed before they are written. The size of the
+ * repository includes an estimation of the pending metrics that are not yet in the delegate, so a
+ * bound on the size also applies to them.
+ */
+class WriteBehindMetricRepository extends MetricRepository {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final MetricRepository delegate;
+
+  @NonNull
+  private final BuildConfigWrapper buildConfigWrapper;
+
+  @NonNull
+  private final Executor executor;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @GuardedBy("lock")
+  @NonNull
+  private final Map<String, List<MetricUpdater>> pendingUpdates = new LinkedHashMap<>();
+
+  @NonNull
+  private final Object lock = new Object();
+
+  /**
+   * Impression IDs of the pending metrics that are not yet in the delegate.
+   */
+  @GuardedBy("lock")
+  @NonNull
+  private final Set<String> pendingNewMetrics = new HashSet<>();
+
+  @GuardedBy("lock")
+  private boolean isWriteScheduled = false;
+
+  WriteBehindMetricRepository(
+      @NonNull MetricRepository delegate,
+      @NonNull BuildConfigWrapper buildConfigWrapper,
+      @NonNull Executor executor,
+      @NonNull ScheduledExecutorService scheduledExecutorService
+  ) {
+    this.delegate = delegate;
+    this.buildConfigWrapper = buildConfigWrapper;
+    this.executor = executor;
+    this.scheduledExecutorService = scheduledExecutorService;
+  }
+
+  /**
+   * Record the given update without applying it.
+   * <p>
+   * The updater is only called when the pending updates are written or moved, so it should not
+   * depend on any mutable state.
+   */
+  @Override
+  void addOrUpdateById(@NonNull String impressionId, @NonNull MetricUpdater updater) {
+    synchronized (lock) {
+      List<MetricUpdater> updaters = pendingUpdates.get(impressionId);
+      if (updaters == null) {
+        updaters = new ArrayList<>();
+        pendingUpdates.put(impressionId, updaters);
+        if (!delegate.contains(impressionId)) {
+          pendingNewMetrics.add(impressionId);
+        }
+      }
+      updaters.add(updater);
+
+      scheduleWrite();
+    }
+  }
+
+  @Override
+  void moveById(@NonNull String impressionId, @NonNull MetricMover mover) {
+    synchronized (lock) {
+      List<MetricUpdater> updaters = pendingUpdates.remove(impressionId);
+      pendingNewMetrics.remove(impressionId);
+      if (updaters == null) {
+        delegate.moveById(impressionId, mover);
+      } else if (delegate.contains(impressionId)) {
+        writeInDelegate(impressionId, updaters);
+        delegate.moveById(impressionId, mover);
+      } else {
+        moveFromMemory(impressionId, updaters, mover);
+      }
+    }
+  }
+
+  @NonNull
+  @Override
+  Collection<Metric> getAllStoredMetrics() {
+    writePendingUpdates();
+    return delegate.getAllStoredMetrics();
+  }
+
+  @Override
+  int getTotalSize() {
+    int pendingSize;
+    synchronized (lock) {
+      pendingSize = pendingNewMetrics.size() * buildConfigWrapper.getEstimatedSizeOfCsmMetric();
+    }
+    return delegate.getTotalSize() + pendingSize;
+  }
+
+  @Override
+  boolean contains(@NonNull String impressionId) {
+    synchronized (lock) {
+      if (pendingUpdates.containsKey(impressionId)) {
+        return true;
+      }
+    }
+    return delegate.contains(impressionId);
+  }
+
+  @Override
+  public void onApplicationStopped() {
+    executor.execute(new WritePendingUpdatesTask());
+  }
+
+  @VisibleForTesting
+  void writePendingUpdates() {
+    synchronized (lock) {
+      isWriteScheduled = false;
+
+      for (Map.Entry<String, List<MetricUpdater>> entry : pendingUpdates.entrySet()) {
+        writeInDelegate(entry.getKey(), entry.getValue());
+      }
+      pendingUpdates.clear();
+      pendingNewMetrics.clear();
+    }
+  }
+
+  @GuardedBy("lock")
+  private void moveFromMemory(
+      @NonNull String impressionId,
+      @NonNull List<MetricUpdater> updaters,
+      @NonNull MetricMover mover
+  ) {
+    Metric.Builder builder = Metric.builder(impressionId);
+    applyAll(updaters, builder);
+    Metric metric = builder.build();
+
+    boolean success = false;
+    try {
+      if (mover.offerToDestination(metric)) {
+        success = true;
+      }
+    } finally {
+      if (!success) {
+        pendingUpdates.put(impressionId, updaters);
+        pendingNewMetrics.add(impressionId);
+        scheduleWrite();
+      }
+    }
+  }
+
+  @GuardedBy("lock")
+  private void writeInDelegate(@NonNull String impressionId, @NonNull List<MetricUpdater> updaters) {
+    try {
+      delegate.addOrUpdateById(impressionId, builder -> applyAll(updaters, builder));
+    } catch (RuntimeException e) {
+      // Do not prevent other metrics to be written because of an invalid update
+      logger.debug("Error while writing metric", e);
+    }
+  }
+
+  @GuardedBy("lock")
+  private void scheduleWrite() {
+    if (isWriteScheduled) {
+      return;
+    }
+
+    isWriteScheduled = true;
+    scheduledExecutorService.schedule(
+        () -> executor.execute(new WritePendingUpdatesTask()),
+        buildConfigWrapper.getCsmMetricWriteDelayInMillis(),
+        TimeUnit.MILLISECONDS
+    );
+  }
+
+  private static void applyAll(
+      @NonNull List<MetricUpdater> updaters,
+      @NonNull Metric.Builder builder
+  ) {
+    for (MetricUpdater updater : updaters) {
+      updater.update(builder);
+    }
+  }
+
+  private class WritePendingUpdatesTask extends SafeRunnable {
+
+    @Override
+    public void runSafely() {
+      writePendingUpdates();
+    }
+  }
+}
@@ -43,10 +43,17 @@ package com.criteo.publisher.dependency
  */
 class LazyDependency<T>(private val name: String? = null, supplier: () -> T) {
 
-  private val value: T by lazy(supplier)
+  private val lazyValue = lazy(supplier)
+
+  private val value: T by lazyValue
 
   fun get(): T = value
 
+  /**
+   * Indicate if the dependency was already provided, so [get] returns immediately.
+   */
+  fun isInitialized(): Boolean = lazyValue.isInitialized()
+
   override fun toString(): String {
     return name?.let { "LazyDependency($it)" } ?: super.toString()
   }
@@ -0,0 +1,34 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.diagnostics;
+
+import androidx.annotation.Keep;
+import androidx.annotation.NonNull;
+
+/**
+ * Listener receiving periodic reports about how the SDK executes its background tasks.
+ * <p>
+ * Setting a listener enables the instrumentation of the SDK executors. Without listener, nothing is
+ * measured. Reports are cumulative since the listener was set.
+ * <p>
+ * This is called on a background thread of the SDK. Implementations should return quickly.
+ */
+@Keep
+public interface CriteoDiagnosticsListener {
+
+  void onExecutorDiagnostics(@NonNull ExecutorDiagnostics diagnostics);
+
+}
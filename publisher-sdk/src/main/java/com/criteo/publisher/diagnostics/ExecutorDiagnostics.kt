@@ -0,0 +1,99 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.diagnostics
+
+import androidx.annotation.Keep
+
+/**
+ * Snapshot of the execution of the SDK background tasks.
+ *
+ * @param backupExecutionCount number of tasks that could not get a thread in the main pool of the SDK and were queued
+ * in its backup pool
+ * @param tasks statistics by type of task
+ */
+@Keep
+data class ExecutorDiagnostics(
+    val backupExecutionCount: Long,
+    val tasks: List<TaskDiagnostics>
+)
+
+/**
+ * Statistics about a type of task.
+ *
+ * @param taskType name of the class of the task, or the stable type given by generic tasks
+ * @param executionCount number of executions, failed ones included
+ * @param failureCount number of executions that ended with an exception
+ * @param queueWait time between the submission of the tasks and the start of their execution
+ * @param runTime execution time of the tasks
+ */
+@Keep
+data class TaskDiagnostics(
+    val taskType: String,
+    val executionCount: Long,
+    val failureCount: Long,
+    val queueWait: DurationHistogram,
+    val runTime: DurationHistogram
+)
+
+/**
+ * Distribution of durations in buckets of increasing power of two microseconds.
+ *
+ * Bucket `0` counts durations below 1µs, and bucket `i` counts durations between `2^(i-1)` µs included and `2^i` µs
+ * excluded. The last bucket also counts all longer durations.
+ */
+@Keep
+class DurationHistogram(private val bucketCounts: LongArray) {
+
+  val bucketSize: Int get() = bucketCounts.size
+
+  val totalCount: Long get() = bucketCounts.sum()
+
+  fun getBucketCount(bucket: Int): Long = bucketCounts[bucket]
+
+  /**
+   * Exclusive upper bound of the given bucket, or [Long.MAX_VALUE] for the last bucket.
+   */
+  fun getBucketUpperBoundInMicros(bucket: Int): Long {
+    return if (bucket == bucketCounts.size - 1) Long.MAX_VALUE else 1L shl bucket
+  }
+
+  /**
+   * Upper bound of the bucket containing the given percentile (between 0 and 100) of the durations, or `0` if there is
+   * no duration.
+   */
+  fun getPercentileUpperBoundInMicros(percentile: Double): Long {
+    val total = totalCount
+    if (total == 0L) {
+      return 0
+    }
+
+    val threshold = Math.ceil(total * percentile / 100).toLong().coerceAtLeast(1)
+    var cumulativeCount = 0L
+    for (bucket in bucketCounts.indices) {
+      cumulativeCount += bucketCounts[bucket]
+      if (cumulativeCount >= threshold) {
+        return getBucketUpperBoundInMicros(bucket)
+      }
+    }
+    return Long.MAX_VALUE
+  }
+
+  override fun equals(other: Any?) = other is DurationHistogram && bucketCounts.contentEquals(other.bucketCounts)
+
+  override fun hashCode() = bucketCounts.contentHashCode()
+
+  override fun toString() = "DurationHistogram(bucketCounts=${bucketCounts.contentToString()})"
+}
@@ -21,19 +21,27 @@ import com.criteo.publisher.logging.LogMessage
 
 internal object IntegrationLogMessage {
 
+  const val DECLARED_INTEGRATION_READ_LEVEL = Log.INFO
+
+  const val NO_DECLARED_INTEGRATION_LEVEL = Log.INFO
+
+  const val MEDIATION_ADAPTER_DETECTED_LEVEL = Log.INFO
+
   @JvmStatic
   fun onIntegrationDeclared(integration: Integration) = LogMessage(message =
       "The integration `$integration` is automatically declared"
   )
 
   @JvmStatic
-  fun onDeclaredIntegrationRead(integration: Integration) = LogMessage(message =
-      "The declared integration `$integration` is used"
+  fun onDeclaredIntegrationRead(integration: Integration) = LogMessage(
+      level = DECLARED_INTEGRATION_READ_LEVEL,
+      message = "The declared integration `$integration` is used"
   )
 
   @JvmStatic
-  fun onNoDeclaredIntegration() = LogMessage(message =
-      "No integration were previously declared, fallbacking on default integration"
+  fun onNoDeclaredIntegration() = LogMessage(
+      level = NO_DECLARED_INTEGRATION_LEVEL,
+      message = "No integration were previously declared, fallbacking on default integration"
   )
 
   @JvmStatic
@@ -44,7 +52,8 @@ internal object IntegrationLogMessage {
   )
 
   @JvmStatic
-  fun onMediationAdapterDetected(name: String) = LogMessage(message =
-      "Mediation adapter `$name` is detected, using it and ignoring the declared one"
+  fun onMediationAdapterDetected(name: String) = LogMessage(
+      level = MEDIATION_ADAPTER_DETECTED_LEVEL,
+      message = "Mediation adapter `$name` is detected, using it and ignoring the declared one"
   )
 }
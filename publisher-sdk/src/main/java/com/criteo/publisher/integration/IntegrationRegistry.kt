@@ -18,17 +18,21 @@ package com.criteo.publisher.integration
 
 import android.content.SharedPreferences
 import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.integration.IntegrationLogMessage.DECLARED_INTEGRATION_READ_LEVEL
+import com.criteo.publisher.integration.IntegrationLogMessage.MEDIATION_ADAPTER_DETECTED_LEVEL
+import com.criteo.publisher.integration.IntegrationLogMessage.NO_DECLARED_INTEGRATION_LEVEL
 import com.criteo.publisher.integration.IntegrationLogMessage.onDeclaredIntegrationRead
 import com.criteo.publisher.integration.IntegrationLogMessage.onIntegrationDeclared
 import com.criteo.publisher.integration.IntegrationLogMessage.onMediationAdapterDetected
 import com.criteo.publisher.integration.IntegrationLogMessage.onNoDeclaredIntegration
 import com.criteo.publisher.integration.IntegrationLogMessage.onUnknownIntegrationName
 import com.criteo.publisher.logging.LoggerFactory
+import com.criteo.publisher.logging.log
 import com.criteo.publisher.util.SafeSharedPreferences
 
 @OpenForTesting
 class IntegrationRegistry(
-    private val sharedPreferences: SharedPreferences,
+    sharedPreferences: SharedPreferences,
     private val integrationDetector: IntegrationDetector
 ) {
 
@@ -45,9 +49,7 @@ class IntegrationRegistry(
   fun declare(integration: Integration) {
     logger.log(onIntegrationDeclared(integration))
 
-    sharedPreferences.edit()
-        .putString(IntegrationStorageKey, integration.name)
-        .apply()
+    safeSharedPreferences.putString(IntegrationStorageKey, integration.name)
   }
 
   @Suppress("SwallowedException") // Exception is not really swallowed as the issue get logged
@@ -62,12 +64,12 @@ class IntegrationRegistry(
     )
 
     return if (integrationName == null) {
-      logger.log(onNoDeclaredIntegration())
+      logger.log(NO_DECLARED_INTEGRATION_LEVEL) { onNoDeclaredIntegration() }
       Integration.FALLBACK
     } else {
       try {
         val integration = Integration.valueOf(integrationName)
-        logger.log(onDeclaredIntegrationRead(integration))
+        logger.log(DECLARED_INTEGRATION_READ_LEVEL) { onDeclaredIntegrationRead(integration) }
         integration
       } catch (e: IllegalArgumentException) {
         logger.log(onUnknownIntegrationName(integrationName))
@@ -80,7 +82,7 @@ class IntegrationRegistry(
     val adMobMediationPresent = integrationDetector.isAdMobMediationPresent()
 
     return if (adMobMediationPresent) {
-      logger.log(onMediationAdapterDetected("AdMob"))
+      logger.log(MEDIATION_ADAPTER_DETECTED_LEVEL) { onMediationAdapterDetected("AdMob") }
       Integration.ADMOB_MEDIATION
     } else {
       null
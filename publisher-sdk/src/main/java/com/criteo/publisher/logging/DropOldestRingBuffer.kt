@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Bounded lock-free queue with many producers and a single consumer.
+ *
+ * Offering never blocks nor fails: when the buffer is full, the oldest elements are overwritten.
+ * Overwritten elements are counted and the consumer can get this count with [pollDroppedCount].
+ *
+ * Each offered element gets a sequence number. An element is stored in the slot given by its sequence modulo the
+ * capacity, along with its sequence, so the consumer can tell if the slot holds the element it expects, a newer one
+ * that overwrote it, or an older one because the producer of the expected element did not publish it yet.
+ */
+internal class DropOldestRingBuffer<T : Any>(private val capacity: Int) {
+
+  private class Entry<T>(val sequence: Long, val element: T)
+
+  private val slots = AtomicReferenceArray<Entry<T>?>(capacity)
+
+  /**
+   * Sequence of the next offered element
+   */
+  private val tail = AtomicLong()
+
+  /**
+   * Sequence of the next polled element. This is only accessed by the consumer.
+   */
+  @Volatile
+  private var head = 0L
+
+  /**
+   * Number of dropped elements since last call to [pollDroppedCount]. This is only accessed by the consumer.
+   */
+  @Volatile
+  private var droppedCount = 0L
+
+  init {
+    require(capacity > 0) { "Capacity should be positive: $capacity" }
+  }
+
+  /**
+   * Add the given element at the end of this buffer, overwriting the oldest element if the buffer is full.
+   *
+   * This can be called concurrently by many producers.
+   */
+  fun offer(element: T) {
+    val sequence = tail.getAndIncrement()
+    val index = indexOf(sequence)
+    val entry = Entry(sequence, element)
+
+    while (true) {
+      val current = slots.get(index)
+      if (current != null && current.sequence > sequence) {
+        // A newer element already took the slot: this one is dropped and counted by the consumer
+        return
+      }
+
+      if (slots.compareAndSet(index, current, entry)) {
+        return
+      }
+    }
+  }
+
+  /**
+   * Remove and return the oldest element of this buffer, or `null` if there is no element yet to consume.
+   *
+   * This should only be called by one consumer at a time.
+   */
+  fun poll(): T? {
+    while (true) {
+      val sequence = head
+      val lastSequence = tail.get()
+      if (sequence >= lastSequence) {
+        return null
+      }
+
+      if (lastSequence - sequence > capacity) {
+        // Elements were overwritten before being consumed: skip them
+        val oldestSequence = lastSequence - capacity
+        droppedCount += oldestSequence - sequence
+        head = oldestSequence
+        continue
+      }
+
+      val index = indexOf(sequence)
+      val entry = slots.get(index)
+      if (entry == null || entry.sequence < sequence) {
+        // The producer of the expected element did not publish it yet. It is consumed on next poll.
+        return null
+      }
+
+      if (entry.sequence > sequence) {
+        // The expected element was overwritten by a newer one
+        droppedCount++
+        head = sequence + 1
+        continue
+      }
+
+      if (slots.compareAndSet(index, entry, null)) {
+        head = sequence + 1
+        return entry.element
+      }
+      // A producer just overwrote the expected element: retry
+    }
+  }
+
+  /**
+   * Return the number of elements that were dropped since last call, and reset it.
+   *
+   * Drops are only noticed while [polling][poll]. This should only be called by the consumer.
+   */
+  fun pollDroppedCount(): Long {
+    val count = droppedCount
+    droppedCount = 0
+    return count
+  }
+
+  private fun indexOf(sequence: Long) = (sequence % capacity).toInt()
+}
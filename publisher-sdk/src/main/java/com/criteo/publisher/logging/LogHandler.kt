@@ -18,6 +18,14 @@ package com.criteo.publisher.logging
 
 internal interface LogHandler {
 
+  /**
+   * Indicate if messages of the given level are handled. Messages of other levels can be skipped
+   * without being built.
+   *
+   * @param level Android log level, such as [android.util.Log.DEBUG]
+   */
+  fun isLoggable(level: Int): Boolean = true
+
   @Throws(Exception::class)
   fun log(tag: String, logMessage: LogMessage)
 }
@@ -89,18 +89,65 @@ public class Logger {
   }
 
   public void debug(Throwable thrown) {
-    log(new LogMessage(Log.DEBUG, null, thrown, null));
+    if (isLoggable(Log.DEBUG)) {
+      log(new LogMessage(Log.DEBUG, null, thrown, null));
+    }
   }
 
   public void debug(String message, Throwable thrown) {
-    log(new LogMessage(Log.DEBUG, message, thrown, null));
+    if (isLoggable(Log.DEBUG)) {
+      log(new LogMessage(Log.DEBUG, message, thrown, null));
+    }
   }
 
+  /**
+   * Log a debug message formatted with the given arguments.
+   * <p>
+   * The message is only formatted if a handler is interested in debug messages.
+   */
   public void debug(String message, Object... args) {
-    log(new LogMessage(Log.DEBUG, String.format(message, args), null, null));
+    if (isLoggable(Log.DEBUG)) {
+      log(new LogMessage(Log.DEBUG, String.format(message, args), null, null));
+    }
+  }
+
+  /**
+   * Indicate if a message of the given level would be handled by at least one handler.
+   * <p>
+   * This lets callers skip building messages that would be ignored anyway:
+   * <pre><code>
+   *   if (logger.isLoggable(Log.INFO)) {
+   *     logger.log(onSomethingExpensive(payload.toString()));
+   *   }
+   * </code></pre>
+   * This does not allocate anything once handlers are created.
+   *
+   * @param level Android log level, such as {@link Log#DEBUG}
+   */
+  public boolean isLoggable(int level) {
+    for (LazyDependency<LogHandler> handler : handlers) {
+      if (!handler.isInitialized()) {
+        // The handler is created when logging, with the protection against recursive logs
+        return true;
+      }
+
+      try {
+        if (handler.get().isLoggable(level)) {
+          return true;
+        }
+      } catch (Exception e) {
+        // Let the handler fail when logging, so the error is reported
+        return true;
+      }
+    }
+    return false;
   }
 
   public void log(@NonNull LogMessage logMessage) {
+    if (!isLoggable(logMessage.getLevel())) {
+      return;
+    }
+
     int depth = logRecursionDepth.get();
     if (depth > 1) {
       return;
@@ -20,23 +20,47 @@ import androidx.annotation.NonNull;
 import com.criteo.publisher.DependencyProvider;
 import com.criteo.publisher.dependency.LazyDependency;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class LoggerFactory {
 
   @NonNull
   private final List<LazyDependency<LogHandler>> logHandlers;
 
+  /**
+   * Loggers are stateless, so a single one is created per class and shared by all its instances.
+   */
+  @NonNull
+  private final ConcurrentMap<Class<?>, Logger> loggers = new ConcurrentHashMap<>();
+
   public LoggerFactory(@NonNull List<LazyDependency<LogHandler>> logHandlers) {
     this.logHandlers = logHandlers;
   }
 
+  /**
+   * Return the logger of the given class.
+   * <p>
+   * This looks up the current {@link DependencyProvider}, so it should not be called on hot paths.
+   * Classes instantiated very often (such as tasks or parsed models) should only get a logger when
+   * they actually log something.
+   */
   @NonNull
   public static Logger getLogger(@NonNull Class<?> klass) {
     return DependencyProvider.getInstance().provideLoggerFactory().createLogger(klass);
   }
 
+  @NonNull
   public Logger createLogger(@NonNull Class<?> klass) {
-    return new Logger(klass, logHandlers);
+    Logger logger = loggers.get(klass);
+    if (logger == null) {
+      logger = new Logger(klass, logHandlers);
+      Logger existingLogger = loggers.putIfAbsent(klass, logger);
+      if (existingLogger != null) {
+        logger = existingLogger;
+      }
+    }
+    return logger;
   }
 
 }
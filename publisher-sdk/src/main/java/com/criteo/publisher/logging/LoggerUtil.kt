@@ -0,0 +1,32 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+/**
+ * Log the message built by the given function, only if a handler is interested in the given level.
+ *
+ * Being inlined, this does not allocate anything when the level is not loggable, so it should be
+ * preferred for messages logged on hot paths. The given level should be the one of the built
+ * message.
+ *
+ * @see Logger.isLoggable
+ */
+internal inline fun Logger.log(level: Int, logMessage: () -> LogMessage) {
+  if (isLoggable(level)) {
+    log(logMessage())
+  }
+}
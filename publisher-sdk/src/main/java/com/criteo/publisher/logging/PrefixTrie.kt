@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+/**
+ * Set of string prefixes compiled into a trie.
+ *
+ * Checking if a string starts with one of the prefixes costs at most one node lookup per character of the string,
+ * whatever the number of prefixes, instead of one comparison per prefix.
+ */
+internal class PrefixTrie(prefixes: Collection<String>) {
+
+  private val root = Node()
+
+  init {
+    prefixes.forEach { prefix ->
+      var node = root
+      prefix.forEach { node = node.getOrAddChild(it) }
+      node.isEndOfPrefix = true
+    }
+  }
+
+  /**
+   * Indicate if the given value starts with one of the prefixes.
+   */
+  fun matchesPrefixOf(value: String): Boolean {
+    var node = root
+    for (char in value) {
+      if (node.isEndOfPrefix) {
+        return true
+      }
+      node = node.getChild(char) ?: return false
+    }
+    return node.isEndOfPrefix
+  }
+
+  private class Node {
+    var isEndOfPrefix = false
+
+    // Nodes have few children (package names share a lot), so a linear scan over arrays is cheaper than a map
+    private var keys = CharArray(0)
+    private var children = emptyArray<Node>()
+
+    fun getChild(key: Char): Node? {
+      for (i in keys.indices) {
+        if (keys[i] == key) {
+          return children[i]
+        }
+      }
+      return null
+    }
+
+    fun getOrAddChild(key: Char): Node {
+      getChild(key)?.let { return it }
+
+      val child = Node()
+      keys += key
+      children += child
+      return child
+    }
+  }
+}
@@ -21,6 +21,7 @@ import android.util.Log
 import androidx.annotation.VisibleForTesting
 import com.criteo.publisher.annotation.OpenForTesting
 import java.lang.reflect.Field
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.math.min
 
 @OpenForTesting
@@ -30,7 +31,7 @@ internal class PublisherCodeRemover {
 
   // Prefixes of package frameworks that are allowed when traversing the stacktrace.
   // These packages are not hidden because they provide useful context about the exception.
-  private val allowedFrameworkPackagePrefixes = listOf(
+  private val allowedFrameworkPackagePrefixes = PrefixTrie(listOf(
       // Java: indicate if the exception happens in a worker thread pool, or from standard object
       "java.",
       "javax.",
@@ -59,7 +60,15 @@ internal class PublisherCodeRemover {
 
       // Testing libs
       "org.junit."
-  )
+  ))
+
+  /**
+   * Origin of already classified classes, by class name.
+   *
+   * Stacktraces mostly contain the same few hundreds of classes, so this saves classifying them again and again. This
+   * is bounded to not keep growing with publisher classes: it is simply cleared when it is full.
+   */
+  private val classOrigins = ConcurrentHashMap<String, ClassOrigin>()
 
   private val privateStackTraceElement = StackTraceElement("<private class>", "<private method>", null, 0)
 
@@ -155,9 +164,15 @@ internal class PublisherCodeRemover {
   }
 
   private fun removePublisherCodeFromStacktrace(original: Throwable, cleanedException: Throwable) {
-    val newStackTrace = mutableListOf<StackTraceElement>()
-    original.stackTrace.forEach {
-      if (it.isSdk() || it.isAllowedFramework()) {
+    // Getting the stacktrace copies it, so it can be reused as is when nothing has to be removed
+    val stackTrace = original.stackTrace
+    if (cleanedException === original && stackTrace.none { it.originOfClass == ClassOrigin.PUBLISHER }) {
+      return
+    }
+
+    val newStackTrace = ArrayList<StackTraceElement>(stackTrace.size)
+    stackTrace.forEach {
+      if (it.originOfClass != ClassOrigin.PUBLISHER) {
         newStackTrace.add(it)
       } else if (newStackTrace.isEmpty() || newStackTrace.last() != privateStackTraceElement) {
         // Group the private stacks together
@@ -168,25 +183,48 @@ internal class PublisherCodeRemover {
     cleanedException.stackTrace = newStackTrace.toTypedArray()
   }
 
-  private fun StackTraceElement.isAllowedFramework(): Boolean {
-    return allowedFrameworkPackagePrefixes.any { className.startsWith(it) }
-  }
-
-  private fun StackTraceElement.isSdk(): Boolean {
-    return className.startsWith(criteoPackagePrefix)
-  }
+  private val StackTraceElement.originOfClass get() = getOriginOf(className)
 
   private fun Throwable.mightBeThrownByPublisher(): Boolean {
-    val firstNotFrameworkStackTraceElement = stackTrace.firstOrNull { !it.isAllowedFramework() }
+    val firstNotFrameworkOrigin = stackTrace.asSequence()
+        .map { it.originOfClass }
+        .firstOrNull { it != ClassOrigin.ALLOWED_FRAMEWORK }
         ?: return false // Exception is thrown by neither the SDK nor the publisher: it can be JDK, or Android SDK.
 
     // Exception can belong to: the SDK, the publisher, a not listed third-party. For the last case, we prefer to
     // consider that it belongs to the publisher.
-    return !firstNotFrameworkStackTraceElement.isSdk()
+    return firstNotFrameworkOrigin != ClassOrigin.SDK
   }
 
   private fun Throwable.isAllowedFramework(): Boolean {
-    return allowedFrameworkPackagePrefixes.any { javaClass.name.startsWith(it) }
+    return getOriginOf(javaClass.name) == ClassOrigin.ALLOWED_FRAMEWORK
+  }
+
+  private fun getOriginOf(className: String): ClassOrigin {
+    classOrigins[className]?.let {
+      return it
+    }
+
+    val origin = when {
+      className.startsWith(criteoPackagePrefix) -> ClassOrigin.SDK
+      allowedFrameworkPackagePrefixes.matchesPrefixOf(className) -> ClassOrigin.ALLOWED_FRAMEWORK
+      else -> ClassOrigin.PUBLISHER
+    }
+
+    if (classOrigins.size >= MAX_CLASSIFIED_CLASSES) {
+      classOrigins.clear()
+    }
+    classOrigins[className] = origin
+    return origin
+  }
+
+  /**
+   * Origin of a class, deduced from its package. Unknown third-parties are considered as publisher code.
+   */
+  private enum class ClassOrigin {
+    SDK,
+    ALLOWED_FRAMEWORK,
+    PUBLISHER
   }
 
   object ThrowableInternal {
@@ -252,6 +290,13 @@ internal class PublisherCodeRemover {
     }
   }
 
+  private companion object {
+    /**
+     * Maximum number of classes whose origin is cached. A stacktrace rarely has more than 100 elements.
+     */
+    const val MAX_CLASSIFIED_CLASSES = 512
+  }
+
   class PublisherException : RuntimeException {
     constructor() : this("custom")
     constructor(throwable: Throwable) : this(throwable.javaClass.simpleName)
@@ -16,46 +16,159 @@
 
 package com.criteo.publisher.logging
 
-import android.os.Looper
-import androidx.annotation.VisibleForTesting
-import com.criteo.publisher.SafeRunnable
+import android.util.Log
+import com.criteo.publisher.Clock
 import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.concurrent.DebouncedConsumerScheduler
 import com.criteo.publisher.csm.ConcurrentSendingQueue
 import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel.Companion.fromAndroidLogLevel
+import com.criteo.publisher.logging.RemoteLoggingLogMessage.onRemoteLogsDropped
 import com.criteo.publisher.model.Config
 import com.criteo.publisher.privacy.ConsentData
+import com.criteo.publisher.util.BuildConfigWrapper
 import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
 
+/**
+ * Handler pushing logs in the remote log sending queue.
+ *
+ * Logging threads only capture the message, with its time and thread, in a bounded in-memory buffer. Creating the
+ * remote log records (formatting, stacktrace scrubbing) and writing them in the sending queue is done later by a single
+ * background consumer. When too many logs are pending, the oldest ones are dropped and a warning indicating how many
+ * were dropped is pushed instead.
+ *
+ * Recurring logs are rate limited by a [RemoteLogAggregator]: the consumer wakes up again at the end of the aggregation
+ * window to push the summary of the counted occurrences.
+ */
+@Suppress("LongParameterList")
 @OpenForTesting
 internal class RemoteHandler(
     private val remoteLogRecordsFactory: RemoteLogRecordsFactory,
     private val sendingQueue: ConcurrentSendingQueue<RemoteLogRecords>,
     private val config: Config,
-    private val executor: Executor,
-    private val consentData: ConsentData
+    private val consentData: ConsentData,
+    private val clock: Clock,
+    buildConfigWrapper: BuildConfigWrapper,
+    executor: Executor,
+    scheduledExecutorService: ScheduledExecutorService
 ) : LogHandler {
+
+  private val maxPendingLogs = buildConfigWrapper.maxPendingRemoteLogs
+
+  private val maxLogRecordsPerGroup = buildConfigWrapper.maxRemoteLogRecordsPerGroup
+
+  private val pendingLogs = DropOldestRingBuffer<PendingLog>(maxPendingLogs)
+
+  private val aggregator = RemoteLogAggregator(
+      buildConfigWrapper.remoteLogAggregationWindowInMillis.toLong(),
+      buildConfigWrapper.maxAggregatedRemoteLogs
+  )
+
+  private val scheduler = DebouncedConsumerScheduler(
+      executor,
+      scheduledExecutorService,
+      buildConfigWrapper.remoteLogAggregationWindowInMillis.toLong(),
+      "RemoteLogPersisting"
+  ) {
+    persistPendingLogs()
+  }
+
+  /**
+   * Thread currently persisting pending logs. Logs emitted by this thread meanwhile (for instance by the sending queue)
+   * are ignored, else they would wake up the consumer again and again.
+   */
+  @Volatile
+  private var persistingThread: Thread? = null
+
+  override fun isLoggable(level: Int): Boolean {
+    val remoteLogLevel = fromAndroidLogLevel(level) ?: return false
+    return remoteLogLevel >= config.remoteLogLevel && consentData.isConsentGiven()
+  }
+
   override fun log(tag: String, logMessage: LogMessage) {
-    if (!consentData.isConsentGiven()) {
+    if (!isLoggable(logMessage.level)) {
       return
     }
 
-    fromAndroidLogLevel(logMessage.level)?.takeIf { it >= config.remoteLogLevel } ?: return
-    remoteLogRecordsFactory.createLogRecords(logMessage)?.let {
-      if (isMainThread()) {
-        // Asynchronously post log to avoid doing IO on the main thread
-        executor.execute(object : SafeRunnable() {
-          override fun runSafely() {
-            sendingQueue.offer(it)
-          }
-        })
-      } else {
-        sendingQueue.offer(it)
+    val currentThread = Thread.currentThread()
+    if (currentThread === persistingThread) {
+      return
+    }
+
+    pendingLogs.offer(PendingLog(logMessage, clock.currentTimeInMillis, currentThread.name))
+    scheduler.wakeUp()
+  }
+
+  private fun persistPendingLogs(): Boolean {
+    persistingThread = Thread.currentThread()
+    try {
+      val logRecords = mutableListOf<RemoteLogRecords>()
+
+      // Logs pushed meanwhile wake up the scheduler, so they are handled in a next consumption
+      for (i in 0 until maxPendingLogs) {
+        val pendingLog = pendingLogs.poll() ?: break
+        if (aggregator.onOccurrence(pendingLog.logMessage, pendingLog.timestampInMillis, pendingLog.threadName)) {
+          createLogRecords(pendingLog)?.let(logRecords::add)
+        }
+      }
+
+      aggregator.pollRepetitions(clock.currentTimeInMillis).forEach {
+        createRepeatedLogRecords(it)?.let(logRecords::add)
+      }
+
+      val droppedCount = pendingLogs.pollDroppedCount()
+      if (droppedCount > 0) {
+        val pendingLog = PendingLog(
+            onRemoteLogsDropped(droppedCount),
+            clock.currentTimeInMillis,
+            Thread.currentThread().name
+        )
+        createLogRecords(pendingLog)?.let(logRecords::add)
+      }
+
+      if (logRecords.isNotEmpty()) {
+        sendingQueue.offerAll(RemoteLogRecords.groupByContext(logRecords, maxLogRecordsPerGroup))
       }
+    } finally {
+      persistingThread = null
+    }
+
+    // Wake up again at the end of the window to push the repetitions
+    return aggregator.hasRepetitions()
+  }
+
+  private fun createLogRecords(pendingLog: PendingLog): RemoteLogRecords? {
+    return try {
+      remoteLogRecordsFactory.createLogRecords(
+          pendingLog.logMessage,
+          pendingLog.timestampInMillis,
+          pendingLog.threadName
+      )
+    } catch (e: RuntimeException) {
+      // Do not log it remotely: if the failure is systematic, this would loop forever
+      Log.w(FALLBACK_TAG, "Impossible to create remote log records", e)
+      null
     }
   }
 
-  @VisibleForTesting
-  internal fun isMainThread(): Boolean {
-    return Thread.currentThread() == Looper.getMainLooper()?.thread
+  private fun createRepeatedLogRecords(repetitions: RemoteLogAggregator.Repetitions): RemoteLogRecords? {
+    return try {
+      remoteLogRecordsFactory.createRepeatedLogRecords(
+          repetitions.lastLogMessage,
+          repetitions.occurrences,
+          repetitions.firstTimestampInMillis,
+          repetitions.lastTimestampInMillis,
+          repetitions.lastThreadName
+      )
+    } catch (e: RuntimeException) {
+      Log.w(FALLBACK_TAG, "Impossible to create remote log records", e)
+      null
+    }
+  }
+
+  private class PendingLog(val logMessage: LogMessage, val timestampInMillis: Long, val threadName: String)
+
+  private companion object {
+    val FALLBACK_TAG = LogTag.with("RemoteHandler")
   }
 }
@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+/**
+ * Rate limit recurring remote logs, such as a failure repeated at each bid request.
+ *
+ * Logs are identified by a [Fingerprint]. Only the first occurrence of a log within a window of time is logged as is.
+ * Next occurrences within the window are only counted, and are summarized by a single [Repetitions] once the window is
+ * over. So a recurring log costs at most two remote logs per window instead of one per occurrence.
+ *
+ * This is not thread-safe: it is expected to be used by the single consumer of the remote logs.
+ */
+internal class RemoteLogAggregator(
+    private val windowInMillis: Long,
+    private val maxFingerprints: Int
+) {
+
+  /**
+   * Ongoing windows by fingerprint, from the oldest to the newest
+   */
+  private val windows = LinkedHashMap<Fingerprint, Window>()
+
+  /**
+   * Repetitions of windows that were closed before they were over
+   */
+  private val closedRepetitions = mutableListOf<Repetitions>()
+
+  /**
+   * Indicate that the given message occurred at the given time.
+   *
+   * @return `true` if this is the first occurrence within its window and it should be logged as is, `false` if it is
+   * only counted
+   */
+  fun onOccurrence(logMessage: LogMessage, timestampInMillis: Long, threadName: String): Boolean {
+    val fingerprint = Fingerprint.from(logMessage)
+    val window = windows[fingerprint]
+    if (window != null && timestampInMillis - window.startInMillis < windowInMillis) {
+      window.onRepetition(logMessage, timestampInMillis, threadName)
+      return false
+    }
+
+    window?.let { closeWindow(fingerprint, it) }
+    if (windows.size >= maxFingerprints) {
+      windows.entries.firstOrNull()?.let { closeWindow(it.key, it.value) }
+    }
+
+    windows[fingerprint] = Window(timestampInMillis)
+    return true
+  }
+
+  /**
+   * Return repetitions whose window is over at the given time, and forget about those windows.
+   */
+  fun pollRepetitions(nowInMillis: Long): List<Repetitions> {
+    val iterator = windows.values.iterator()
+    while (iterator.hasNext()) {
+      val window = iterator.next()
+      if (nowInMillis - window.startInMillis >= windowInMillis) {
+        iterator.remove()
+        window.repetitions?.let(closedRepetitions::add)
+      }
+    }
+
+    val repetitions = closedRepetitions.toList()
+    closedRepetitions.clear()
+    return repetitions
+  }
+
+  /**
+   * Indicate if some occurrences were only counted and are not yet summarized by a [pollRepetitions].
+   */
+  fun hasRepetitions(): Boolean {
+    return closedRepetitions.isNotEmpty() || windows.values.any { it.repetitions != null }
+  }
+
+  private fun closeWindow(fingerprint: Fingerprint, window: Window) {
+    windows.remove(fingerprint)
+    window.repetitions?.let(closedRepetitions::add)
+  }
+
+  /**
+   * Identity of a log: logs with the same fingerprint are considered as occurrences of the same log.
+   *
+   * The message is only part of the identity of logs without ID, because logs with an ID may have variable messages.
+   */
+  private data class Fingerprint(
+      val level: Int,
+      val logId: String?,
+      val message: String?,
+      val exceptionType: String?,
+      val topFrames: List<StackTraceElement>
+  ) {
+    companion object {
+      /**
+       * Number of stack frames identifying where an exception was thrown. Frames are kept in memory only, so they do
+       * not need to be scrubbed from publisher code.
+       */
+      private const val TOP_FRAMES_COUNT = 3
+
+      fun from(logMessage: LogMessage) = Fingerprint(
+          logMessage.level,
+          logMessage.logId,
+          logMessage.message.takeIf { logMessage.logId == null },
+          logMessage.throwable?.javaClass?.name,
+          logMessage.throwable?.stackTrace?.take(TOP_FRAMES_COUNT).orEmpty()
+      )
+    }
+  }
+
+  private class Window(val startInMillis: Long) {
+    var repetitions: Repetitions? = null
+
+    fun onRepetition(logMessage: LogMessage, timestampInMillis: Long, threadName: String) {
+      val repetitions = repetitions
+      if (repetitions == null) {
+        this.repetitions = Repetitions(logMessage, timestampInMillis, threadName)
+      } else {
+        repetitions.onOccurrence(logMessage, timestampInMillis, threadName)
+      }
+    }
+  }
+
+  /**
+   * Occurrences of a log that were only counted
+   */
+  class Repetitions(
+      logMessage: LogMessage,
+      val firstTimestampInMillis: Long,
+      threadName: String
+  ) {
+    /**
+     * Last counted occurrence, used to describe all of them
+     */
+    var lastLogMessage = logMessage
+      private set
+
+    var lastTimestampInMillis = firstTimestampInMillis
+      private set
+
+    var lastThreadName = threadName
+      private set
+
+    var occurrences = 1
+      private set
+
+    internal fun onOccurrence(logMessage: LogMessage, timestampInMillis: Long, threadName: String) {
+      lastLogMessage = logMessage
+      lastTimestampInMillis = timestampInMillis
+      lastThreadName = threadName
+      occurrences++
+    }
+  }
+}
@@ -27,6 +27,37 @@ data class RemoteLogRecords(
     @Json(name = "context") val context: RemoteLogContext,
     @Json(name = "errors") val logRecords: List<RemoteLogRecord>
 ) {
+  companion object {
+    /**
+     * Merge the log records of elements having the same context, so this context is stored and sent only once.
+     *
+     * Elements are merged in the order of their first occurrence, and log records keep their order. A merged element
+     * has at most [maxLogRecords] log records (unless a single element already has more), so it stays small enough to
+     * be stored in the sending queue. If all elements have distinct contexts, they are returned as is.
+     */
+    @JvmStatic
+    fun groupByContext(remoteLogRecords: List<RemoteLogRecords>, maxLogRecords: Int): List<RemoteLogRecords> {
+      if (remoteLogRecords.mapTo(HashSet()) { it.context }.size == remoteLogRecords.size) {
+        return remoteLogRecords
+      }
+
+      val groups = mutableListOf<Pair<RemoteLogContext, MutableList<RemoteLogRecord>>>()
+      val openGroups = HashMap<RemoteLogContext, MutableList<RemoteLogRecord>>()
+
+      remoteLogRecords.forEach {
+        var group = openGroups[it.context]
+        if (group == null || group.size + it.logRecords.size > maxLogRecords) {
+          group = mutableListOf()
+          groups.add(it.context to group)
+          openGroups[it.context] = group
+        }
+        group.addAll(it.logRecords)
+      }
+
+      return groups.map { (context, logRecords) -> RemoteLogRecords(context, logRecords) }
+    }
+  }
+
   @JsonClass(generateAdapter = true)
   data class RemoteLogRecord(
       @Json(name = "errorType") val level: RemoteLogLevel,
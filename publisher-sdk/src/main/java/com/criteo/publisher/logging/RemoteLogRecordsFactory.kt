@@ -57,8 +57,37 @@ internal class RemoteLogRecordsFactory(
    * If given message has a log level that does not match any [RemoteLogLevel], then `null` is returned.
    */
   fun createLogRecords(logMessage: LogMessage): RemoteLogRecords? {
+    return createLogRecords(logMessage, clock.currentTimeInMillis, getCurrentThreadName())
+  }
+
+  /**
+   * Same as [createLogRecords] but for a message that was logged at the given time by the given thread.
+   *
+   * This allows the heavy formatting to be done later, on another thread.
+   */
+  fun createLogRecords(logMessage: LogMessage, timestampInMillis: Long, threadName: String): RemoteLogRecords? {
+    return createLogRecords(logMessage, createMessageBody(logMessage, timestampInMillis, threadName))
+  }
+
+  /**
+   * Create a payload summarizing occurrences of the given message that were not logged individually.
+   *
+   * On top of the usual body, the message indicates the number of occurrences and the time of the first one. The usual
+   * time is the one of the last occurrence.
+   */
+  fun createRepeatedLogRecords(
+      logMessage: LogMessage,
+      occurrences: Int,
+      firstTimestampInMillis: Long,
+      lastTimestampInMillis: Long,
+      threadName: String
+  ): RemoteLogRecords? {
+    val repetition = "occurrences:$occurrences,firstOccurrence:${formatDate(firstTimestampInMillis)}"
+    return createLogRecords(logMessage, createMessageBody(logMessage, lastTimestampInMillis, threadName, repetition))
+  }
+
+  private fun createLogRecords(logMessage: LogMessage, message: String?): RemoteLogRecords? {
     val remoteLogLevel = RemoteLogLevel.fromAndroidLogLevel(logMessage.level)
-    val message = createMessageBody(logMessage)
 
     if (remoteLogLevel == null || message == null) {
       return null
@@ -82,23 +111,37 @@ internal class RemoteLogRecordsFactory(
 
   @VisibleForTesting
   fun createMessageBody(logMessage: LogMessage): String? {
+    return createMessageBody(logMessage, clock.currentTimeInMillis, getCurrentThreadName())
+  }
+
+  @VisibleForTesting
+  fun createMessageBody(logMessage: LogMessage, timestampInMillis: Long, threadName: String): String? {
+    return createMessageBody(logMessage, timestampInMillis, threadName, null)
+  }
+
+  private fun createMessageBody(
+      logMessage: LogMessage,
+      timestampInMillis: Long,
+      threadName: String,
+      repetition: String?
+  ): String? {
     if (logMessage.message == null && logMessage.throwable == null) {
       return null
     }
 
-    val currentDate = Date(clock.currentTimeInMillis)
-    val formattedDate = iso8601Format.format(currentDate)
-
     val messageParts = listOfNotNull(
         logMessage.message,
         logMessage.throwable?.stacktraceString,
-        "threadId:${getCurrentThreadName()}",
-        formattedDate
+        repetition,
+        "threadId:$threadName",
+        formatDate(timestampInMillis)
     )
 
     return messageParts.takeIf { it.isNotEmpty() }?.joinToString(",")
   }
 
+  private fun formatDate(timestampInMillis: Long) = iso8601Format.format(Date(timestampInMillis))
+
   @VisibleForTesting
   fun getCurrentThreadName(): String = Thread.currentThread().name
 
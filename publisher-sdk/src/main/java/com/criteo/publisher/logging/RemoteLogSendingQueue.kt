@@ -28,9 +28,14 @@ internal interface RemoteLogSendingQueue : ConcurrentSendingQueue<RemoteLogRecor
   ) : RemoteLogSendingQueue {
     override fun offer(element: RemoteLogRecords) = delegate.offer(element)
 
+    override fun offerAll(elements: Collection<RemoteLogRecords>) = delegate.offerAll(elements)
+
     override fun poll(max: Int): List<RemoteLogRecords> = delegate.poll(max)
 
     override val totalSize: Int
       get() = delegate.totalSize
+
+    override val isEmpty: Boolean
+      get() = delegate.isEmpty
   }
 }
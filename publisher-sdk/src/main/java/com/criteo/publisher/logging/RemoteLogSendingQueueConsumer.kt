@@ -18,11 +18,13 @@ package com.criteo.publisher.logging
 
 import com.criteo.publisher.SafeRunnable
 import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.concurrent.DebouncedConsumerScheduler
 import com.criteo.publisher.csm.ConcurrentSendingQueue
 import com.criteo.publisher.network.PubSdkApi
 import com.criteo.publisher.util.AdvertisingInfo
 import com.criteo.publisher.util.BuildConfigWrapper
 import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
 
 @OpenForTesting
 internal class RemoteLogSendingQueueConsumer(
@@ -30,10 +32,25 @@ internal class RemoteLogSendingQueueConsumer(
     private val api: PubSdkApi,
     private val buildConfigWrapper: BuildConfigWrapper,
     private val advertisingInfo: AdvertisingInfo,
-    private val executor: Executor
+    executor: Executor,
+    scheduledExecutorService: ScheduledExecutorService
 ) {
+  private val scheduler = DebouncedConsumerScheduler(
+      executor,
+      scheduledExecutorService,
+      buildConfigWrapper.sendingQueueRetryDelayInMillis.toLong(),
+      "RemoteLogSending"
+  ) {
+    RemoteLogSendingTask(sendingQueue, api, buildConfigWrapper, advertisingInfo).run()
+    !sendingQueue.isEmpty
+  }
+
+  /**
+   * Send asynchronously a new batch of logs. Calls happening while a batch is being sent are
+   * coalesced into a single sending once the current one is done.
+   */
   fun sendRemoteLogBatch() {
-    executor.execute(RemoteLogSendingTask(sendingQueue, api, buildConfigWrapper, advertisingInfo))
+    scheduler.wakeUp()
   }
 
   class RemoteLogSendingTask(
@@ -49,16 +66,21 @@ internal class RemoteLogSendingQueueConsumer(
       }
 
       var isSuccessful = false
+      var polledLogRecords = remoteLogRecords
 
       try {
         injectMissingDeviceId(remoteLogRecords)
-        api.postLogs(remoteLogRecords)
+
+        // Logs stored separately may share the same context once the device ID is injected
+        polledLogRecords = RemoteLogRecords.groupByContext(
+            remoteLogRecords,
+            buildConfigWrapper.maxRemoteLogRecordsPerGroup
+        )
+        api.postLogs(polledLogRecords)
         isSuccessful = true
       } finally {
         if (!isSuccessful) {
-          remoteLogRecords.forEach {
-            sendingQueue.offer(it)
-          }
+          sendingQueue.offerAll(polledLogRecords)
         }
       }
     }
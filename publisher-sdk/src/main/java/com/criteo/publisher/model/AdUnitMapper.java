@@ -16,6 +16,8 @@
 
 package com.criteo.publisher.model;
 
+import static com.criteo.publisher.BiddingLogMessage.INVALID_AD_UNIT_LEVEL;
+import static com.criteo.publisher.BiddingLogMessage.UNSUPPORTED_AD_FORMAT_LEVEL;
 import static com.criteo.publisher.BiddingLogMessage.onInvalidAdUnit;
 import static com.criteo.publisher.BiddingLogMessage.onUnsupportedAdFormat;
 
@@ -157,12 +159,16 @@ public class AdUnitMapper {
       if (cacheAdUnit.getPlacementId().isEmpty()
           || cacheAdUnit.getSize().getWidth() <= 0
           || cacheAdUnit.getSize().getHeight() <= 0) {
-        logger.log(onInvalidAdUnit(cacheAdUnit));
+        if (logger.isLoggable(INVALID_AD_UNIT_LEVEL)) {
+          logger.log(onInvalidAdUnit(cacheAdUnit));
+        }
         continue;
       }
 
       if (cacheAdUnit.getAdUnitType() == AdUnitType.CRITEO_REWARDED && !SUPPORTED_INTEGRATION_FOR_REWARDED.contains(integration)) {
-        logger.log(onUnsupportedAdFormat(cacheAdUnit, integration));
+        if (logger.isLoggable(UNSUPPORTED_AD_FORMAT_LEVEL)) {
+          logger.log(onUnsupportedAdFormat(cacheAdUnit, integration));
+        }
         continue;
       }
 
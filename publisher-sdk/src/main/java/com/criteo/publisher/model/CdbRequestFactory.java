@@ -32,17 +32,23 @@ import com.criteo.publisher.privacy.UserPrivacyUtil;
 import com.criteo.publisher.util.AdvertisingInfo;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 
 public class CdbRequestFactory {
 
+  /**
+   * Upper bound on the number of distinct context keys for which the split path is kept in memory.
+   */
+  private static final int MAX_CACHED_PATHS = 512;
+
+  private static final String[] INVALID_PATH = new String[0];
+
   @NonNull
   private final Context context;
 
@@ -76,6 +82,9 @@ public class CdbRequestFactory {
   @NonNull
   private final Config config;
 
+  @NonNull
+  private final ConcurrentMap<String, String[]> pathPartsCache = new ConcurrentHashMap<>();
+
   public CdbRequestFactory(
       @NonNull Context context,
       @NonNull String criteoPublisherId,
@@ -204,20 +213,19 @@ public class CdbRequestFactory {
    * @param flattenMaps maps to merge into a nested structure
    * @return nested structure
    */
-  @SuppressWarnings({"SuspiciousMethodCalls", "ConstantConditions", "unchecked"})
+  @SuppressWarnings("unchecked")
   @NonNull
   @SafeVarargs
   @VisibleForTesting
   public final Map<String, Object> mergeToNestedMap(Map<String, Object>... flattenMaps) {
     Map<String, Object> nestedMap = new LinkedHashMap<>();
-    Set<Map<String, Object>> subNodes = Collections.newSetFromMap(new IdentityHashMap<>());
 
     for (Map<String, Object> flattenMap : flattenMaps) {
       for (Entry<String, Object> entry : flattenMap.entrySet()) {
         Map<String, Object> node = nestedMap;
 
-        String[] pathParts = entry.getKey().split("\\.", -1);
-        if (isNotValid(pathParts)) {
+        String[] pathParts = getPathParts(entry.getKey());
+        if (pathParts.length == 0) {
           continue;
         }
 
@@ -225,20 +233,16 @@ public class CdbRequestFactory {
         for (int i = 0; i < pathParts.length - 1; i++) {
           String pathPart = pathParts[i];
 
-          if (node.containsKey(pathPart)) {
-            Object nestedValue = node.get(pathPart);
-            if (subNodes.contains(nestedValue)) {
-              // It's a sub node, go deeper
-              // safe because only Map<String, Object> are put in subNodes
-              node = (Map<String, Object>) nestedValue;
-            } else {
-              // It's a leaf, abort
-              break;
-            }
+          Object nestedValue = node.get(pathPart);
+          if (nestedValue instanceof NestedNode) {
+            // It's a sub node, go deeper
+            node = (Map<String, Object>) nestedValue;
+          } else if (nestedValue != null || node.containsKey(pathPart)) {
+            // It's a leaf, abort
+            break;
           } else {
             // Create a new node and go deeper
-            Map<String, Object> newNode = new LinkedHashMap<>();
-            subNodes.add(newNode);
+            Map<String, Object> newNode = new NestedNode();
             node.put(pathPart, newNode);
             node = newNode;
           }
@@ -255,14 +259,47 @@ public class CdbRequestFactory {
     return nestedMap;
   }
 
-  private boolean isNotValid(String[] pathParts) {
-    for (String pathPart : pathParts) {
-      if (pathPart.isEmpty()) {
-        // Reject empty part
-        return true;
+  /**
+   * Return the path parts of the given flatten key, or an empty array if the key is not valid.
+   * <p>
+   * Publishers generally use a small and stable set of keys, so the split is only done once per key and then cached.
+   */
+  @NonNull
+  private String[] getPathParts(@NonNull String key) {
+    String[] pathParts = pathPartsCache.get(key);
+    if (pathParts == null) {
+      pathParts = splitPath(key);
+      if (pathPartsCache.size() < MAX_CACHED_PATHS) {
+        pathPartsCache.put(key, pathParts);
       }
     }
-    return false;
+    return pathParts;
+  }
+
+  @NonNull
+  private static String[] splitPath(@NonNull String key) {
+    List<String> pathParts = new ArrayList<>();
+    int start = 0;
+    int end;
+    do {
+      end = key.indexOf('.', start);
+      int partEnd = end == -1 ? key.length() : end;
+      if (partEnd == start) {
+        // Reject empty part
+        return INVALID_PATH;
+      }
+      pathParts.add(key.substring(start, partEnd));
+      start = partEnd + 1;
+    } while (end != -1);
+
+    return pathParts.toArray(new String[0]);
+  }
+
+  /**
+   * Marker type for nodes created by {@link #mergeToNestedMap(Map[])}, so they can be distinguished from map values
+   * given by the publisher.
+   */
+  private static class NestedNode extends LinkedHashMap<String, Object> {
   }
 
   @Nullable
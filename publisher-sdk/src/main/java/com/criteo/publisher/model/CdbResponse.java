@@ -52,8 +52,6 @@ public class CdbResponse {
 
   @NonNull
   public static CdbResponse fromJson(@NonNull JSONObject json) {
-    Logger logger = LoggerFactory.getLogger(CdbResponse.class);
-
     int timeToNextCall = 0;
     List<CdbResponseSlot> slots = new ArrayList<>();
 
@@ -61,7 +59,7 @@ public class CdbResponse {
       try {
         timeToNextCall = json.getInt(TIME_TO_NEXT_CALL);
       } catch (JSONException ex) {
-        logger.debug("Exception while reading cdb time to next call" + ex.getMessage());
+        getLogger().debug("Exception while reading cdb time to next call" + ex.getMessage());
       }
     }
 
@@ -70,14 +68,14 @@ public class CdbResponse {
       try {
         array = json.getJSONArray(SLOTS);
       } catch (JSONException ex) {
-        logger.debug("Exception while reading slots array", ex);
+        getLogger().debug("Exception while reading slots array", ex);
       }
       for (int i = 0; i < array.length(); i++) {
         try {
           JSONObject slotStr = array.getJSONObject(i);
           slots.add(CdbResponseSlot.fromJson(slotStr));
         } catch (Exception ex) {
-          logger.debug("Exception while reading slot from slots array", ex);
+          getLogger().debug("Exception while reading slot from slots array", ex);
         }
       }
     }
@@ -87,7 +85,7 @@ public class CdbResponse {
       try {
         consentGiven = json.getBoolean(CONSENT_GIVEN);
       } catch (JSONException ex) {
-        logger.debug("Exception while reading consentGiven", ex);
+        getLogger().debug("Exception while reading consentGiven", ex);
       }
     }
 
@@ -125,4 +123,12 @@ public class CdbResponse {
         ", consentGiven = " + consentGiven +
         '}';
   }
+
+  /**
+   * The logger is only looked up when something is logged, so parsing a response does not need it.
+   */
+  @NonNull
+  private static Logger getLogger() {
+    return LoggerFactory.getLogger(CdbResponse.class);
+  }
 }
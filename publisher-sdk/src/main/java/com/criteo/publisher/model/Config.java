@@ -22,6 +22,7 @@ import android.content.SharedPreferences;
 import android.content.SharedPreferences.Editor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.criteo.publisher.SafeRunnable;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel;
@@ -32,6 +33,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Config {
 
@@ -63,7 +66,7 @@ public class Config {
   //  are only accessed at display time. As they are only updated during SDK init, before any bids
   //  are registered. Then we may consider that, by usage, this object is thread-safe.
   @NonNull
-  private volatile RemoteConfigResponse cachedRemoteConfig;
+  private final AtomicReference<RemoteConfigResponse> cachedRemoteConfig;
 
   @Nullable
   private final SharedPreferences sharedPreferences;
@@ -71,13 +74,21 @@ public class Config {
   @Nullable
   private final JsonSerializer jsonSerializer;
 
+  /**
+   * Config served until the persisted configuration is read, or <code>null</code> if it was read
+   * at construction. As long as the cached config is this instance, nothing was read nor refreshed.
+   */
+  @Nullable
+  private final RemoteConfigResponse notHydratedConfig;
+
   /**
    * used by {@link com.criteo.publisher.DummyCriteo} to create a Config object
    **/
   public Config() {
     this.sharedPreferences = null;
     this.jsonSerializer = null;
-    this.cachedRemoteConfig = RemoteConfigResponse.createEmpty();
+    this.notHydratedConfig = null;
+    this.cachedRemoteConfig = new AtomicReference<>(RemoteConfigResponse.createEmpty());
   }
 
   public Config(
@@ -86,7 +97,37 @@ public class Config {
   ) {
     this.sharedPreferences = sharedPreferences;
     this.jsonSerializer = jsonSerializer;
-    this.cachedRemoteConfig = readConfigOrEmpty();
+    this.notHydratedConfig = null;
+    this.cachedRemoteConfig = new AtomicReference<>(readConfigOrEmpty());
+  }
+
+  /**
+   * Create a config reading the persisted configuration on the given executor, so the caller thread (generally the
+   * main thread during SDK init) does not pay for loading the storage and decoding the configuration.
+   * <p>
+   * Until then, default values are served so callers never wait for the storage. The kill switch
+   * stays conservative and is considered as engaged meanwhile. If the config is refreshed before,
+   * the persisted configuration is ignored.
+   */
+  public Config(
+      @NonNull SharedPreferences sharedPreferences,
+      @NonNull JsonSerializer jsonSerializer,
+      @NonNull Executor executor
+  ) {
+    this.sharedPreferences = sharedPreferences;
+    this.jsonSerializer = jsonSerializer;
+    this.notHydratedConfig = RemoteConfigResponse.createEmpty();
+    this.cachedRemoteConfig = new AtomicReference<>(notHydratedConfig);
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        RemoteConfigResponse persistedConfig = readConfigOrEmpty();
+
+        // A refreshed config is newer than the persisted one: it is kept
+        cachedRemoteConfig.compareAndSet(notHydratedConfig, persistedConfig);
+      }
+    });
   }
 
   @NonNull
@@ -171,8 +212,21 @@ public class Config {
   }
 
   public void refreshConfig(@NonNull RemoteConfigResponse response) {
-    cachedRemoteConfig = mergeRemoteConfig(cachedRemoteConfig, response);
-    persistRemoteConfig(cachedRemoteConfig);
+    RemoteConfigResponse currentConfig;
+    RemoteConfigResponse newConfig;
+    do {
+      currentConfig = cachedRemoteConfig.get();
+
+      // The persisted config is not read yet: values missing in the response are taken from it, and
+      // the remote config then prevents the pending read to override it.
+      RemoteConfigResponse baseConfig = currentConfig == notHydratedConfig
+          ? readConfigOrEmpty()
+          : currentConfig;
+
+      newConfig = mergeRemoteConfig(baseConfig, response);
+    } while (!cachedRemoteConfig.compareAndSet(currentConfig, newConfig));
+
+    persistRemoteConfig(newConfig);
   }
 
   private void persistRemoteConfig(@NonNull RemoteConfigResponse response) {
@@ -200,8 +254,14 @@ public class Config {
   }
 
   public boolean isKillSwitchEnabled() {
+    RemoteConfigResponse remoteConfig = cachedRemoteConfig.get();
+    if (remoteConfig == notHydratedConfig) {
+      // A persisted engaged kill switch should not be ignored while the storage is being read
+      return true;
+    }
+
     return getOrElse(
-        cachedRemoteConfig.getKillSwitch(),
+        remoteConfig.getKillSwitch(),
         DefaultConfig.KILL_SWITCH
     );
   }
@@ -212,7 +272,7 @@ public class Config {
    */
   public boolean isCsmEnabled() {
     return getOrElse(
-        cachedRemoteConfig.getCsmEnabled(),
+        cachedRemoteConfig.get().getCsmEnabled(),
         DefaultConfig.CSM_ENABLED
     );
   }
@@ -222,7 +282,7 @@ public class Config {
    */
   public boolean isLiveBiddingEnabled() {
     return getOrElse(
-        cachedRemoteConfig.getLiveBiddingEnabled(),
+        cachedRemoteConfig.get().getLiveBiddingEnabled(),
         DefaultConfig.LIVE_BIDDING_ENABLED
     );
   }
@@ -234,7 +294,7 @@ public class Config {
    */
   public int getLiveBiddingTimeBudgetInMillis() {
     return getOrElse(
-        cachedRemoteConfig.getLiveBiddingTimeBudgetInMillis(),
+        cachedRemoteConfig.get().getLiveBiddingTimeBudgetInMillis(),
         DefaultConfig.LIVE_BIDDING_TIME_BUDGET_IN_MILLIS
     );
   }
@@ -244,7 +304,7 @@ public class Config {
    */
   public boolean isPrefetchOnInitEnabled() {
     return getOrElse(
-        cachedRemoteConfig.getPrefetchOnInitEnabled(),
+        cachedRemoteConfig.get().getPrefetchOnInitEnabled(),
         DefaultConfig.PREFETCH_ON_INIT_ENABLED
     );
   }
@@ -252,7 +312,7 @@ public class Config {
   @NonNull
   public String getDisplayUrlMacro() {
     return getOrElse(
-        cachedRemoteConfig.getAndroidDisplayUrlMacro(),
+        cachedRemoteConfig.get().getAndroidDisplayUrlMacro(),
         DefaultConfig.DISPLAY_URL_MACRO
     );
   }
@@ -260,7 +320,7 @@ public class Config {
   @NonNull
   public String getAdTagUrlMode() {
     return getOrElse(
-        cachedRemoteConfig.getAndroidAdTagUrlMode(),
+        cachedRemoteConfig.get().getAndroidAdTagUrlMode(),
         DefaultConfig.AD_TAG_URL_MODE
     );
   }
@@ -268,7 +328,7 @@ public class Config {
   @NonNull
   public String getAdTagDataMacro() {
     return getOrElse(
-        cachedRemoteConfig.getAndroidAdTagDataMacro(),
+        cachedRemoteConfig.get().getAndroidAdTagDataMacro(),
         DefaultConfig.AD_TAG_DATA_MACRO
     );
   }
@@ -276,7 +336,7 @@ public class Config {
   @NonNull
   public String getAdTagDataMode() {
     return getOrElse(
-        cachedRemoteConfig.getAndroidAdTagDataMode(),
+        cachedRemoteConfig.get().getAndroidAdTagDataMode(),
         DefaultConfig.AD_TAG_DATA_MODE
     );
   }
@@ -284,21 +344,21 @@ public class Config {
   @NonNull
   public RemoteLogLevel getRemoteLogLevel() {
     return getOrElse(
-        cachedRemoteConfig.getRemoteLogLevel(),
+        cachedRemoteConfig.get().getRemoteLogLevel(),
         DefaultConfig.REMOTE_LOG_LEVEL
     );
   }
 
   public boolean isMraidEnabled() {
     return getOrElse(
-        cachedRemoteConfig.isMraidEnabled(),
+        cachedRemoteConfig.get().isMraidEnabled(),
         DefaultConfig.IS_MRAID_ENABLED
     );
   }
 
   public boolean isMraid2Enabled() {
     return getOrElse(
-        cachedRemoteConfig.isMraid2Enabled(),
+        cachedRemoteConfig.get().isMraid2Enabled(),
         DefaultConfig.IS_MRAID2_ENABLED
     );
   }
@@ -50,8 +50,32 @@ public class WebViewData {
   }
 
   public void setContent(@NonNull String data) {
-    String dataWithTag = config.getAdTagDataMode();
-    content = dataWithTag.replace(config.getAdTagDataMacro(), data);
+    content = fillTemplate(config.getAdTagDataMode(), config.getAdTagDataMacro(), data);
+  }
+
+  /**
+   * Replace all occurrences of the macro in the template by the given data.
+   * <p>
+   * Creatives can be hundreds of KB, so the output is written in a single buffer sized upfront instead of going
+   * through {@link String#replace(CharSequence, CharSequence)} and its intermediate copies.
+   */
+  @NonNull
+  private static String fillTemplate(@NonNull String template, @NonNull String macro, @NonNull String data) {
+    int macroIndex = macro.isEmpty() ? -1 : template.indexOf(macro);
+    if (macroIndex == -1) {
+      return template;
+    }
+
+    StringBuilder builder = new StringBuilder(template.length() - macro.length() + data.length());
+    int start = 0;
+    do {
+      builder.append(template, start, macroIndex).append(data);
+      start = macroIndex + macro.length();
+      macroIndex = template.indexOf(macro, start);
+    } while (macroIndex != -1);
+    builder.append(template, start, template.length());
+
+    return builder.toString();
   }
 
   public boolean isLoading() {
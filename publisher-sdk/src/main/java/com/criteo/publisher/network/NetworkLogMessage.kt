@@ -16,17 +16,30 @@
 
 package com.criteo.publisher.network
 
+import android.util.Log
 import com.criteo.publisher.logging.LogMessage
 
 internal object NetworkLogMessage {
 
+  /**
+   * Level of [onCdbCallStarted], so callers can check it before serializing the payload.
+   */
+  const val CDB_CALL_STARTED_LEVEL = Log.INFO
+
+  /**
+   * Level of [onCdbCallFinished], so callers can check it before reading the payload.
+   */
+  const val CDB_CALL_FINISHED_LEVEL = Log.INFO
+
   @JvmStatic
-  fun onCdbCallStarted(requestPayload: String) = LogMessage(message =
-    "CDB Request initiated: $requestPayload"
+  fun onCdbCallStarted(requestPayload: String) = LogMessage(
+      level = CDB_CALL_STARTED_LEVEL,
+      message = "CDB Request initiated: $requestPayload"
   )
 
   @JvmStatic
-  fun onCdbCallFinished(responsePayload: String) = LogMessage(message =
-    "CDB Response received: $responsePayload"
+  fun onCdbCallFinished(responsePayload: String) = LogMessage(
+      level = CDB_CALL_FINISHED_LEVEL,
+      message = "CDB Response received: $responsePayload"
   )
 }
@@ -87,13 +87,17 @@ public class PubSdkApi {
     urlConnection.setDoOutput(true);
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       jsonSerializer.write(request, baos);
-      logger.log(NetworkLogMessage.onCdbCallStarted(baos.toString("UTF-8")));
+      if (logger.isLoggable(NetworkLogMessage.CDB_CALL_STARTED_LEVEL)) {
+        logger.log(NetworkLogMessage.onCdbCallStarted(baos.toString("UTF-8")));
+      }
       urlConnection.getOutputStream().write(baos.toByteArray());
     }
 
     try (InputStream inputStream = readResponseStreamIfSuccess(urlConnection)) {
       String response = StreamUtil.readStream(inputStream);
-      logger.log(NetworkLogMessage.onCdbCallFinished(response));
+      if (logger.isLoggable(NetworkLogMessage.CDB_CALL_FINISHED_LEVEL)) {
+        logger.log(NetworkLogMessage.onCdbCallFinished(response));
+      }
       return CdbResponse.fromJson(readJson(response));
     }
   }
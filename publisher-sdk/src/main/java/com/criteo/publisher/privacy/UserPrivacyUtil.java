@@ -17,7 +17,6 @@
 package com.criteo.publisher.privacy;
 
 import android.content.SharedPreferences;
-import android.content.SharedPreferences.Editor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -53,8 +52,6 @@ public class UserPrivacyUtil {
 
   private final SafeSharedPreferences safeSharedPreferences;
 
-  private final SharedPreferences sharedPreferences;
-
   private final GdprDataFetcher gdprDataFetcher;
 
   @Nullable
@@ -64,7 +61,6 @@ public class UserPrivacyUtil {
       @NonNull SharedPreferences sharedPreferences,
       @NonNull GdprDataFetcher gdprDataFetcher
   ) {
-    this.sharedPreferences = sharedPreferences;
     this.safeSharedPreferences = new SafeSharedPreferences(sharedPreferences);
     this.gdprDataFetcher = gdprDataFetcher;
   }
@@ -89,9 +85,7 @@ public class UserPrivacyUtil {
   }
 
   public void storeUsPrivacyOptout(boolean uspOptout) {
-    Editor edit = sharedPreferences.edit();
-    edit.putString(OPTOUT_USPRIVACY_SHARED_PREFS_KEY, String.valueOf(uspOptout));
-    edit.apply();
+    safeSharedPreferences.putString(OPTOUT_USPRIVACY_SHARED_PREFS_KEY, String.valueOf(uspOptout));
     logger.log(PrivacyLogMessage.onUsPrivacyOptOutSet(uspOptout));
   }
 
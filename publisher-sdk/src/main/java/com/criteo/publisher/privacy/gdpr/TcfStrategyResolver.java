@@ -21,22 +21,21 @@ import androidx.annotation.Nullable;
 import com.criteo.publisher.util.SafeSharedPreferences;
 
 public class TcfStrategyResolver {
-  private final SafeSharedPreferences safeSharedPreferences;
+  private final Tcf2GdprStrategy tcf2GdprStrategy;
+  private final Tcf1GdprStrategy tcf1GdprStrategy;
 
   public TcfStrategyResolver(@NonNull SafeSharedPreferences safeSharedPreferences) {
-    this.safeSharedPreferences = safeSharedPreferences;
+    // Strategies are stateless: they always read through the given preferences
+    this.tcf2GdprStrategy = new Tcf2GdprStrategy(safeSharedPreferences);
+    this.tcf1GdprStrategy = new Tcf1GdprStrategy(safeSharedPreferences);
   }
 
   @Nullable
   TcfGdprStrategy resolveTcfStrategy() {
-    Tcf2GdprStrategy tcf2GdprStrategy = new Tcf2GdprStrategy(safeSharedPreferences);
-
     if (tcf2GdprStrategy.isProvided()) {
       return tcf2GdprStrategy;
     }
 
-    Tcf1GdprStrategy tcf1GdprStrategy = new Tcf1GdprStrategy(safeSharedPreferences);
-
     if (tcf1GdprStrategy.isProvided()) {
       return tcf1GdprStrategy;
 
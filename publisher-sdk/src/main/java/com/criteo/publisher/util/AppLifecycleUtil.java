@@ -22,19 +22,26 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.AppEvents.AppEvents;
 import com.criteo.publisher.BidManager;
+import com.criteo.publisher.csm.MetricRepository;
 
 public class AppLifecycleUtil implements Application.ActivityLifecycleCallbacks {
 
   private final AppEvents appEvents;
   private final BidManager bidManager;
+  private final MetricRepository metricRepository;
   private int started;
   private int resumed;
   private boolean transitionPossible;
   private boolean created;
 
-  public AppLifecycleUtil(AppEvents appEvents, BidManager bidmanager) {
+  public AppLifecycleUtil(
+      AppEvents appEvents,
+      BidManager bidmanager,
+      MetricRepository metricRepository
+  ) {
     this.appEvents = appEvents;
     this.bidManager = bidmanager;
+    this.metricRepository = metricRepository;
     started = 0;
     resumed = 0;
     transitionPossible = false;
@@ -78,6 +85,7 @@ public class AppLifecycleUtil implements Application.ActivityLifecycleCallbacks
       }
       appEvents.onApplicationStopped();
       bidManager.onApplicationStopped();
+      metricRepository.onApplicationStopped();
     }
     transitionPossible = false;
     started -= 1;
@@ -65,6 +65,13 @@ public class BuildConfigWrapper {
     return BuildConfig.maxSizeOfCsmMetricsFolder;
   }
 
+  /**
+   * Maximum duration (in milliseconds) during which metric updates are only kept in memory.
+   */
+  public int getCsmMetricWriteDelayInMillis() {
+    return BuildConfig.csmMetricWriteDelayInMillis;
+  }
+
   /**
    * Maximum size (in bytes) of metric elements stored in the metric sending queue.
    */
@@ -150,6 +157,34 @@ public class BuildConfigWrapper {
     return BuildConfig.estimatedSizeOfRemoteLog;
   }
 
+  /**
+   * Maximum number of remote logs kept in memory before being written in the sending queue.
+   */
+  public int getMaxPendingRemoteLogs() {
+    return BuildConfig.maxPendingRemoteLogs;
+  }
+
+  /**
+   * Duration (in milliseconds) during which a recurring remote log is only sent once.
+   */
+  public int getRemoteLogAggregationWindowInMillis() {
+    return BuildConfig.remoteLogAggregationWindowInMillis;
+  }
+
+  /**
+   * Maximum number of distinct recurring remote logs tracked at the same time.
+   */
+  public int getMaxAggregatedRemoteLogs() {
+    return BuildConfig.maxAggregatedRemoteLogs;
+  }
+
+  /**
+   * Maximum number of remote log records grouped under the same context.
+   */
+  public int getMaxRemoteLogRecordsPerGroup() {
+    return BuildConfig.maxRemoteLogRecordsPerGroup;
+  }
+
   /**
    * The relative path in application folder of the sending queue file for remote logs
    */
@@ -157,4 +192,26 @@ public class BuildConfigWrapper {
   public String getRemoteLogQueueFilename() {
     return BuildConfig.remoteLogQueueFilename;
   }
+
+  /**
+   * Delay (in milliseconds) before sending again elements remaining in a sending queue.
+   */
+  public int getSendingQueueRetryDelayInMillis() {
+    return BuildConfig.sendingQueueRetryDelayInMillis;
+  }
+
+  /**
+   * Period (in milliseconds) of the reports sent to the diagnostics listener.
+   */
+  public int getDiagnosticsReportPeriodInMillis() {
+    return BuildConfig.diagnosticsReportPeriodInMillis;
+  }
+
+  /**
+   * One {@link com.criteo.publisher.SafeRunnable} out of this number keeps the stacktrace of its
+   * creation. <code>0</code> disables the capture.
+   */
+  public int getSafeRunnableStackTraceSamplingPeriod() {
+    return BuildConfig.safeRunnableStackTraceSamplingPeriod;
+  }
 }
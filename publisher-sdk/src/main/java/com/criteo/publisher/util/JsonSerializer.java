@@ -17,14 +17,19 @@
 package com.criteo.publisher.util;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.JsonDataException;
 import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import okio.BufferedSink;
 import okio.Okio;
 
@@ -33,6 +38,18 @@ public class JsonSerializer {
   @NonNull
   private final Moshi moshi;
 
+  /**
+   * Adapters already resolved per class, to avoid going through the synchronized lookup of Moshi on each call.
+   */
+  @NonNull
+  private final Map<Class<?>, JsonAdapter<?>> adapters = new ConcurrentHashMap<>();
+
+  /**
+   * Adapters of lists already resolved per element class.
+   */
+  @NonNull
+  private final Map<Class<?>, JsonAdapter<?>> listAdapters = new ConcurrentHashMap<>();
+
   public JsonSerializer(@NonNull Moshi moshi) {
     this.moshi = moshi;
   }
@@ -55,15 +72,12 @@ public class JsonSerializer {
   ) throws IOException {
     try {
       BufferedSink out = Okio.buffer(Okio.sink(outputStream));
-      JsonAdapter adapter;
+      JsonAdapter<Object> adapter;
 
-      // At runtime we will have specific implementation of list (e.g. ArrayList)
-      // Moshi does not support serialization of specific list subtypes out of the box
-      // If we receive such instance just create JsonAdapter for List
       if (object instanceof List) {
-        adapter = moshi.adapter(List.class);
+        adapter = getListAdapter((List<?>) object);
       } else {
-        adapter = moshi.adapter((Class<T>) object.getClass());
+        adapter = getAdapter(object.getClass());
       }
 
       adapter.toJson(out, object);
@@ -93,7 +107,8 @@ public class JsonSerializer {
   ) throws IOException {
     T object;
     try {
-      object = moshi.adapter(expectedClass).fromJson(Okio.buffer(Okio.source(inputStream)));
+      JsonAdapter<T> adapter = getAdapter(expectedClass);
+      object = adapter.fromJson(Okio.buffer(Okio.source(inputStream)));
     } catch (JsonDataException e) {
       throw new IOException(e);
     }
@@ -104,4 +119,64 @@ public class JsonSerializer {
 
     return object;
   }
+
+  @NonNull
+  @SuppressWarnings("unchecked")
+  private <T> JsonAdapter<T> getAdapter(@NonNull Class<?> type) {
+    JsonAdapter<?> adapter = adapters.get(type);
+    if (adapter == null) {
+      adapter = moshi.adapter(type);
+      adapters.put(type, adapter);
+    }
+    return (JsonAdapter<T>) adapter;
+  }
+
+  /**
+   * At runtime we will have specific implementation of list (e.g. ArrayList). Moshi does not support serialization
+   * of specific list subtypes out of the box, so an adapter for {@link List} is used instead.
+   * <p>
+   * When all elements have the same class, the list adapter is typed with it. Else, the element adapters would be
+   * looked up at runtime for each element. Platform classes (e.g. ArrayList or LinkedHashMap) are not typed, as Moshi
+   * refuses to create adapters for them.
+   */
+  @NonNull
+  @SuppressWarnings("unchecked")
+  private JsonAdapter<Object> getListAdapter(@NonNull List<?> list) {
+    Class<?> elementClass = getCommonElementClass(list);
+    if (elementClass == null || isPlatformClass(elementClass)) {
+      return getAdapter(List.class);
+    }
+
+    JsonAdapter<?> adapter = listAdapters.get(elementClass);
+    if (adapter == null) {
+      Type listType = Types.newParameterizedType(List.class, elementClass);
+      adapter = moshi.adapter(listType);
+      listAdapters.put(elementClass, adapter);
+    }
+    return (JsonAdapter<Object>) adapter;
+  }
+
+  @Nullable
+  private static Class<?> getCommonElementClass(@NonNull List<?> list) {
+    Class<?> elementClass = null;
+    for (Object element : list) {
+      if (element == null) {
+        return null;
+      } else if (elementClass == null) {
+        elementClass = element.getClass();
+      } else if (elementClass != element.getClass()) {
+        return null;
+      }
+    }
+    return elementClass;
+  }
+
+  private static boolean isPlatformClass(@NonNull Class<?> type) {
+    String name = type.getName();
+    return name.startsWith("java.")
+        || name.startsWith("javax.")
+        || name.startsWith("kotlin.")
+        || name.startsWith("android.")
+        || name.startsWith("androidx.");
+  }
 }
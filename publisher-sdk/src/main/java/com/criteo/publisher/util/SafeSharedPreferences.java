@@ -17,28 +17,62 @@
 package com.criteo.publisher.util;
 
 import android.content.SharedPreferences;
+import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Wrapper around {@link SharedPreferences} that provides type safety when accessing data saved under
  * keys in DefaultSharedPreferences storage (which we can't necessarily control). This is to prevent
  * the apps using our SDK from crashing in case of type mismatch.
+ * <p>
+ * Values that are read are kept in memory, so following reads do not go through the synchronized
+ * {@link SharedPreferences} store. They are evicted as soon as the store notifies a change on their key.
  */
 public class SafeSharedPreferences {
 
   private final SharedPreferences sharedPreferences;
 
+  private final Map<String, CachedValue> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented on each change notification, so a value read concurrently with a change is not kept in cache.
+   */
+  private final AtomicInteger changeCount = new AtomicInteger();
+
+  // SharedPreferences only keeps a weak reference on its listeners: this field keeps it alive.
+  private final OnSharedPreferenceChangeListener changeListener = (preferences, key) -> {
+    changeCount.incrementAndGet();
+    if (key == null) {
+      // Since Android R, a null key indicates that the store was cleared
+      cache.clear();
+    } else {
+      cache.remove(key);
+    }
+  };
+
   public SafeSharedPreferences(@NonNull SharedPreferences sharedPreferences) {
     this.sharedPreferences = sharedPreferences;
+    sharedPreferences.registerOnSharedPreferenceChangeListener(changeListener);
   }
 
   @Nullable
   public String getString(@NonNull String key, @Nullable String defaultValue) {
+    CachedValue cachedValue = getCachedValue(key, String.class, defaultValue);
+    if (cachedValue != null) {
+      return (String) cachedValue.value;
+    }
+
     String value = defaultValue;
 
     try {
+      int changeCountBeforeRead = changeCount.get();
       value = sharedPreferences.getString(key, defaultValue);
+      putCachedValue(key, new CachedValue(String.class, defaultValue, value), changeCountBeforeRead);
     } catch (ClassCastException e) {
       PreconditionsUtil.throwOrLog(
           new IllegalStateException("Expected a String type when reading: " + key, e)
@@ -49,10 +83,17 @@ public class SafeSharedPreferences {
   }
 
   public int getInt(@NonNull String key, int defaultValue) {
+    CachedValue cachedValue = getCachedValue(key, Integer.class, defaultValue);
+    if (cachedValue != null) {
+      return (Integer) cachedValue.value;
+    }
+
     int value = defaultValue;
 
     try {
+      int changeCountBeforeRead = changeCount.get();
       value = sharedPreferences.getInt(key, defaultValue);
+      putCachedValue(key, new CachedValue(Integer.class, defaultValue, value), changeCountBeforeRead);
     } catch (ClassCastException e) {
       PreconditionsUtil.throwOrLog(
           new IllegalStateException("Expect an int type when reading " + key, e)
@@ -63,10 +104,17 @@ public class SafeSharedPreferences {
   }
 
   public boolean getBoolean(@NonNull String key, boolean defaultValue) {
+    CachedValue cachedValue = getCachedValue(key, Boolean.class, defaultValue);
+    if (cachedValue != null) {
+      return (Boolean) cachedValue.value;
+    }
+
     boolean value = defaultValue;
 
     try {
+      int changeCountBeforeRead = changeCount.get();
       value = sharedPreferences.getBoolean(key, defaultValue);
+      putCachedValue(key, new CachedValue(Boolean.class, defaultValue, value), changeCountBeforeRead);
     } catch (ClassCastException e) {
       PreconditionsUtil.throwOrLog(
           new IllegalStateException("Expect a boolean type when reading " + key, e)
@@ -76,4 +124,69 @@ public class SafeSharedPreferences {
     return value;
   }
 
+  /**
+   * Asynchronously store the given value, unless the same value is already stored.
+   */
+  public void putString(@NonNull String key, @NonNull String value) {
+    if (value.equals(getString(key, null))) {
+      return;
+    }
+
+    Editor editor = sharedPreferences.edit();
+    editor.putString(key, value);
+    editor.apply();
+
+    // The change notification is asynchronous when not on the main thread, so evict the old value right now
+    changeCount.incrementAndGet();
+    cache.remove(key);
+  }
+
+  @Nullable
+  private CachedValue getCachedValue(
+      @NonNull String key,
+      @NonNull Class<?> type,
+      @Nullable Object defaultValue
+  ) {
+    CachedValue cachedValue = cache.get(key);
+    if (cachedValue != null && cachedValue.isReadWith(type, defaultValue)) {
+      return cachedValue;
+    }
+    return null;
+  }
+
+  private void putCachedValue(
+      @NonNull String key,
+      @NonNull CachedValue cachedValue,
+      int changeCountBeforeRead
+  ) {
+    cache.put(key, cachedValue);
+    if (changeCount.get() != changeCountBeforeRead) {
+      // A change happened during the read, the value may be outdated
+      cache.remove(key);
+    }
+  }
+
+  private static final class CachedValue {
+
+    @NonNull
+    private final Class<?> type;
+
+    @Nullable
+    private final Object defaultValue;
+
+    @Nullable
+    private final Object value;
+
+    private CachedValue(@NonNull Class<?> type, @Nullable Object defaultValue, @Nullable Object value) {
+      this.type = type;
+      this.defaultValue = defaultValue;
+      this.value = value;
+    }
+
+    private boolean isReadWith(@NonNull Class<?> type, @Nullable Object defaultValue) {
+      return this.type == type
+          && (this.defaultValue == null ? defaultValue == null : this.defaultValue.equals(defaultValue));
+    }
+  }
+
 }
@@ -17,24 +17,31 @@
 package com.criteo.publisher.util;
 
 import androidx.annotation.NonNull;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 
 public final class StreamUtil {
 
+  private static final int BUFFER_SIZE = 8192;
+
   private StreamUtil() {
 
   }
 
+  /**
+   * Read the whole given UTF-8 stream, as is, and close it.
+   */
   @NonNull
   public static String readStream(InputStream in) throws IOException {
     StringBuilder response = new StringBuilder();
-    try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        response.append(line);
+    char[] buffer = new char[BUFFER_SIZE];
+    try (Reader reader = new InputStreamReader(in, Charset.forName("UTF-8"))) {
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        response.append(buffer, 0, read);
       }
     }
     return response.toString();
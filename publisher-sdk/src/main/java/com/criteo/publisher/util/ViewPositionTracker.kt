@@ -20,14 +20,13 @@ import android.view.View
 import android.view.ViewTreeObserver
 import androidx.annotation.GuardedBy
 import com.criteo.publisher.annotation.OpenForTesting
-import com.criteo.publisher.concurrent.RunOnUiThreadExecutor
 import java.lang.ref.Reference
 import java.lang.ref.WeakReference
 import java.util.WeakHashMap
 
 @OpenForTesting
 internal class ViewPositionTracker(
-    private val runOnUiThreadExecutor: RunOnUiThreadExecutor,
+    private val viewTrackingEngine: ViewTrackingEngine,
     private val deviceUtil: DeviceUtil
 ) {
 
@@ -51,34 +50,36 @@ internal class ViewPositionTracker(
     synchronized(lock) {
       var trackingTask = trackedViews[view]
       if (trackingTask == null) {
-        trackingTask = PositionTrackingTask(WeakReference(view), runOnUiThreadExecutor, deviceUtil)
+        trackingTask = PositionTrackingTask(WeakReference(view), viewTrackingEngine, deviceUtil)
+        trackedViews[view] = trackingTask
       }
       trackingTask.setListener(listener)
     }
   }
 
+  /**
+   * Check the position of its view each time the view is laid out. Checks are run by the
+   * [ViewTrackingEngine], at most once per frame, and periodically while the view is on screen.
+   */
   @OpenForTesting
   internal class PositionTrackingTask(
       private val trackedViewRef: Reference<View>,
-      private val runOnUiThreadExecutor: RunOnUiThreadExecutor,
+      private val viewTrackingEngine: ViewTrackingEngine,
       private val deviceUtil: DeviceUtil
-  ) : ViewTreeObserver.OnGlobalLayoutListener {
+  ) : ViewTreeObserver.OnGlobalLayoutListener, ViewTrackingEngine.TrackedView {
     @Volatile
     private var listener: PositionListener? = null
 
+    @Volatile
     private var previousPosition: Position? = null
 
-    private val checkPositionRunnable: Runnable = object : Runnable {
-      override fun run() {
-        checkPosition()
-        if (shouldPollView()) {
-          runOnUiThreadExecutor.executeAsync(
-              this,
-              POSITION_POLL_INTERVAL
-          )
-        }
-      }
-    }
+    /**
+     * Buffer reused by each check. Checks are only run on UI thread.
+     */
+    private val outWindowLocation = IntArray(2)
+
+    override val isAlive: Boolean
+      get() = trackedViewRef.get() != null
 
     init {
       setUpObserver()
@@ -90,19 +91,20 @@ internal class ViewPositionTracker(
     }
 
     override fun onGlobalLayout() {
-      invalidatePosition()
+      viewTrackingEngine.invalidate(this)
     }
 
-    private fun invalidatePosition() {
-      runOnUiThreadExecutor.cancel(checkPositionRunnable)
-      runOnUiThreadExecutor.execute(checkPositionRunnable)
+    override fun check(): Boolean {
+      checkPosition()
+      return shouldPollView() && trackedViewRef.get()?.isAttachedToWindow == true
     }
 
     private fun setUpObserver() {
       if (shouldPollView()) {
         val observer = trackedViewRef.get()?.viewTreeObserver
         observer?.addOnGlobalLayoutListener(this)
-        invalidatePosition()
+        viewTrackingEngine.track(this)
+        viewTrackingEngine.invalidate(this)
       }
     }
 
@@ -113,7 +115,6 @@ internal class ViewPositionTracker(
 
     private fun checkPosition() {
       trackedViewRef.get()?.apply {
-        val outWindowLocation = IntArray(2)
         this.getLocationInWindow(outWindowLocation)
         val currentPosition = previousPosition
 
@@ -154,10 +155,6 @@ internal class ViewPositionTracker(
     }
 
     private data class Position(var x: Int, var y: Int, var width: Int, var height: Int)
-
-    companion object {
-      const val POSITION_POLL_INTERVAL = 200L
-    }
   }
 
   internal interface PositionListener {
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.util
+
+import android.view.Choreographer
+import androidx.annotation.MainThread
+import androidx.annotation.VisibleForTesting
+import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.concurrent.RunOnUiThreadExecutor
+
+/**
+ * Shared engine running the checks of all the views tracked by the SDK.
+ *
+ * Instead of having each tracked view checking itself as soon as it is drawn or laid out and polling
+ * itself periodically, views are [invalidated][invalidate] and all invalidated views are checked
+ * together in a single pass synchronized with the next frame. A single poller invalidates all views
+ * periodically, and only while at least one of them is on screen.
+ *
+ * All the state of this engine is only accessed on the UI thread.
+ */
+@OpenForTesting
+internal class ViewTrackingEngine @VisibleForTesting constructor(
+    private val runOnUiThreadExecutor: RunOnUiThreadExecutor,
+    private val postFrameCallback: (Choreographer.FrameCallback) -> Unit
+) : Choreographer.FrameCallback {
+
+  constructor(runOnUiThreadExecutor: RunOnUiThreadExecutor) : this(
+      runOnUiThreadExecutor,
+      { Choreographer.getInstance().postFrameCallback(it) }
+  )
+
+  internal interface TrackedView {
+
+    /**
+     * Indicate if the tracked view still exists. Else this is forgotten by the engine.
+     */
+    val isAlive: Boolean
+
+    /**
+     * Check the tracked view and notify any change.
+     *
+     * @return `true` if the view is on screen and should be checked again periodically
+     */
+    @MainThread
+    fun check(): Boolean
+  }
+
+  private val trackedViews = LinkedHashSet<TrackedView>()
+
+  private val invalidatedViews = LinkedHashSet<TrackedView>()
+
+  /**
+   * Buffer reused between frames, so checked views can be invalidated again while being checked.
+   */
+  private val checkedViews = ArrayList<TrackedView>()
+
+  private var isFrameRequested = false
+
+  private var isPollScheduled = false
+
+  private val pollRunnable = Runnable {
+    isPollScheduled = false
+    invalidatedViews.addAll(trackedViews)
+    requestFrame()
+  }
+
+  /**
+   * Start tracking the given view. It is only checked once [invalidated][invalidate].
+   *
+   * It is safe to track again the same view: it is only checked once per pass.
+   *
+   * Dead views are forgotten here too, as passes may never happen again if no view is on screen.
+   */
+  fun track(trackedView: TrackedView) {
+    runOnUiThreadExecutor.execute {
+      trackedViews.removeAll { !it.isAlive }
+      trackedViews.add(trackedView)
+    }
+  }
+
+  /**
+   * Request the check of the given tracked view in the next frame.
+   */
+  fun invalidate(trackedView: TrackedView) {
+    runOnUiThreadExecutor.execute {
+      if (trackedView in trackedViews) {
+        invalidatedViews.add(trackedView)
+        requestFrame()
+      }
+    }
+  }
+
+  override fun doFrame(frameTimeNanos: Long) {
+    isFrameRequested = false
+
+    checkedViews.addAll(invalidatedViews)
+    invalidatedViews.clear()
+
+    var isAnyViewOnScreen = false
+    for (trackedView in checkedViews) {
+      if (!trackedView.isAlive) {
+        trackedViews.remove(trackedView)
+      } else if (trackedView.check()) {
+        isAnyViewOnScreen = true
+      }
+    }
+    checkedViews.clear()
+
+    if (isAnyViewOnScreen && !isPollScheduled) {
+      isPollScheduled = true
+      runOnUiThreadExecutor.executeAsync(pollRunnable, POLL_INTERVAL_IN_MILLIS)
+    }
+  }
+
+  private fun requestFrame() {
+    if (!isFrameRequested) {
+      isFrameRequested = true
+      postFrameCallback(this)
+    }
+  }
+
+  companion object {
+    const val POLL_INTERVAL_IN_MILLIS = 200L
+  }
+}
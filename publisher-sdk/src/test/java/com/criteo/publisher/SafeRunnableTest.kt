@@ -23,10 +23,13 @@ import com.criteo.publisher.mock.SpyBean
 import com.criteo.publisher.util.BuildConfigWrapper
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.After
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.kotlin.check
+import org.mockito.kotlin.clearInvocations
 import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.net.ProtocolException
@@ -46,6 +49,11 @@ class SafeRunnableTest {
     @SpyBean
     private lateinit var logger: Logger
 
+    @After
+    fun tearDown() {
+        SafeRunnable.resetSamplingPeriod()
+    }
+
     @Test
     fun dontThrowInProduction() {
         doReturn(false).whenever(buildConfigWrapper).preconditionThrowsOnException()
@@ -91,6 +99,48 @@ class SafeRunnableTest {
         })
     }
 
+    @Test
+    fun givenStackTraceCapture_LogExceptionWithCreationStackTrace() {
+        doReturn(false).whenever(buildConfigWrapper).preconditionThrowsOnException()
+        doReturn(1).whenever(buildConfigWrapper).safeRunnableStackTraceSamplingPeriod
+        SafeRunnable.resetSamplingPeriod()
+
+        val safeRunnable = createThrowingRunnable(Exception())
+        safeRunnable.run()
+
+        verify(logger).log(check {
+            assertThat(it.throwable!!.stackTrace).anySatisfy { element ->
+                assertThat(element.methodName).isEqualTo("givenStackTraceCapture_LogExceptionWithCreationStackTrace")
+            }
+        })
+    }
+
+    @Test
+    fun givenNoStackTraceCapture_LogExceptionWithExecutionStackTrace() {
+        doReturn(false).whenever(buildConfigWrapper).preconditionThrowsOnException()
+        doReturn(0).whenever(buildConfigWrapper).safeRunnableStackTraceSamplingPeriod
+        SafeRunnable.resetSamplingPeriod()
+
+        val throwable = Exception()
+        val safeRunnable = createThrowingRunnable(throwable)
+        safeRunnable.run()
+
+        verify(logger).log(check {
+            assertThat(it.throwable).hasCause(throwable)
+            assertThat(it.throwable!!.stackTrace.first().className).isEqualTo(SafeRunnable::class.java.name)
+        })
+    }
+
+    @Test
+    fun givenManyRunnables_ReadSamplingPeriodOnlyOnce() {
+        SafeRunnable.resetSamplingPeriod()
+        clearInvocations(buildConfigWrapper)
+
+        repeat(10) { createThrowingRunnable(Exception()) }
+
+        verify(buildConfigWrapper, times(1)).safeRunnableStackTraceSamplingPeriod
+    }
+
     private fun createThrowingRunnable(throwable: Throwable): SafeRunnable {
         return object : SafeRunnable() {
             override fun runSafely() {
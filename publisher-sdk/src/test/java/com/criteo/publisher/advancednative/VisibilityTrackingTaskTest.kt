@@ -19,22 +19,20 @@ package com.criteo.publisher.advancednative
 import android.view.View
 import android.view.ViewTreeObserver
 import com.criteo.publisher.advancednative.VisibilityTracker.VisibilityTrackingTask
-import com.criteo.publisher.concurrent.DirectMockRunOnUiThreadExecutor
-import com.criteo.publisher.concurrent.RunOnUiThreadExecutor
+import com.criteo.publisher.util.ViewTrackingEngine
+import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assertions.assertThatCode
-import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.Answers
 import org.mockito.Mock
-import org.mockito.Mockito.any
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.never
-import org.mockito.Mockito.spy
+import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
 import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
-import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.whenever
 import java.lang.ref.WeakReference
@@ -51,12 +49,8 @@ class VisibilityTrackingTaskTest {
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private lateinit var view: View
 
-    private lateinit var runOnUiThreadExecutor: RunOnUiThreadExecutor
-
-    @Before
-    fun setUp() {
-        runOnUiThreadExecutor = spy(DirectMockRunOnUiThreadExecutor())
-    }
+    @Mock
+    private lateinit var viewTrackingEngine: ViewTrackingEngine
 
     @Test
     fun new_GivenEmptyReference_DoNotThrow() {
@@ -84,66 +78,91 @@ class VisibilityTrackingTaskTest {
     }
 
     @Test
-    fun onPreDraw_GivenListenerAndEmptyReference_DoesNothing() {
+    fun check_GivenListenerAndEmptyReference_DoesNothing() {
         val listener = mock(VisibilityListener::class.java)
 
         val task = createTask(null)
+        task.setListener(listener)
 
-        task.onPreDraw()
-
+        assertThat(task.isAlive).isFalse()
+        assertThat(task.check()).isFalse()
         verify(listener, never()).onVisible()
+        verify(listener, never()).onGone()
     }
 
     @Test
-    fun onPreDraw_GivenListenerAndReferenceAndIsVisible_NotifyListener() {
+    fun check_GivenListenerAndReferenceAndIsVisible_NotifyListener() {
         val listener = mock<VisibilityListener>()
         whenever(visibilityChecker.isVisible(view)).thenReturn(true)
 
         val task = createTask()
         task.setListener(listener)
-        task.onPreDraw()
+        task.check()
 
         verify(listener).onVisible()
     }
 
     @Test
-    fun onGlobalLayout_GivenListenerAndReferenceAndIsGone_NotifyListener() {
+    fun check_GivenListenerAndReferenceAndIsGone_NotifyListener() {
         val listener = mock<VisibilityListener>()
         whenever(visibilityChecker.isVisible(view)).thenReturn(false)
 
         val task = createTask()
         task.setListener(listener)
-        task.onGlobalLayout()
+        task.check()
 
         verify(listener).onGone()
     }
 
     @Test
-    fun onPreDraw_GivenListenerAndReferenceAndIsGone_CancelAndAndExecuteAndExecuteAsyncWithDelay() {
-        val listener = mock<VisibilityListener>()
-        whenever(visibilityChecker.isVisible(view)).thenReturn(false)
+    fun new_GivenNotEmptyReferenceAndAliveObserver_TrackIt() {
+        givenViewTreeObserver(true)
+
+        val task = createTask()
+
+        verify(viewTrackingEngine).track(task)
+        verify(viewTrackingEngine, never()).invalidate(any())
+    }
+
+    @Test
+    fun onPreDraw_GivenTrackedView_InvalidateItInEngine() {
         givenViewTreeObserver(true)
 
         val task = createTask()
-        task.setListener(listener)
         task.onPreDraw()
+        task.onGlobalLayout()
 
-        verify(runOnUiThreadExecutor).cancel(any())
-        verify(runOnUiThreadExecutor).execute(any())
-        verify(runOnUiThreadExecutor).executeAsync(any(), eq(VisibilityTrackingTask.VISIBILITY_POLL_INTERVAL))
+        verify(viewTrackingEngine, times(2)).invalidate(task)
     }
 
     @Test
-    fun onPreDraw_GivenListenerAndReferenceAndViewTreeObserverIsNotAlive_ShouldNotExecuteAsyncWithDelay() {
-        val listener = mock<VisibilityListener>()
+    fun check_GivenAttachedViewAndAliveObserver_ShouldBePolled() {
+        givenViewTreeObserver(true)
+        whenever(view.isAttachedToWindow).thenReturn(true)
+
+        val task = createTask()
+
+        assertThat(task.check()).isTrue()
+    }
+
+    @Test
+    fun check_GivenDetachedView_ShouldNotBePolled() {
+        givenViewTreeObserver(true)
+        whenever(view.isAttachedToWindow).thenReturn(false)
+
+        val task = createTask()
+
+        assertThat(task.check()).isFalse()
+    }
+
+    @Test
+    fun check_GivenViewTreeObserverIsNotAlive_ShouldNotBePolled() {
         givenViewTreeObserver(false)
+        whenever(view.isAttachedToWindow).thenReturn(true)
 
         val task = createTask()
-        task.setListener(listener)
-        task.onPreDraw()
 
-        verify(runOnUiThreadExecutor).cancel(any())
-        verify(runOnUiThreadExecutor, never()).executeAsync(any(), eq(VisibilityTrackingTask.VISIBILITY_POLL_INTERVAL))
+        assertThat(task.check()).isFalse()
     }
 
     private fun givenViewTreeObserver(isAlive: Boolean): ViewTreeObserver {
@@ -156,6 +175,6 @@ class VisibilityTrackingTaskTest {
     }
 
     private fun createTask(view: View? = this.view): VisibilityTrackingTask {
-        return VisibilityTrackingTask(WeakReference(view), visibilityChecker, runOnUiThreadExecutor)
+        return VisibilityTrackingTask(WeakReference(view), visibilityChecker, viewTrackingEngine)
     }
 }
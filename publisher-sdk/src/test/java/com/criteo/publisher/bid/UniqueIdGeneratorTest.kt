@@ -16,11 +16,15 @@
 
 package com.criteo.publisher.bid
 
+import com.criteo.publisher.Clock
 import com.criteo.publisher.EpochClock
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.Test
+import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import java.util.UUID
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 
 class UniqueIdGeneratorTest {
 
@@ -53,4 +57,35 @@ class UniqueIdGeneratorTest {
       assertThat(ids).hasSize(expectedSize)
     }
   }
+
+  @Test
+  fun generateId_GivenClock_ReturnHexIdPrefixedByTimestampInSeconds() {
+    val clock = mock<Clock> {
+      on { currentTimeInMillis } doReturn 1234567890_123L
+    }
+
+    val generator = UniqueIdGenerator(clock)
+    val id = generator.generateId()
+
+    assertThat(id).hasSize(32).matches("[0-9a-f]+").startsWith("499602d2")
+  }
+
+  @Test
+  fun generateId_GivenManyThreads_AllAreUnique() {
+    val threadCount = 8
+    val idsPerThread = 10_000
+    val generator = UniqueIdGenerator(EpochClock())
+    val executor = Executors.newFixedThreadPool(threadCount)
+
+    try {
+      val ids = (0 until threadCount)
+          .map { executor.submit(Callable { (0 until idsPerThread).map { generator.generateId() } }) }
+          .flatMap { it.get() }
+          .toSet()
+
+      assertThat(ids).hasSize(threadCount * idsPerThread)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
 }
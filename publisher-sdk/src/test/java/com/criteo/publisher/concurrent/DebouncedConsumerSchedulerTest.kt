@@ -0,0 +1,201 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent
+
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.mock.SpyBean
+import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.never
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.verify
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class DebouncedConsumerSchedulerTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
+  @SpyBean
+  private lateinit var buildConfigWrapper: BuildConfigWrapper
+
+  private val submittedTasks = mutableListOf<Runnable>()
+
+  private val executor = Executor { submittedTasks.add(it) }
+
+  private var consumption: () -> Boolean = { false }
+
+  private var consumptionCount = 0
+
+  private lateinit var scheduler: DebouncedConsumerScheduler
+
+  @Before
+  fun setUp() {
+    buildConfigWrapper.stub {
+      on { preconditionThrowsOnException() } doReturn false
+    }
+
+    scheduler = DebouncedConsumerScheduler(executor, scheduledExecutorService, 42L, "Consumer") {
+      consumptionCount++
+      consumption()
+    }
+  }
+
+  @Test
+  fun wakeUp_GivenIdleScheduler_ConsumeInExecutor() {
+    scheduler.wakeUp()
+
+    assertThat(submittedTasks).hasSize(1)
+    assertThat(consumptionCount).isZero()
+
+    runSubmittedTasks()
+
+    assertThat(consumptionCount).isEqualTo(1)
+  }
+
+  @Test
+  fun wakeUp_GivenTaskType_SubmitTaskOfThisType() {
+    scheduler.wakeUp()
+
+    assertThat(submittedTasks.single())
+        .isInstanceOfSatisfying(TaskInstrumentation.Typed::class.java) {
+          assertThat(it.taskType).isEqualTo("Consumer")
+        }
+  }
+
+  @Test
+  fun wakeUp_GivenManyWakeUpsBeforeConsumption_SubmitOnlyOneTask() {
+    repeat(50) {
+      scheduler.wakeUp()
+    }
+
+    runSubmittedTasks()
+
+    assertThat(consumptionCount).isEqualTo(1)
+  }
+
+  @Test
+  fun wakeUp_GivenManyWakeUpsDuringConsumption_ConsumeOnlyOnceMoreInSameTask() {
+    consumption = {
+      if (consumptionCount == 1) {
+        repeat(50) {
+          scheduler.wakeUp()
+        }
+      }
+      false
+    }
+
+    scheduler.wakeUp()
+    val task = submittedTasks.single()
+    task.run()
+
+    assertThat(consumptionCount).isEqualTo(2)
+    assertThat(submittedTasks).containsExactly(task)
+  }
+
+  @Test
+  fun wakeUp_GivenPreviousConsumptionIsOver_SubmitNewTask() {
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    assertThat(consumptionCount).isEqualTo(2)
+  }
+
+  @Test
+  fun wakeUp_GivenNoRemainingElements_DoNotScheduleRetry() {
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    verify(scheduledExecutorService, never()).schedule(any<Runnable>(), any(), any())
+  }
+
+  @Test
+  fun wakeUp_GivenRemainingElements_ConsumeAgainAfterDelay() {
+    consumption = { consumptionCount == 1 }
+
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    val retryCaptor = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(retryCaptor.capture(), eq(42L), eq(TimeUnit.MILLISECONDS))
+    assertThat(submittedTasks).isEmpty()
+
+    retryCaptor.firstValue.run()
+    runSubmittedTasks()
+
+    assertThat(consumptionCount).isEqualTo(2)
+  }
+
+  @Test
+  fun wakeUp_GivenRetryScheduled_ConsumeImmediatelyAndIgnoreRetry() {
+    consumption = { consumptionCount == 1 }
+
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    val retryCaptor = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(retryCaptor.capture(), any(), any())
+
+    scheduler.wakeUp()
+    runSubmittedTasks()
+    assertThat(consumptionCount).isEqualTo(2)
+
+    retryCaptor.firstValue.run()
+    assertThat(submittedTasks).isEmpty()
+  }
+
+  @Test
+  fun wakeUp_GivenConsumerThrowingException_ConsumeAgainOnNextWakeUp() {
+    consumption = { if (consumptionCount == 1) throw IllegalStateException() else false }
+
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    scheduler.wakeUp()
+    runSubmittedTasks()
+
+    assertThat(consumptionCount).isEqualTo(2)
+  }
+
+  private fun runSubmittedTasks() {
+    val tasks = submittedTasks.toList()
+    submittedTasks.clear()
+    tasks.forEach { it.run() }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class LimitedConcurrencyExecutorTest {
+
+  private val submittedTasks = mutableListOf<Runnable>()
+
+  private val delegate = Executor { submittedTasks.add(it) }
+
+  @Test
+  fun new_GivenNonPositiveConcurrency_Throw() {
+    assertThatCode { LimitedConcurrencyExecutor(delegate, 0) }.isInstanceOf(IllegalArgumentException::class.java)
+  }
+
+  @Test
+  fun execute_GivenLessTasksThanMaxConcurrency_SubmitThemAll() {
+    val executor = LimitedConcurrencyExecutor(delegate, 2)
+    val executedTasks = mutableListOf<Int>()
+
+    executor.execute { executedTasks.add(1) }
+    executor.execute { executedTasks.add(2) }
+
+    assertThat(submittedTasks).hasSize(2)
+    runSubmittedTasks()
+    assertThat(executedTasks).containsExactly(1, 2)
+  }
+
+  @Test
+  fun execute_GivenMoreTasksThanMaxConcurrency_SubmitNextOnesWhenPreviousOnesAreOver() {
+    val executor = LimitedConcurrencyExecutor(delegate, 2)
+    val executedTasks = mutableListOf<Int>()
+
+    for (i in 1..5) {
+      executor.execute { executedTasks.add(i) }
+    }
+
+    assertThat(submittedTasks).hasSize(2)
+    runSubmittedTasks()
+    assertThat(executedTasks).containsExactly(1, 2)
+
+    assertThat(submittedTasks).hasSize(2)
+    runSubmittedTasks()
+    assertThat(executedTasks).containsExactly(1, 2, 3, 4)
+
+    runSubmittedTasks()
+    assertThat(executedTasks).containsExactly(1, 2, 3, 4, 5)
+    assertThat(submittedTasks).isEmpty()
+  }
+
+  @Test
+  fun execute_GivenThrowingTask_SubmitNextOne() {
+    val executor = LimitedConcurrencyExecutor(delegate, 1)
+    var isExecuted = false
+
+    executor.execute { throw IllegalStateException() }
+    executor.execute { isExecuted = true }
+
+    assertThatCode { submittedTasks.removeAt(0).run() }.isInstanceOf(IllegalStateException::class.java)
+    runSubmittedTasks()
+
+    assertThat(isExecuted).isTrue()
+  }
+
+  @Test
+  fun execute_GivenConcurrentSubmissions_NeverExceedMaxConcurrencyAndRunAllTasks() {
+    val threadPool = Executors.newFixedThreadPool(8)
+    val executor = LimitedConcurrencyExecutor(threadPool, 3)
+    val nbTasks = 2000
+    val running = AtomicInteger()
+    val maxRunning = AtomicInteger()
+    val executedTasks = CountDownLatch(nbTasks)
+
+    repeat(nbTasks) {
+      threadPool.execute {
+        executor.execute {
+          val current = running.incrementAndGet()
+          maxRunning.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+          running.decrementAndGet()
+          executedTasks.countDown()
+        }
+      }
+    }
+
+    assertThat(executedTasks.await(30, TimeUnit.SECONDS)).isTrue()
+    threadPool.shutdown()
+
+    assertThat(maxRunning.get()).isLessThanOrEqualTo(3)
+  }
+
+  private fun runSubmittedTasks() {
+    val tasks = submittedTasks.toList()
+    submittedTasks.clear()
+    tasks.forEach { it.run() }
+  }
+}
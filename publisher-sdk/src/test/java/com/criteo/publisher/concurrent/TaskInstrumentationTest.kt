@@ -0,0 +1,234 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.concurrent
+
+import com.criteo.publisher.SafeRunnable
+import com.criteo.publisher.diagnostics.CriteoDiagnosticsListener
+import com.criteo.publisher.diagnostics.ExecutorDiagnostics
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.mock.SpyBean
+import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.assertj.core.api.Assertions.entry
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.verify
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class TaskInstrumentationTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
+  @SpyBean
+  private lateinit var buildConfigWrapper: BuildConfigWrapper
+
+  private lateinit var instrumentation: TaskInstrumentation
+
+  @Before
+  fun setUp() {
+    buildConfigWrapper.stub {
+      on { diagnosticsReportPeriodInMillis } doReturn 42
+    }
+
+    instrumentation = TaskInstrumentation(scheduledExecutorService, buildConfigWrapper)
+  }
+
+  @Test
+  fun instrument_GivenNoListener_ReturnSameTask() {
+    val task = Runnable { }
+
+    assertThat(instrumentation.instrument(task)).isSameAs(task)
+  }
+
+  @Test
+  fun instrument_GivenTransparentTask_ReturnSameTask() {
+    instrumentation.setListener(mock())
+    val task = object : Runnable, TaskInstrumentation.Transparent {
+      override fun run() {}
+    }
+
+    assertThat(instrumentation.instrument(task)).isSameAs(task)
+  }
+
+  @Test
+  fun instrument_GivenAlreadyInstrumentedTask_ReturnSameTask() {
+    instrumentation.setListener(mock())
+    val instrumentedTask = instrumentation.instrument(Runnable { })
+
+    assertThat(instrumentation.instrument(instrumentedTask)).isSameAs(instrumentedTask)
+  }
+
+  @Test
+  fun getDiagnostics_GivenExecutedTasks_CountThemByType() {
+    instrumentation.setListener(mock())
+    var executionCount = 0
+
+    instrumentation.instrument(Task1 { executionCount++ }).run()
+    instrumentation.instrument(Task1 { executionCount++ }).run()
+    instrumentation.instrument(Task2 { executionCount++ }).run()
+
+    val diagnostics = instrumentation.diagnostics
+    assertThat(executionCount).isEqualTo(3)
+    assertThat(diagnostics.tasks.associate { it.taskType to it.executionCount }).containsOnly(
+        entry(Task1::class.java.name, 2L),
+        entry(Task2::class.java.name, 1L)
+    )
+    diagnostics.tasks.forEach {
+      assertThat(it.failureCount).isZero()
+      assertThat(it.queueWait.totalCount).isEqualTo(it.executionCount)
+      assertThat(it.runTime.totalCount).isEqualTo(it.executionCount)
+    }
+  }
+
+  @Test
+  fun getDiagnostics_GivenThrowingTask_RethrowAndCountFailure() {
+    instrumentation.setListener(mock())
+    val task = instrumentation.instrument(Task1 { throw IllegalStateException() })
+
+    assertThatCode { task.run() }.isInstanceOf(IllegalStateException::class.java)
+
+    val taskDiagnostics = instrumentation.diagnostics.tasks.single()
+    assertThat(taskDiagnostics.executionCount).isEqualTo(1)
+    assertThat(taskDiagnostics.failureCount).isEqualTo(1)
+  }
+
+  @Test
+  fun getDiagnostics_GivenFailingSafeRunnableInProduction_CountFailure() {
+    buildConfigWrapper.stub {
+      on { preconditionThrowsOnException() } doReturn false
+    }
+    instrumentation.setListener(mock())
+    val task = instrumentation.instrument(object : SafeRunnable() {
+      override fun runSafely() {
+        throw IllegalStateException()
+      }
+    })
+
+    assertThatCode { task.run() }.doesNotThrowAnyException()
+
+    val taskDiagnostics = instrumentation.diagnostics.tasks.single()
+    assertThat(taskDiagnostics.executionCount).isEqualTo(1)
+    assertThat(taskDiagnostics.failureCount).isEqualTo(1)
+  }
+
+  @Test
+  fun getDiagnostics_GivenSucceedingSafeRunnable_DoNotCountFailure() {
+    instrumentation.setListener(mock())
+    val task = instrumentation.instrument(object : SafeRunnable() {
+      override fun runSafely() {}
+    })
+
+    task.run()
+
+    val taskDiagnostics = instrumentation.diagnostics.tasks.single()
+    assertThat(taskDiagnostics.executionCount).isEqualTo(1)
+    assertThat(taskDiagnostics.failureCount).isZero()
+  }
+
+  @Test
+  fun getDiagnostics_GivenTypedTasks_CountThemByGivenType() {
+    instrumentation.setListener(mock())
+
+    instrumentation.instrument(TypedTask("type1")).run()
+    instrumentation.instrument(TypedTask("type2")).run()
+    instrumentation.instrument(TypedTask("type1")).run()
+
+    assertThat(instrumentation.diagnostics.tasks.associate { it.taskType to it.executionCount }).containsOnly(
+        entry("type1", 2L),
+        entry("type2", 1L)
+    )
+  }
+
+  @Test
+  fun onBackupExecution_GivenListener_CountBackupExecutions() {
+    instrumentation.onBackupExecution()
+    instrumentation.setListener(mock())
+    instrumentation.onBackupExecution()
+    instrumentation.onBackupExecution()
+
+    assertThat(instrumentation.diagnostics.backupExecutionCount).isEqualTo(2)
+  }
+
+  @Test
+  fun setListener_GivenListener_ReportPeriodically() {
+    val listener = mock<CriteoDiagnosticsListener>()
+    instrumentation.setListener(listener)
+    instrumentation.onBackupExecution()
+
+    val reportCaptor = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).scheduleWithFixedDelay(
+        reportCaptor.capture(),
+        eq(42L),
+        eq(42L),
+        eq(TimeUnit.MILLISECONDS)
+    )
+    reportCaptor.firstValue.run()
+
+    verify(listener).onExecutorDiagnostics(ExecutorDiagnostics(1, listOf()))
+  }
+
+  @Test
+  fun setListener_GivenListenerAlreadySet_IgnoreNewOne() {
+    instrumentation.setListener(mock())
+    instrumentation.setListener(mock())
+
+    verify(scheduledExecutorService).scheduleWithFixedDelay(any(), any(), any(), any())
+  }
+
+  @Test
+  fun bucketOf_GivenDurations_ReturnPowerOfTwoBucketInMicros() {
+    assertThat(TaskInstrumentation.bucketOf(-1)).isEqualTo(0)
+    assertThat(TaskInstrumentation.bucketOf(999)).isEqualTo(0)
+    assertThat(TaskInstrumentation.bucketOf(1_000)).isEqualTo(1)
+    assertThat(TaskInstrumentation.bucketOf(3_999)).isEqualTo(2)
+    assertThat(TaskInstrumentation.bucketOf(4_000)).isEqualTo(3)
+    assertThat(TaskInstrumentation.bucketOf(Long.MAX_VALUE)).isEqualTo(TaskInstrumentation.BUCKET_SIZE - 1)
+  }
+
+  private class Task1(private val action: () -> Unit) : Runnable {
+    override fun run() = action()
+  }
+
+  private class Task2(private val action: () -> Unit) : Runnable {
+    override fun run() = action()
+  }
+
+  private class TypedTask(private val taskType: String) : Runnable, TaskInstrumentation.Typed {
+    override fun getTaskType() = taskType
+
+    override fun run() {}
+  }
+}
@@ -67,6 +67,17 @@ class BoundedSendingQueueTest {
     assertThat(size).isEqualTo(42)
   }
 
+  @Test
+  fun isEmpty_GivenDelegate_DelegateToIt() {
+    delegate.stub {
+      on { isEmpty } doReturn true
+    }
+
+    val isEmpty = queue.isEmpty
+
+    assertThat(isEmpty).isTrue()
+  }
+
   @Test
   fun offer_GivenDelegateWithSizeBelowThreshold_DelegateToIt() {
     val metric = mock<Metric>()
@@ -105,4 +116,24 @@ class BoundedSendingQueueTest {
     verify(delegate).offer(metric)
     verify(delegate).poll(1)
   }
+
+  @Test
+  fun offerAll_GivenDelegateWithMaxCapacity_PollDelegateToMakeRoomAndThenOfferAll() {
+    val metrics = listOf<Metric>(mock(), mock())
+
+    delegate.stub {
+      on { totalSize } doReturn 42
+      on { offerAll(metrics) } doReturn true
+    }
+
+    sendingQueueConfiguration.stub {
+      on { maxSizeOfSendingQueue } doReturn 42
+    }
+
+    val success = queue.offerAll(metrics)
+
+    assertThat(success).isTrue()
+    verify(delegate).offerAll(metrics)
+    verify(delegate).poll(2)
+  }
 }
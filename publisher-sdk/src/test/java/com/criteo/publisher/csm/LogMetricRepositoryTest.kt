@@ -0,0 +1,252 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm
+
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.util.JsonSerializer
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.io.File
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+class LogMetricRepositoryTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Rule
+  @JvmField
+  val tempFolder = TemporaryFolder()
+
+  @Inject
+  private lateinit var jsonSerializer: JsonSerializer
+
+  @Mock
+  private lateinit var directory: MetricDirectory
+
+  @Mock
+  private lateinit var legacyRepository: MetricRepository
+
+  private lateinit var logFile: File
+
+  private lateinit var repository: LogMetricRepository
+
+  @Before
+  fun setUp() {
+    logFile = File(tempFolder.root, "metrics.log")
+
+    directory.stub {
+      on { getLogFile() } doReturn logFile
+    }
+
+    givenNewRepository()
+  }
+
+  @Test
+  fun getAllStoredMetrics_GivenUpdatesAndThenNewRepository_ReturnPreviousResult() {
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id2") { it.setCdbCallEndTimestamp(1337L) }
+    repository.addOrUpdateById("id1") { it.setCdbCallTimeout(true) }
+
+    val metrics = repository.allStoredMetrics
+    val size = repository.totalSize
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactlyInAnyOrderElementsOf(metrics)
+    assertThat(repository.allStoredMetrics).contains(
+        Metric.builder("id1")
+            .setCdbCallStartTimestamp(42L)
+            .setCdbCallTimeout(true)
+            .build()
+    )
+    assertThat(repository.totalSize).isEqualTo(size).isPositive()
+  }
+
+  @Test
+  fun moveById_GivenSuccessfulMoveAndThenNewRepository_MetricIsRemoved() {
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn true
+    }
+
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.moveById("id", mover)
+    givenNewRepository()
+
+    verify(mover).offerToDestination(Metric.builder("id").setCdbCallStartTimestamp(42L).build())
+    assertThat(repository.contains("id")).isFalse()
+    assertThat(repository.allStoredMetrics).isEmpty()
+    assertThat(repository.totalSize).isZero()
+  }
+
+  @Test
+  fun moveById_GivenUnsuccessfulMoveAndThenNewRepository_MetricIsRollback() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.moveById("id") { false }
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id").setCdbCallStartTimestamp(42L).build()
+    )
+  }
+
+  @Test
+  fun contains_GivenLoadedRepository_AnswerFromMemoryWithoutReadingLogAgain() {
+    repository.addOrUpdateById("id1") { }
+    givenNewRepository()
+    repository.addOrUpdateById("id2") { }
+
+    logFile.delete()
+
+    assertThat(repository.contains("id1")).isTrue()
+    assertThat(repository.contains("id2")).isTrue()
+    assertThat(repository.contains("id3")).isFalse()
+    assertThat(repository.totalSize).isPositive()
+    verify(directory, times(2)).getLogFile()
+  }
+
+  @Test
+  fun moveById_GivenUnknownMetric_DoNotOfferAnything() {
+    val mover = mock<MetricMover>()
+
+    repository.moveById("id", mover)
+
+    verify(mover, never()).offerToDestination(any())
+  }
+
+  @Test
+  fun addOrUpdateById_GivenExceptionDuringUpdate_MetricIsNotCreated() {
+    val exception = RuntimeException()
+
+    assertThatThrownBy {
+      repository.addOrUpdateById("id") { throw exception }
+    }.isSameAs(exception)
+
+    assertThat(repository.contains("id")).isFalse()
+  }
+
+  @Test
+  fun addOrUpdateById_GivenTornRecordAtEndOfLog_IgnoreItAndKeepAppending() {
+    repository.addOrUpdateById("id1") { }
+    logFile.appendBytes(byteArrayOf(0, 0, 1, 0, 42))
+
+    givenNewRepository()
+    repository.addOrUpdateById("id2") { }
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactlyInAnyOrder(
+        Metric.builder("id1").build(),
+        Metric.builder("id2").build()
+    )
+  }
+
+  @Test
+  fun addOrUpdateById_GivenCorruptedLastRecord_DropOnlyThisRecord() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(1L) }
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(2L) }
+
+    val bytes = logFile.readBytes()
+    bytes[bytes.size - 2] = (bytes[bytes.size - 2] + 1).toByte()
+    logFile.writeBytes(bytes)
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id").setCdbCallStartTimestamp(1L).build()
+    )
+  }
+
+  @Test
+  fun addOrUpdateById_GivenManyUpdatesOfSameMetric_CompactLog() {
+    for (i in 0 until 2000) {
+      repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(i.toLong()) }
+    }
+
+    assertThat(logFile.length()).isLessThan(2L * LogMetricRepository.MIN_LOG_SIZE_FOR_COMPACTION)
+
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id").setCdbCallStartTimestamp(1999L).build()
+    )
+  }
+
+  @Test
+  fun addOrUpdateById_GivenConcurrentUpdatesOfSameMetric_NoUpdateIsLost() {
+    val executor = Executors.newFixedThreadPool(8)
+
+    for (i in 0 until 800) {
+      executor.execute {
+        repository.addOrUpdateById("id") {
+          it.setCdbCallStartTimestamp((it.build().cdbCallStartTimestamp ?: 0L) + 1L)
+        }
+      }
+    }
+    executor.shutdown()
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue()
+
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id").setCdbCallStartTimestamp(800L).build()
+    )
+  }
+
+  @Test
+  fun getAllStoredMetrics_GivenLegacyMetrics_ImportThemAndRemoveThemFromLegacy() {
+    val legacyMetric = Metric.builder("legacy").setCdbCallStartTimestamp(42L).build()
+    var isMoved = false
+
+    legacyRepository.stub {
+      on { allStoredMetrics } doReturn listOf(legacyMetric)
+    }
+    doAnswer {
+      isMoved = it.getArgument<MetricMover>(1).offerToDestination(legacyMetric)
+    }.whenever(legacyRepository).moveById(any(), any())
+
+    val metrics = repository.allStoredMetrics
+
+    assertThat(isMoved).isTrue()
+    assertThat(metrics).containsExactly(legacyMetric)
+    verify(legacyRepository).moveById(eq("legacy"), any())
+  }
+
+  private fun givenNewRepository() {
+    repository = LogMetricRepository(directory, jsonSerializer, legacyRepository)
+  }
+}
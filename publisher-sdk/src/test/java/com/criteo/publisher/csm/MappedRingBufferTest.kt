@@ -0,0 +1,237 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm
+
+import com.criteo.publisher.csm.MappedRingBuffer.HEADER_LENGTH
+import com.criteo.publisher.csm.MappedRingBuffer.RECORD_HEADER_LENGTH
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.io.RandomAccessFile
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class MappedRingBufferTest {
+
+  @Rule
+  @JvmField
+  val tempFolder = TemporaryFolder()
+
+  private lateinit var file: File
+
+  private lateinit var ringBuffer: MappedRingBuffer
+
+  @Before
+  fun setUp() {
+    file = File(tempFolder.root, "queue.ring")
+    givenNewRingBuffer()
+  }
+
+  @Test
+  fun poll_GivenOfferedRecords_ReturnThemInOrder() {
+    ringBuffer.offer(record(1))
+    ringBuffer.offerAll(listOf(record(2), record(3)))
+
+    assertThat(ringBuffer.poll(2)).containsExactly(record(1), record(2))
+    assertThat(ringBuffer.poll(2)).containsExactly(record(3))
+    assertThat(ringBuffer.poll(2)).isEmpty()
+  }
+
+  @Test
+  fun poll_GivenZeroMax_ReturnNothing() {
+    ringBuffer.offer(record(1))
+
+    assertThat(ringBuffer.poll(0)).isEmpty()
+    assertThat(ringBuffer.poll(1)).containsExactly(record(1))
+  }
+
+  @Test
+  fun poll_GivenNewRingBufferOnSameFile_ReturnPreviousRecords() {
+    ringBuffer.offerAll(listOf(record(1), record(2), record(3)))
+    ringBuffer.poll(1)
+
+    givenNewRingBuffer()
+
+    assertThat(ringBuffer.poll(10)).containsExactly(record(2), record(3))
+  }
+
+  @Test
+  fun offer_GivenFullBuffer_OverwriteOldestRecords() {
+    val recordSize = RECORD_HEADER_LENGTH + record(0).size
+    val recordsToFill = CAPACITY / recordSize
+
+    for (i in 0 until recordsToFill + 3) {
+      ringBuffer.offer(record(i))
+    }
+
+    val records = ringBuffer.poll(Int.MAX_VALUE)
+
+    assertThat(records).hasSizeLessThanOrEqualTo(recordsToFill)
+    assertThat(records.last()).isEqualTo(record(recordsToFill + 2))
+    assertThat(records.first()).isNotEqualTo(record(0))
+    records.zipWithNext().forEach { (previous, next) ->
+      assertThat(id(next)).isEqualTo(id(previous) + 1)
+    }
+  }
+
+  @Test
+  fun offer_GivenRecordsBiggerThanHalfCapacityWrappingAround_KeepOnlyLastRecord() {
+    val smallRecord = ByteArray(CAPACITY / 3) { 1 }
+    ringBuffer.offer(smallRecord)
+
+    // The record does not fit before the end of the buffer, and overwrites everything
+    for (i in 0 until 10) {
+      val bigRecord = ByteArray(CAPACITY * 2 / 3 + i) { i.toByte() }
+      ringBuffer.offer(bigRecord)
+
+      assertThat(ringBuffer.usedBytes()).isLessThanOrEqualTo(CAPACITY)
+      assertThat(ringBuffer.poll(Int.MAX_VALUE)).containsExactly(bigRecord)
+
+      ringBuffer.offer(smallRecord)
+    }
+  }
+
+  @Test
+  fun offer_GivenRecordBiggerThanBuffer_RejectIt() {
+    ringBuffer.offer(record(1))
+
+    val isOffered = ringBuffer.offer(ByteArray(CAPACITY))
+
+    assertThat(isOffered).isFalse()
+    assertThat(ringBuffer.poll(10)).containsExactly(record(1))
+  }
+
+  @Test
+  fun usedBytes_GivenRecords_ReturnSizeOfRecordsWithTheirHeader() {
+    assertThat(ringBuffer.usedBytes()).isZero()
+
+    ringBuffer.offerAll(listOf(record(1), record(2)))
+
+    assertThat(ringBuffer.usedBytes()).isEqualTo(2 * (RECORD_HEADER_LENGTH + record(1).size))
+
+    ringBuffer.poll(2)
+
+    assertThat(ringBuffer.usedBytes()).isZero()
+  }
+
+  @Test
+  fun poll_GivenRecordsWrappingAroundEndOfBuffer_ReturnThemAfterReopening() {
+    // Fill and consume many times so records are wrapping around the end of the buffer
+    for (i in 0 until 1000) {
+      ringBuffer.offer(record(i))
+      assertThat(ringBuffer.poll(1)).containsExactly(record(i))
+    }
+
+    ringBuffer.offerAll((1000 until 1010).map { record(it) })
+    givenNewRingBuffer()
+
+    assertThat(ringBuffer.poll(Int.MAX_VALUE)).containsExactlyElementsOf((1000 until 1010).map { record(it) })
+  }
+
+  @Test
+  fun poll_GivenCorruptedRecord_DropItAndFollowingOnes() {
+    ringBuffer.offerAll(listOf(record(1), record(2), record(3)))
+
+    // Corrupt the payload of the second record
+    RandomAccessFile(file, "rw").use {
+      val position = HEADER_LENGTH + 2L * (RECORD_HEADER_LENGTH + record(1).size) - 1
+      it.seek(position)
+      val byte = it.read()
+      it.seek(position)
+      it.write(byte + 1)
+    }
+    givenNewRingBuffer()
+
+    assertThat(ringBuffer.poll(10)).containsExactly(record(1))
+  }
+
+  @Test
+  fun poll_GivenCorruptedHeader_StartEmpty() {
+    ringBuffer.offer(record(1))
+
+    RandomAccessFile(file, "rw").use {
+      it.seek(0)
+      it.writeInt(42)
+    }
+    givenNewRingBuffer()
+
+    assertThat(ringBuffer.poll(10)).isEmpty()
+    ringBuffer.offer(record(2))
+    assertThat(ringBuffer.poll(10)).containsExactly(record(2))
+  }
+
+  @Test
+  fun poll_GivenConcurrentProducersAndConsumers_EveryRecordIsPolledOnce() {
+    ringBuffer = MappedRingBuffer.open(File(tempFolder.root, "big.ring"), 1024 * 1024)
+
+    val nbProducers = 4
+    val recordsPerProducer = 2000
+    val executor = Executors.newFixedThreadPool(2 * nbProducers)
+    val producersAreDone = CountDownLatch(nbProducers)
+    val polledRecords = Collections.newSetFromMap(ConcurrentHashMap<Int, Boolean>())
+    val polledDuplicates = Collections.synchronizedList(mutableListOf<Int>())
+
+    for (producer in 0 until nbProducers) {
+      executor.execute {
+        for (i in 0 until recordsPerProducer) {
+          ringBuffer.offer(record(producer * recordsPerProducer + i))
+        }
+        producersAreDone.countDown()
+      }
+    }
+
+    for (consumer in 0 until nbProducers) {
+      executor.execute {
+        while (producersAreDone.count > 0 || ringBuffer.usedBytes() > 0) {
+          ringBuffer.poll(10).forEach {
+            if (!polledRecords.add(id(it))) {
+              polledDuplicates.add(id(it))
+            }
+          }
+        }
+      }
+    }
+
+    executor.shutdown()
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue()
+
+    assertThat(polledDuplicates).isEmpty()
+    assertThat(polledRecords).hasSize(nbProducers * recordsPerProducer)
+  }
+
+  private fun givenNewRingBuffer() {
+    ringBuffer = MappedRingBuffer.open(file, CAPACITY)
+  }
+
+  private fun record(id: Int): ByteArray {
+    return "record #${id.toString().padStart(5, '0')}".toByteArray()
+  }
+
+  private fun id(record: ByteArray): Int {
+    return String(record).removePrefix("record #").toInt()
+  }
+
+  private companion object {
+    const val CAPACITY = 1000
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm
+
+import com.criteo.publisher.csm.ObjectQueueFactory.AdapterConverter
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.util.JsonSerializer
+import com.squareup.tape.FileObjectQueue
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyNoInteractions
+import java.io.File
+import javax.inject.Inject
+
+class MappedSendingQueueTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Rule
+  @JvmField
+  val tempFolder = TemporaryFolder()
+
+  @Inject
+  private lateinit var jsonSerializer: JsonSerializer
+
+  @Mock
+  private lateinit var objectQueueFactory: ObjectQueueFactory<Metric>
+
+  @Mock
+  private lateinit var configuration: SendingQueueConfiguration<Metric>
+
+  @Mock
+  private lateinit var fallbackQueue: ConcurrentSendingQueue<Metric>
+
+  private lateinit var legacyFile: File
+
+  private lateinit var queue: MappedSendingQueue<Metric>
+
+  @Before
+  fun setUp() {
+    legacyFile = File(tempFolder.root, "queue")
+
+    objectQueueFactory.stub {
+      on { queueFile } doReturn legacyFile
+    }
+
+    configuration.stub {
+      on { maxSizeOfSendingQueue } doReturn 10 * 1024
+      on { elementClass } doReturn Metric::class.java
+    }
+
+    givenNewQueue()
+  }
+
+  @Test
+  fun poll_GivenOfferedMetricsAndNewQueue_ReturnThemInOrder() {
+    val metric1 = Metric.builder("id1").setCdbCallStartTimestamp(42L).build()
+    val metric2 = Metric.builder("id2").build()
+    val metric3 = Metric.builder("id3").setReadyToSend(true).build()
+
+    queue.offer(metric1)
+    queue.offerAll(listOf(metric2, metric3))
+    givenNewQueue()
+
+    assertThat(queue.totalSize).isPositive()
+    assertThat(queue.isEmpty).isFalse()
+    assertThat(queue.poll(2)).containsExactly(metric1, metric2)
+    assertThat(queue.poll(2)).containsExactly(metric3)
+    assertThat(queue.totalSize).isZero()
+    assertThat(queue.isEmpty).isTrue()
+    verifyNoInteractions(fallbackQueue)
+  }
+
+  @Test
+  fun poll_GivenLegacyQueueFile_ImportItsElementsAndDeleteIt() {
+    val metric1 = Metric.builder("id1").build()
+    val metric2 = Metric.builder("id2").build()
+
+    FileObjectQueue(legacyFile, AdapterConverter(jsonSerializer, Metric::class.java)).apply {
+      add(metric1)
+      add(metric2)
+      close()
+    }
+
+    queue.offer(Metric.builder("id3").build())
+
+    assertThat(queue.poll(2)).containsExactly(metric1, metric2)
+    assertThat(legacyFile).doesNotExist()
+  }
+
+  @Test
+  fun offer_GivenRingBufferThatCannotBeOpened_UseFallbackQueue() {
+    val metric = Metric.builder("id").build()
+    File(legacyFile.path + MappedSendingQueue.FILE_SUFFIX).mkdirs()
+
+    fallbackQueue.stub {
+      on { offer(metric) } doReturn true
+      on { poll(1) } doReturn listOf(metric)
+    }
+
+    assertThat(queue.offer(metric)).isTrue()
+    assertThat(queue.poll(1)).containsExactly(metric)
+    verify(fallbackQueue).offer(metric)
+  }
+
+  private fun givenNewQueue() {
+    queue = MappedSendingQueue(objectQueueFactory, jsonSerializer, configuration, fallbackQueue)
+  }
+}
@@ -16,17 +16,22 @@
 
 package com.criteo.publisher.csm
 
+import android.content.Context
 import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.util.BuildConfigWrapper
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.InjectMocks
+import org.mockito.Mock
 import org.mockito.junit.MockitoJUnit
 import org.mockito.kotlin.any
+import org.mockito.kotlin.anyOrNull
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.spy
 import org.mockito.kotlin.stub
+import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.io.File
 import java.io.FilenameFilter
@@ -41,6 +46,12 @@ class MetricDirectoryUnitTest {
   @JvmField
   val mockedDependenciesRule = MockedDependenciesRule()
 
+  @Mock
+  private lateinit var context: Context
+
+  @Mock
+  private lateinit var buildConfigWrapper: BuildConfigWrapper
+
   @InjectMocks
   private lateinit var directory: MetricDirectory
 
@@ -58,4 +69,20 @@ class MetricDirectoryUnitTest {
 
     assertThat(files).isEmpty()
   }
+
+  @Test
+  fun getDirectoryFile_CalledTwice_ResolveDirectoryOnlyOnce() {
+    val directoryFile = mock<File>()
+
+    context.stub {
+      on { getDir(anyOrNull(), any()) } doReturn directoryFile
+    }
+
+    val file1 = directory.directoryFile
+    val file2 = directory.directoryFile
+
+    assertThat(file1).isSameAs(directoryFile)
+    assertThat(file2).isSameAs(directoryFile)
+    verify(context).getDir(anyOrNull(), any())
+  }
 }
@@ -81,6 +81,38 @@ class MetricRequestTest {
     ))
   }
 
+  @Test
+  fun create_GivenMetricsOfSameCdbCall_PackThemIntoFeedbacksWithManySlots() {
+    val builder = { impressionId: String ->
+      Metric.builder(impressionId)
+          .setRequestGroupId("requestId")
+          .setCdbCallStartTimestamp(1L)
+          .setCdbCallEndTimestamp(43L)
+    }
+
+    val metric1 = builder("id1").build()
+    val metric2 = builder("id2").setCachedBidUsed(true).setElapsedTimestamp(1338L).setZoneId(1339).build()
+    val metric3 = builder("id3").setZoneId(42).build()
+    val metric4 = builder("id4").setRequestGroupId("otherRequestId").build()
+    val metric5 = Metric.builder("id5").build()
+    val metric6 = Metric.builder("id6").build()
+
+    val request = MetricRequest(listOf(metric1, metric2, metric3, metric4, metric5, metric6), "1.2.3", 456)
+
+    assertThat(request.feedbacks).hasSize(5)
+    assertThat(request.feedbacks[0].slots).containsExactly(
+        MetricRequest.MetricRequestSlot("id1", null, false),
+        MetricRequest.MetricRequestSlot("id3", 42, false)
+    )
+    assertThat(request.feedbacks[0].cdbCallEndElapsed).isEqualTo(43L - 1)
+    assertThat(request.feedbacks[0].elapsed).isNull()
+    assertThat(request.feedbacks[1]).matchConsumedBidMetric("id2")
+    assertThat(request.feedbacks[2].slots).extracting("impressionId").containsExactly("id4")
+    assertThat(request.feedbacks[2].requestGroupId).isEqualTo("otherRequestId")
+    assertThat(request.feedbacks[3]).matchEmptyMetric("id5")
+    assertThat(request.feedbacks[4]).matchEmptyMetric("id6")
+  }
+
   @Test
   fun create_GivenEmptyMetric_ReturnRequestFullOfNulls() {
     val metric = Metric.builder("id")
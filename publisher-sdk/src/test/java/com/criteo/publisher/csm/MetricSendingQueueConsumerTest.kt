@@ -23,17 +23,20 @@ import com.criteo.publisher.mock.SpyBean
 import com.criteo.publisher.model.Config
 import com.criteo.publisher.network.PubSdkApi
 import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.Mock
 import org.mockito.junit.MockitoJUnit
 import org.mockito.kotlin.any
+import org.mockito.kotlin.check
 import org.mockito.kotlin.clearInvocations
 import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doNothing
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.never
 import org.mockito.kotlin.stub
 import org.mockito.kotlin.verify
@@ -41,6 +44,8 @@ import org.mockito.kotlin.verifyNoInteractions
 import org.mockito.kotlin.verifyNoMoreInteractions
 import org.mockito.kotlin.whenever
 import java.io.IOException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
 
 class MetricSendingQueueConsumerTest {
 
@@ -64,6 +69,9 @@ class MetricSendingQueueConsumerTest {
   @SpyBean
   private lateinit var config: Config
 
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
   private val executor = DirectMockExecutor()
 
   private lateinit var consumer: MetricSendingQueueConsumer
@@ -79,7 +87,8 @@ class MetricSendingQueueConsumerTest {
         api,
         buildConfigWrapper,
         config,
-        executor
+        executor,
+        scheduledExecutorService
     )
   }
 
@@ -125,8 +134,9 @@ class MetricSendingQueueConsumerTest {
 
     consumer.sendMetricBatch()
 
-    verify(queue).offer(metric1)
-    verify(queue).offer(metric2)
+    verify(queue).offerAll(check {
+      assertThat(it).containsExactlyInAnyOrder(metric1, metric2)
+    })
   }
 
   @Test
@@ -189,10 +199,9 @@ class MetricSendingQueueConsumerTest {
 
     consumer.sendMetricBatch()
 
-    verify(queue, never()).offer(metric1)
-    verify(queue).offer(metric2)
-    verify(queue, never()).offer(metric3)
-    verify(queue).offer(metric4)
+    verify(queue).offerAll(check {
+      assertThat(it).containsExactlyInAnyOrder(metric2, metric4)
+    })
   }
 
   @Test
@@ -245,4 +254,44 @@ class MetricSendingQueueConsumerTest {
     verify(api).postCsm(any())
     executor.verifyExpectations()
   }
+
+  @Test
+  fun sendMetricBatch_GivenRemainingMetricsAfterSending_ScheduleAnotherSending() {
+    buildConfigWrapper.stub {
+      on { sendingQueueRetryDelayInMillis } doReturn 42
+    }
+
+    queue.stub {
+      on { poll(any()) } doReturn listOf(Metric.builder("id1").build())
+      on { isEmpty } doReturn false
+    }
+
+    consumer = MetricSendingQueueConsumer(
+        queue,
+        api,
+        buildConfigWrapper,
+        config,
+        executor,
+        scheduledExecutorService
+    )
+
+    consumer.sendMetricBatch()
+
+    verify(api).postCsm(any())
+    verify(scheduledExecutorService).schedule(any<Runnable>(), eq(42L), eq(TimeUnit.MILLISECONDS))
+  }
+
+  @Test
+  fun sendMetricBatch_GivenEmptyQueueWithMetadataAfterSending_DoNotScheduleAnotherSending() {
+    queue.stub {
+      on { poll(any()) } doReturn listOf(Metric.builder("id1").build())
+      on { totalSize } doReturn BatchQueueFile.HEADER_LENGTH
+      on { isEmpty } doReturn true
+    }
+
+    consumer.sendMetricBatch()
+
+    verify(api).postCsm(any())
+    verify(scheduledExecutorService, never()).schedule(any<Runnable>(), any(), any())
+  }
 }
@@ -18,6 +18,7 @@ package com.criteo.publisher.csm
 
 import android.util.AtomicFile
 import com.criteo.publisher.util.JsonSerializer
+import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assertions.assertThatCode
 import org.junit.Before
 import org.junit.Rule
@@ -30,6 +31,7 @@ import org.mockito.kotlin.doThrow
 import org.mockito.kotlin.inOrder
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.spy
+import org.mockito.kotlin.verifyNoInteractions
 import org.mockito.kotlin.whenever
 
 class SyncMetricFileTest {
@@ -109,4 +111,38 @@ class SyncMetricFileTest {
     inOrder.verify(metricFile).write(metric)
     inOrder.verifyNoMoreInteractions()
   }
+
+  @Test
+  fun moveWith_GivenSuccessfulMove_CloseIt() {
+    val metric = Metric.builder("id").build()
+    doReturn(metric).whenever(metricFile).read()
+
+    metricFile.moveWith { true }
+
+    assertThat(metricFile.isClosed).isTrue()
+  }
+
+  @Test
+  fun moveWith_GivenUnsuccessfulMove_DoNotCloseIt() {
+    val metric = Metric.builder("id").build()
+    doReturn(metric).whenever(metricFile).read()
+    doNothing().whenever(metricFile).write(metric)
+
+    metricFile.moveWith { false }
+
+    assertThat(metricFile.isClosed).isFalse()
+  }
+
+  @Test
+  fun close_GivenClosedFile_RefuseAnyOperation() {
+    val updater = mock<MetricRepository.MetricUpdater>()
+    val mover = mock<MetricMover>()
+
+    metricFile.close()
+
+    assertThat(metricFile.read()).isNull()
+    assertThat(metricFile.update(updater)).isFalse()
+    assertThat(metricFile.moveWith(mover)).isFalse()
+    verifyNoInteractions(updater, mover, atomicFile)
+  }
 }
@@ -17,7 +17,9 @@
 package com.criteo.publisher.csm
 
 import com.criteo.publisher.csm.ObjectQueueFactory.AdapterConverter
+import com.criteo.publisher.csm.TapeSendingQueueTest.Companion.TapeImplementation.EMPTY_BATCH_QUEUE_FILE
 import com.criteo.publisher.csm.TapeSendingQueueTest.Companion.TapeImplementation.EMPTY_QUEUE_FILE
+import com.criteo.publisher.csm.TapeSendingQueueTest.Companion.TapeImplementation.NEW_BATCH_FILE
 import com.criteo.publisher.csm.TapeSendingQueueTest.Companion.TapeImplementation.NEW_FILE
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
@@ -27,6 +29,7 @@ import com.squareup.tape.FileException
 import com.squareup.tape.FileObjectQueue
 import com.squareup.tape.InMemoryObjectQueue
 import com.squareup.tape.ObjectQueue
+import com.squareup.tape.QueueFile
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assumptions.assumeThat
 import org.junit.Before
@@ -44,12 +47,14 @@ import org.mockito.kotlin.doNothing
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
 import org.mockito.kotlin.spy
 import org.mockito.kotlin.stub
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.verifyNoInteractions
 import org.mockito.kotlin.whenever
 import org.mockito.stubbing.Answer
+import java.io.ByteArrayOutputStream
 import java.io.File
 import java.util.Collections
 import java.util.concurrent.ConcurrentHashMap
@@ -83,6 +88,8 @@ class TapeSendingQueueTest(private val tapeImplementation: TapeImplementation) {
     enum class TapeImplementation {
       NEW_FILE,
       EMPTY_QUEUE_FILE,
+      NEW_BATCH_FILE,
+      EMPTY_BATCH_QUEUE_FILE,
       IN_MEMORY
     }
   }
@@ -277,10 +284,10 @@ class TapeSendingQueueTest(private val tapeImplementation: TapeImplementation) {
       fileTapeQueue.add(it.getArgument(0))
     }.doAnswer {
       // Reproduce bug: bytes full of zero are written
-      queue.getQueueFile(fileTapeQueue).add(ByteArray(42))
+      fileTapeQueue.getQueueFile().add(ByteArray(42))
     }.doAnswer {
       // Reproduce bug: empty byte array
-      queue.getQueueFile(fileTapeQueue).add(ByteArray(0))
+      fileTapeQueue.getQueueFile().add(ByteArray(0))
     }.doAnswer {
       fileTapeQueue.add(it.getArgument(0))
     }.whenever(tapeQueue).add(any())
@@ -298,6 +305,108 @@ class TapeSendingQueueTest(private val tapeImplementation: TapeImplementation) {
     assertThat(metrics).hasSize(2).containsExactly(metric1, metric4)
   }
 
+  @Test
+  fun poll_GivenZeroByteArrayInBatchQueueFile_RecoverByRemovingBuggyElements() {
+    assumeThat(tapeQueue).isInstanceOf(BatchFileObjectQueue::class.java)
+
+    val metric1 = Metric.builder("id1").build()
+    val metric2 = Metric.builder("id2").build()
+
+    // Write sane and buggy data with a legacy queue, the format of the file is the same
+    val fileTapeQueue = createFileObjectQueue()
+    fileTapeQueue.add(metric1)
+    fileTapeQueue.getQueueFile().add(ByteArray(42))
+    fileTapeQueue.getQueueFile().add(ByteArray(0))
+    fileTapeQueue.add(metric2)
+    fileTapeQueue.close()
+
+    tapeQueue = createBatchFileObjectQueue()
+    givenQueueCreatedBy(tapeQueue)
+    val metrics = queue.poll(4)
+
+    assertThat(metrics).containsExactly(metric1, metric2)
+    assertThat(tapeQueue.size()).isEqualTo(0)
+  }
+
+  @Test
+  fun offerAll_GivenMetrics_PollThemInOrder() {
+    val metric1 = mockMetric(1)
+    val metric2 = mockMetric(2)
+    val metric3 = mockMetric(3)
+
+    queue.offer(metric1)
+    val isOffered = queue.offerAll(listOf(metric2, metric3))
+
+    // Create new instance of TapeMetricSendingQueue to force recreating the queue reference when polling
+    queue = TapeSendingQueue(objectQueueFactory, sendingQueueConfiguration)
+
+    assertThat(isOffered).isTrue()
+    assertThat(queue.poll(2)).containsExactly(metric1, metric2)
+    assertThat(queue.poll(2)).containsExactly(metric3)
+  }
+
+  @Test
+  fun offerAll_GivenBatchQueue_AddAllMetricsAtOnce() {
+    assumeThat(tapeQueue).isInstanceOf(BatchFileObjectQueue::class.java)
+    val metrics = listOf(mockMetric(1), mockMetric(2))
+
+    queue.offerAll(metrics)
+
+    verify(tapeQueue as BatchFileObjectQueue<Metric>).addAll(metrics)
+    verify(tapeQueue, never()).add(any())
+  }
+
+  @Test
+  fun offerAll_GivenExceptionWhileAddingMetrics_ReturnFalse() {
+    givenDeactivatedPreconditionUtils()
+    givenMockedTapeQueue()
+
+    doThrow(FileException::class).whenever(tapeQueue).add(any())
+
+    val isOffered = queue.offerAll(listOf(mockMetric()))
+
+    assertThat(isOffered).isFalse()
+  }
+
+  @Test
+  fun getTotalSize_GivenBatchQueue_ReturnUsedBytesOfQueueFile() {
+    assumeThat(tapeQueue).isInstanceOf(BatchFileObjectQueue::class.java)
+
+    queue.offerAll(listOf(mockMetric(1), mockMetric(2)))
+    val size = queue.totalSize
+    queue.poll(2)
+
+    val metricSize = ByteArrayOutputStream().apply { jsonSerializer.write(mockMetric(1), this) }.size()
+    assertThat(size).isEqualTo(BatchQueueFile.HEADER_LENGTH + 2 * (4 + metricSize))
+    assertThat(queue.totalSize).isEqualTo(BatchQueueFile.HEADER_LENGTH)
+  }
+
+  @Test
+  fun isEmpty_GivenNewQueue_ReturnTrueEvenIfQueueHasMetadata() {
+    assertThat(queue.isEmpty).isTrue()
+  }
+
+  @Test
+  fun isEmpty_AfterOfferAndPollOfAllMetrics_ReturnTrue() {
+    queue.offerAll(listOf(mockMetric(1), mockMetric(2)))
+    val isEmptyWithMetrics = queue.isEmpty
+    queue.poll(2)
+
+    assertThat(isEmptyWithMetrics).isFalse()
+    assertThat(queue.isEmpty).isTrue()
+  }
+
+  @Test
+  fun isEmpty_GivenEmptyBatchQueue_ReturnTrueWhileTotalSizeIsTheHeaderOne() {
+    assumeThat(tapeQueue).isInstanceOf(BatchFileObjectQueue::class.java)
+
+    queue.offer(mockMetric())
+    queue.poll(1)
+
+    assertThat(queue.totalSize).isEqualTo(BatchQueueFile.HEADER_LENGTH)
+    assertThat(queue.isEmpty).isTrue()
+  }
+
   @Test
   fun poll_GivenManyWorkersInParallel_ShouldNotProduceDuplicate() {
     for (id in 0 until 2000) {
@@ -341,6 +450,19 @@ class TapeSendingQueueTest(private val tapeImplementation: TapeImplementation) {
         createFileObjectQueue()
         createFileObjectQueue()
       }
+      NEW_BATCH_FILE -> {
+        file = tempFolder.newFile().apply {
+          delete()
+        }
+        createBatchFileObjectQueue()
+      }
+      EMPTY_BATCH_QUEUE_FILE -> {
+        file = tempFolder.newFile().apply {
+          delete()
+        }
+        createBatchFileObjectQueue()
+        createBatchFileObjectQueue()
+      }
       TapeImplementation.IN_MEMORY -> {
         InMemoryObjectQueue()
       }
@@ -349,8 +471,20 @@ class TapeSendingQueueTest(private val tapeImplementation: TapeImplementation) {
 
   private fun createFileObjectQueue() = FileObjectQueue(file, AdapterConverter(jsonSerializer, Metric::class.java))
 
+  private fun createBatchFileObjectQueue() = BatchFileObjectQueue(file!!, AdapterConverter(jsonSerializer, Metric::class.java))
+
+  private fun FileObjectQueue<*>.getQueueFile(): QueueFile {
+    val queueFileField = FileObjectQueue::class.java.getDeclaredField("queueFile")
+    queueFileField.isAccessible = true
+    return queueFileField.get(this) as QueueFile
+  }
+
   private fun givenMockedTapeQueue(defaultAnswer: Answer<Any>? = null) {
     tapeQueue = mock(defaultAnswer = defaultAnswer)
+    givenQueueCreatedBy(tapeQueue)
+  }
+
+  private fun givenQueueCreatedBy(tapeQueue: ObjectQueue<Metric>) {
     doReturn(tapeQueue).whenever(objectQueueFactory).create()
     queue = TapeSendingQueue(objectQueueFactory, sendingQueueConfiguration)
   }
@@ -0,0 +1,249 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm
+
+import com.criteo.publisher.csm.MetricRepository.MetricUpdater
+import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.inOrder
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class WriteBehindMetricRepositoryTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var delegate: MetricRepository
+
+  @Mock
+  private lateinit var buildConfigWrapper: BuildConfigWrapper
+
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
+  private val executor = Executor { it.run() }
+
+  private lateinit var repository: WriteBehindMetricRepository
+
+  @Before
+  fun setUp() {
+    buildConfigWrapper.stub {
+      on { csmMetricWriteDelayInMillis } doReturn 42
+    }
+
+    repository = WriteBehindMetricRepository(
+        delegate,
+        buildConfigWrapper,
+        executor,
+        scheduledExecutorService
+    )
+  }
+
+  @Test
+  fun addOrUpdateById_GivenSeveralUpdates_WriteThemOnceAfterDelay() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(1L) }
+    repository.addOrUpdateById("id") { it.setCdbCallEndTimestamp(2L) }
+    repository.addOrUpdateById("id") { it.setZoneId(3) }
+
+    verify(delegate, never()).addOrUpdateById(any(), any())
+    val scheduledWrite = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(scheduledWrite.capture(), eq(42L), eq(TimeUnit.MILLISECONDS))
+
+    scheduledWrite.firstValue.run()
+
+    assertThat(writtenMetric("id")).isEqualTo(
+        Metric.builder("id")
+            .setCdbCallStartTimestamp(1L)
+            .setCdbCallEndTimestamp(2L)
+            .setZoneId(3)
+            .build()
+    )
+  }
+
+  @Test
+  fun addOrUpdateById_GivenPendingUpdates_ContainsIt() {
+    repository.addOrUpdateById("id") { }
+
+    assertThat(repository.contains("id")).isTrue()
+    assertThat(repository.contains("otherId")).isFalse()
+  }
+
+  @Test
+  fun moveById_GivenMetricOnlyInMemory_MoveItWithoutWriting() {
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn true
+    }
+
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(1L) }
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+    repository.moveById("id", mover)
+    repository.writePendingUpdates()
+
+    verify(mover).offerToDestination(
+        Metric.builder("id")
+            .setCdbCallStartTimestamp(1L)
+            .setReadyToSend(true)
+            .build()
+    )
+    verify(delegate, never()).addOrUpdateById(any(), any())
+    verify(delegate, never()).moveById(any(), any())
+    assertThat(repository.contains("id")).isFalse()
+  }
+
+  @Test
+  fun moveById_GivenMetricOnlyInMemoryAndUnsuccessfulMove_KeepItPending() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(1L) }
+    repository.moveById("id") { false }
+
+    assertThat(repository.contains("id")).isTrue()
+
+    repository.writePendingUpdates()
+
+    assertThat(writtenMetric("id")).isEqualTo(
+        Metric.builder("id").setCdbCallStartTimestamp(1L).build()
+    )
+  }
+
+  @Test
+  fun moveById_GivenMetricInDelegateWithPendingUpdates_WriteThenMoveInDelegate() {
+    val mover = mock<MetricMover>()
+
+    delegate.stub {
+      on { contains("id") } doReturn true
+    }
+
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+    repository.moveById("id", mover)
+
+    inOrder(delegate) {
+      verify(delegate).addOrUpdateById(eq("id"), any())
+      verify(delegate).moveById("id", mover)
+    }
+  }
+
+  @Test
+  fun moveById_GivenNoPendingUpdates_DelegateToIt() {
+    val mover = mock<MetricMover>()
+
+    repository.moveById("id", mover)
+
+    verify(delegate).moveById("id", mover)
+  }
+
+  @Test
+  fun onApplicationStopped_GivenPendingUpdates_WriteThem() {
+    repository.addOrUpdateById("id1") { }
+    repository.addOrUpdateById("id2") { }
+
+    repository.onApplicationStopped()
+
+    verify(delegate).addOrUpdateById(eq("id1"), any())
+    verify(delegate).addOrUpdateById(eq("id2"), any())
+    assertThat(repository.contains("id1")).isFalse()
+  }
+
+  @Test
+  fun addOrUpdateById_AfterPendingUpdatesAreWritten_ScheduleNewWrite() {
+    repository.addOrUpdateById("id1") { }
+    repository.addOrUpdateById("id2") { }
+    repository.writePendingUpdates()
+    repository.addOrUpdateById("id3") { }
+
+    verify(scheduledExecutorService, times(2)).schedule(any<Runnable>(), any(), any())
+  }
+
+  @Test
+  fun writePendingUpdates_GivenFailingUpdate_WriteOtherMetrics() {
+    doAnswer {
+      it.getArgument<MetricUpdater>(1).update(Metric.builder("id"))
+    }.whenever(delegate).addOrUpdateById(any(), any())
+
+    repository.addOrUpdateById("id1") { throw IllegalStateException() }
+    repository.addOrUpdateById("id2") { }
+
+    repository.writePendingUpdates()
+
+    verify(delegate).addOrUpdateById(eq("id2"), any())
+  }
+
+  @Test
+  fun getTotalSize_GivenPendingMetrics_AddEstimatedSizeOfNewOnes() {
+    buildConfigWrapper.stub {
+      on { estimatedSizeOfCsmMetric } doReturn 100
+    }
+    delegate.stub {
+      on { totalSize } doReturn 1000
+      on { contains("alreadyWritten") } doReturn true
+    }
+
+    repository.addOrUpdateById("id1") { }
+    repository.addOrUpdateById("id1") { }
+    repository.addOrUpdateById("id2") { }
+    repository.addOrUpdateById("alreadyWritten") { }
+
+    assertThat(repository.totalSize).isEqualTo(1200)
+
+    repository.writePendingUpdates()
+
+    assertThat(repository.totalSize).isEqualTo(1000)
+  }
+
+  @Test
+  fun addOrUpdateById_GivenBoundedRepositoryAndTonsOfPendingMetrics_KeepOnlyMetricsWithinBound() {
+    buildConfigWrapper.stub {
+      on { estimatedSizeOfCsmMetric } doReturn 100
+      on { maxSizeOfCsmMetricsFolder } doReturn 1000
+    }
+    val boundedRepository = BoundedMetricRepository(repository, buildConfigWrapper)
+
+    for (i in 0 until 100) {
+      boundedRepository.addOrUpdateById("id$i") { }
+    }
+    repository.writePendingUpdates()
+
+    verify(delegate, times(10)).addOrUpdateById(any(), any())
+  }
+
+  private fun writtenMetric(impressionId: String): Metric {
+    val updater = argumentCaptor<MetricUpdater>()
+    verify(delegate).addOrUpdateById(eq(impressionId), updater.capture())
+
+    val builder = Metric.builder(impressionId)
+    updater.firstValue.update(builder)
+    return builder.build()
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class DropOldestRingBufferTest {
+
+  @Test
+  fun new_GivenNonPositiveCapacity_Throw() {
+    assertThatCode { DropOldestRingBuffer<Int>(0) }.isInstanceOf(IllegalArgumentException::class.java)
+  }
+
+  @Test
+  fun poll_GivenEmptyBuffer_ReturnNull() {
+    val buffer = DropOldestRingBuffer<Int>(4)
+
+    assertThat(buffer.poll()).isNull()
+    assertThat(buffer.pollDroppedCount()).isZero()
+  }
+
+  @Test
+  fun poll_GivenOfferedElements_ReturnThemInOrder() {
+    val buffer = DropOldestRingBuffer<Int>(4)
+
+    buffer.offer(1)
+    buffer.offer(2)
+    assertThat(buffer.poll()).isEqualTo(1)
+
+    buffer.offer(3)
+    assertThat(buffer.poll()).isEqualTo(2)
+    assertThat(buffer.poll()).isEqualTo(3)
+    assertThat(buffer.poll()).isNull()
+  }
+
+  @Test
+  fun poll_GivenElementsWrappingAroundEndOfBuffer_ReturnThemInOrder() {
+    val buffer = DropOldestRingBuffer<Int>(3)
+
+    for (i in 0 until 100) {
+      buffer.offer(i)
+      buffer.offer(-i)
+      assertThat(buffer.poll()).isEqualTo(i)
+      assertThat(buffer.poll()).isEqualTo(-i)
+    }
+
+    assertThat(buffer.poll()).isNull()
+    assertThat(buffer.pollDroppedCount()).isZero()
+  }
+
+  @Test
+  fun offer_GivenFullBuffer_DropOldestElementsAndCountThem() {
+    val buffer = DropOldestRingBuffer<Int>(3)
+
+    for (i in 0 until 8) {
+      buffer.offer(i)
+    }
+
+    assertThat(buffer.poll()).isEqualTo(5)
+    assertThat(buffer.poll()).isEqualTo(6)
+    assertThat(buffer.poll()).isEqualTo(7)
+    assertThat(buffer.poll()).isNull()
+    assertThat(buffer.pollDroppedCount()).isEqualTo(5)
+    assertThat(buffer.pollDroppedCount()).isZero()
+  }
+
+  @Test
+  fun poll_GivenConcurrentProducers_EveryElementIsEitherPolledOnceOrDropped() {
+    val buffer = DropOldestRingBuffer<Int>(16)
+
+    val nbProducers = 4
+    val elementsPerProducer = 10000
+    val executor = Executors.newFixedThreadPool(nbProducers)
+    val producersAreDone = CountDownLatch(nbProducers)
+
+    for (producer in 0 until nbProducers) {
+      executor.execute {
+        for (i in 0 until elementsPerProducer) {
+          buffer.offer(producer * elementsPerProducer + i)
+        }
+        producersAreDone.countDown()
+      }
+    }
+
+    val polledElements = mutableListOf<Int>()
+    var droppedCount = 0L
+    while (producersAreDone.count > 0) {
+      polledElements.addAll(generateSequence { buffer.poll() })
+      droppedCount += buffer.pollDroppedCount()
+    }
+    polledElements.addAll(generateSequence { buffer.poll() })
+    droppedCount += buffer.pollDroppedCount()
+
+    executor.shutdown()
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue()
+
+    assertThat(polledElements).doesNotHaveDuplicates()
+    assertThat(polledElements.size + droppedCount).isEqualTo(nbProducers * elementsPerProducer.toLong())
+  }
+}
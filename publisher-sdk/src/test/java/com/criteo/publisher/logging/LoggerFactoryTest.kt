@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+import com.criteo.publisher.dependency.LazyDependency
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.mockito.kotlin.mock
+
+class LoggerFactoryTest {
+
+  private val loggerFactory = LoggerFactory(listOf(LazyDependency { mock<LogHandler>() }))
+
+  @Test
+  fun createLogger_GivenSameClass_ReturnSameLogger() {
+    val logger1 = loggerFactory.createLogger(String::class.java)
+    val logger2 = loggerFactory.createLogger(String::class.java)
+
+    assertThat(logger1).isSameAs(logger2)
+  }
+
+  @Test
+  fun createLogger_GivenDifferentClasses_ReturnDifferentLoggers() {
+    val logger1 = loggerFactory.createLogger(String::class.java)
+    val logger2 = loggerFactory.createLogger(Int::class.java)
+
+    assertThat(logger1).isNotSameAs(logger2)
+  }
+}
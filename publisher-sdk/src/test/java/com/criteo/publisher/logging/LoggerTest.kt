@@ -19,6 +19,7 @@ package com.criteo.publisher.logging
 import android.util.Log
 import com.criteo.publisher.CriteoNotInitializedException
 import com.criteo.publisher.dependency.LazyDependency
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
@@ -27,9 +28,12 @@ import org.mockito.junit.MockitoJUnit
 import org.mockito.junit.MockitoRule
 import org.mockito.kotlin.any
 import org.mockito.kotlin.argThat
+import org.mockito.kotlin.clearInvocations
+import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
 import org.mockito.kotlin.inOrder
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
 import org.mockito.kotlin.spy
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
@@ -50,9 +54,103 @@ class LoggerTest {
 
   @Before
   fun setUp() {
+    whenever(handler1.isLoggable(any())).doReturn(true)
+    whenever(handler2.isLoggable(any())).doReturn(true)
+
     logger = spy(Logger("myTag", listOf(LazyDependency { handler1 }, LazyDependency { handler2 })))
   }
 
+  @Test
+  fun isLoggable_GivenHandlersNotCreatedYet_ReturnTrue() {
+    var isHandlerCreated = false
+    logger = Logger("myTag", listOf(LazyDependency {
+      isHandlerCreated = true
+      handler1
+    }))
+
+    assertThat(logger.isLoggable(Log.DEBUG)).isTrue()
+    assertThat(isHandlerCreated).isFalse()
+  }
+
+  @Test
+  fun isLoggable_GivenOneHandlerAcceptingLevel_ReturnTrue() {
+    givenCreatedHandlers()
+    whenever(handler1.isLoggable(Log.DEBUG)).doReturn(false)
+    whenever(handler2.isLoggable(Log.DEBUG)).doReturn(true)
+
+    assertThat(logger.isLoggable(Log.DEBUG)).isTrue()
+  }
+
+  @Test
+  fun isLoggable_GivenNoHandlerAcceptingLevel_ReturnFalse() {
+    givenCreatedHandlers()
+    whenever(handler1.isLoggable(Log.DEBUG)).doReturn(false)
+    whenever(handler2.isLoggable(Log.DEBUG)).doReturn(false)
+
+    assertThat(logger.isLoggable(Log.DEBUG)).isFalse()
+  }
+
+  @Test
+  fun debug_GivenNoHandlerAcceptingDebugLevel_DoNotFormatNorDelegate() {
+    givenCreatedHandlers()
+    clearInvocations(handler1, handler2)
+    whenever(handler1.isLoggable(Log.DEBUG)).doReturn(false)
+    whenever(handler2.isLoggable(Log.DEBUG)).doReturn(false)
+    var isFormatted = false
+    val arg = object {
+      override fun toString(): String {
+        isFormatted = true
+        return "World"
+      }
+    }
+
+    logger.debug("Hello %s", arg)
+    logger.debug("Hello", Exception())
+    logger.debug(Exception())
+
+    verify(handler1, never()).log(any(), any())
+    verify(handler2, never()).log(any(), any())
+    assertThat(isFormatted).isFalse()
+  }
+
+  @Test
+  fun log_GivenNoHandlerAcceptingLevel_DoNotDelegate() {
+    givenCreatedHandlers()
+    clearInvocations(handler1, handler2)
+    whenever(handler1.isLoggable(Log.INFO)).doReturn(false)
+    whenever(handler2.isLoggable(Log.INFO)).doReturn(false)
+
+    logger.log(LogMessage(Log.INFO, "message"))
+
+    verify(handler1, never()).log(any(), any())
+    verify(handler2, never()).log(any(), any())
+  }
+
+  @Test
+  fun logExtension_GivenNoHandlerAcceptingLevel_DoNotBuildMessage() {
+    givenCreatedHandlers()
+    whenever(handler1.isLoggable(Log.INFO)).doReturn(false)
+    whenever(handler2.isLoggable(Log.INFO)).doReturn(false)
+    var isMessageBuilt = false
+
+    logger.log(Log.INFO) {
+      isMessageBuilt = true
+      LogMessage(Log.INFO, "message")
+    }
+
+    assertThat(isMessageBuilt).isFalse()
+  }
+
+  @Test
+  fun logExtension_GivenHandlerAcceptingLevel_DelegateBuiltMessage() {
+    val logMessage = LogMessage(Log.INFO, "message")
+
+    logger.log(Log.INFO) { logMessage }
+
+    verify(handler1).log("myTag", logMessage)
+    verify(handler2).log("myTag", logMessage)
+  }
+
   @Test
   fun debug_GivenMessageAndArgs_DelegateFormattedMessage() {
     logger.debug("Hello %s", "World")
@@ -190,4 +288,9 @@ class LoggerTest {
       verifyNoMoreInteractions()
     }
   }
+
+  private fun givenCreatedHandlers() {
+    // Handlers are only created on the first log
+    logger.log(LogMessage(Log.INFO, "first message"))
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class PrefixTrieTest {
+
+  @Test
+  fun matchesPrefixOf_GivenNoPrefix_ReturnFalse() {
+    val trie = PrefixTrie(listOf())
+
+    assertThat(trie.matchesPrefixOf("")).isFalse()
+    assertThat(trie.matchesPrefixOf("java.lang.Object")).isFalse()
+  }
+
+  @Test
+  fun matchesPrefixOf_GivenEmptyPrefix_ReturnTrue() {
+    val trie = PrefixTrie(listOf(""))
+
+    assertThat(trie.matchesPrefixOf("")).isTrue()
+    assertThat(trie.matchesPrefixOf("java.lang.Object")).isTrue()
+  }
+
+  @Test
+  fun matchesPrefixOf_GivenPrefixes_ReturnTrueOnlyIfValueStartsWithOneOfThem() {
+    val trie = PrefixTrie(listOf("java.", "javax.", "com.android.", "com.google", "android."))
+
+    assertThat(trie.matchesPrefixOf("java.lang.Object")).isTrue()
+    assertThat(trie.matchesPrefixOf("javax.net.SocketFactory")).isTrue()
+    assertThat(trie.matchesPrefixOf("com.android.internal.os.ZygoteInit")).isTrue()
+    assertThat(trie.matchesPrefixOf("com.google")).isTrue()
+    assertThat(trie.matchesPrefixOf("com.googlex.Foo")).isTrue()
+    assertThat(trie.matchesPrefixOf("android.os.Handler")).isTrue()
+
+    assertThat(trie.matchesPrefixOf("java")).isFalse()
+    assertThat(trie.matchesPrefixOf("javaa.Foo")).isFalse()
+    assertThat(trie.matchesPrefixOf("com.criteo.publisher.Criteo")).isFalse()
+    assertThat(trie.matchesPrefixOf("com.androidx.Foo")).isFalse()
+    assertThat(trie.matchesPrefixOf("org.android.Foo")).isFalse()
+    assertThat(trie.matchesPrefixOf("")).isFalse()
+  }
+
+  @Test
+  fun matchesPrefixOf_GivenNestedPrefixes_ReturnTrueForShortestOne() {
+    val trie = PrefixTrie(listOf("com.squareup.moshi.", "com."))
+
+    assertThat(trie.matchesPrefixOf("com.dummypublisher.Foo")).isTrue()
+    assertThat(trie.matchesPrefixOf("com.squareup.moshi.Moshi")).isTrue()
+  }
+}
@@ -17,27 +17,38 @@
 package com.criteo.publisher.logging
 
 import android.util.Log
+import com.criteo.publisher.Clock
 import com.criteo.publisher.dependency.LazyDependency
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogContext
 import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogRecord
+import com.criteo.publisher.logging.RemoteLoggingLogMessage.onRemoteLogsDropped
 import com.criteo.publisher.mock.MockBean
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.model.Config
 import com.criteo.publisher.privacy.ConsentData
+import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
 import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
 import org.mockito.kotlin.atLeastOnce
-import org.mockito.kotlin.atMost
 import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
-import org.mockito.kotlin.spy
-import org.mockito.kotlin.times
+import org.mockito.kotlin.never
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.verifyNoInteractions
 import org.mockito.kotlin.verifyNoMoreInteractions
 import org.mockito.kotlin.whenever
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
 import javax.inject.Inject
 
 class RemoteHandlerTest {
@@ -46,6 +57,10 @@ class RemoteHandlerTest {
   @JvmField
   val mockedDependenciesRule = MockedDependenciesRule()
 
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
   @MockBean
   private lateinit var config: Config
 
@@ -58,9 +73,17 @@ class RemoteHandlerTest {
   @MockBean
   private lateinit var consentData: ConsentData
 
+  @MockBean
+  private lateinit var clock: Clock
+
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
   @Inject
   private lateinit var remoteHandler: RemoteHandler
 
+  private val submittedTasks = mutableListOf<Runnable>()
+
   @Before
   fun setUp() {
     whenever(config.remoteLogLevel).doReturn(RemoteLogLevel.DEBUG)
@@ -75,17 +98,17 @@ class RemoteHandlerTest {
 
     whenever(config.remoteLogLevel).doReturn(RemoteLogLevel.WARNING)
 
-    val logRecords = mock<RemoteLogRecords>()
-    whenever(remoteLogRecordsFactory.createLogRecords(any())).thenReturn(logRecords)
+    val logRecords = givenLogRecords()
+    whenever(remoteLogRecordsFactory.createLogRecords(any(), any(), any())).thenReturn(logRecords)
 
     remoteHandler.log("tag", info)
     remoteHandler.log("tag", warning)
     remoteHandler.log("tag", error)
     mockedDependenciesRule.waitForIdleState()
 
-    verify(sendingQueue, times(2)).offer(any())
-    verify(remoteLogRecordsFactory).createLogRecords(warning)
-    verify(remoteLogRecordsFactory).createLogRecords(error)
+    assertThat(offeredLogRecords().flatMap { it.logRecords }).hasSize(2)
+    verify(remoteLogRecordsFactory).createLogRecords(eq(warning), any(), any())
+    verify(remoteLogRecordsFactory).createLogRecords(eq(error), any(), any())
     verifyNoMoreInteractions(remoteLogRecordsFactory)
   }
 
@@ -93,7 +116,7 @@ class RemoteHandlerTest {
   fun log_GivenNoRemoteLogFromFactory_DoesNothing() {
     val logMessage = LogMessage(message = null)
 
-    whenever(remoteLogRecordsFactory.createLogRecords(logMessage)).thenReturn(null)
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage), any(), any())).thenReturn(null)
 
     remoteHandler.log("tag", logMessage)
     mockedDependenciesRule.waitForIdleState()
@@ -106,46 +129,200 @@ class RemoteHandlerTest {
     val logMessage = LogMessage(message = null)
     val logRecords = mock<RemoteLogRecords>()
 
-    whenever(remoteLogRecordsFactory.createLogRecords(logMessage)).thenReturn(logRecords)
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage), any(), any())).thenReturn(logRecords)
 
     remoteHandler.log("tag", logMessage)
     mockedDependenciesRule.waitForIdleState()
 
-    verify(sendingQueue).offer(logRecords)
+    assertThat(offeredLogRecords()).containsExactly(logRecords)
   }
 
   @Test
   fun log_GivenConsentNotGiven_DoesNothing() {
     whenever(consentData.isConsentGiven()).thenReturn(false)
-    val logMessage = LogMessage(message = null)
+    val logMessage = LogMessage(message = "dummy")
 
     remoteHandler.log("tag", logMessage)
     mockedDependenciesRule.waitForIdleState()
 
     verifyNoInteractions(remoteLogRecordsFactory)
-    verifyNoInteractions(sendingQueue)
+    verify(sendingQueue, never()).offerAll(any())
   }
 
   @Test
-  fun log_GivenSendingQueueLogging_StopRecursion() {
-    remoteHandler = spy(remoteHandler) {
-      on { isMainThread() } doReturn true doReturn false
+  fun log_GivenMessage_CreateRecordsWithTimeAndThreadOfLogging() {
+    val logMessage = LogMessage(message = "dummy")
+    whenever(clock.currentTimeInMillis).doReturn(1337L)
+
+    remoteHandler.log("tag", logMessage)
+    mockedDependenciesRule.waitForIdleState()
+
+    verify(remoteLogRecordsFactory).createLogRecords(logMessage, 1337L, Thread.currentThread().name)
+  }
+
+  @Test
+  fun log_GivenFactoryThrowing_IgnoreThisMessageOnly() {
+    val logMessage1 = LogMessage(message = "dummy1")
+    val logMessage2 = LogMessage(message = "dummy2")
+    val logRecords = mock<RemoteLogRecords>()
+
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage1), any(), any())).thenThrow(IllegalStateException())
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage2), any(), any())).thenReturn(logRecords)
+
+    remoteHandler.log("tag", logMessage1)
+    remoteHandler.log("tag", logMessage2)
+    mockedDependenciesRule.waitForIdleState()
+
+    assertThat(offeredLogRecords()).containsExactly(logRecords)
+  }
+
+  @Test
+  fun log_GivenMorePendingLogsThanCapacity_DropOldestAndPushWarning() {
+    val remoteHandler = givenHandlerWithManualExecution(maxPendingLogs = 2)
+
+    val logMessages = (0 until 5).map { LogMessage(message = "dummy$it") }
+    val logRecords = logMessages.map { logMessage ->
+      givenLogRecords().also {
+        whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage), any(), any())).thenReturn(it)
+      }
     }
+    val droppedLogRecords = givenLogRecords()
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(onRemoteLogsDropped(3)), any(), any()))
+        .thenReturn(droppedLogRecords)
 
+    logMessages.forEach { remoteHandler.log("tag", it) }
+    assertThat(submittedTasks).hasSize(1)
+    runSubmittedTasks()
+
+    assertThat(offeredLogRecords()).containsExactly(logRecords[3], logRecords[4], droppedLogRecords)
+  }
+
+  @Test
+  fun log_GivenRecurringLog_PushItOnceAndSummarizeRepetitionsAtEndOfWindow() {
+    val remoteHandler = givenHandlerWithManualExecution(aggregationWindowInMillis = 1000)
+    val logMessage = LogMessage(message = "dummy", logId = "myLogId")
     val logRecords = mock<RemoteLogRecords>()
-    whenever(remoteLogRecordsFactory.createLogRecords(any())).thenReturn(logRecords)
+    val repeatedLogRecords = mock<RemoteLogRecords>()
+    val threadName = Thread.currentThread().name
+
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage), any(), any())).thenReturn(logRecords)
+    whenever(remoteLogRecordsFactory.createRepeatedLogRecords(logMessage, 2, 10, 20, threadName))
+        .thenReturn(repeatedLogRecords)
+
+    whenever(clock.currentTimeInMillis).doReturn(0L)
+    remoteHandler.log("tag", logMessage)
+    whenever(clock.currentTimeInMillis).doReturn(10L)
+    remoteHandler.log("tag", logMessage)
+    whenever(clock.currentTimeInMillis).doReturn(20L)
+    remoteHandler.log("tag", logMessage)
+    runSubmittedTasks()
+
+    assertThat(offeredLogRecords()).containsExactly(logRecords)
+
+    val retryCaptor = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(retryCaptor.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS))
+
+    whenever(clock.currentTimeInMillis).doReturn(1000L)
+    retryCaptor.firstValue.run()
+    runSubmittedTasks()
+
+    assertThat(offeredLogRecords()).containsExactly(logRecords, repeatedLogRecords)
+  }
+
+  @Test
+  fun log_GivenSendingQueueLogging_StopRecursion() {
+    val logRecords = mock<RemoteLogRecords>()
+    whenever(remoteLogRecordsFactory.createLogRecords(any(), any(), any())).thenReturn(logRecords)
 
     val logger = Logger("tag", listOf(LazyDependency { remoteHandler }))
 
     doAnswer {
       logger.debug("dummy")
       true
-    }.whenever(sendingQueue).offer(any())
+    }.whenever(sendingQueue).offerAll(any())
 
     logger.debug("dummy")
     mockedDependenciesRule.waitForIdleState()
 
-    verify(sendingQueue, atLeastOnce()).offer(any())
-    verify(sendingQueue, atMost(3)).offer(any())
+    verify(sendingQueue).offerAll(any())
+  }
+
+  @Test
+  fun isLoggable_GivenConfiguredRemoteLogLevel_ReturnTrueOnlyForLevelAboveOrEqual() {
+    whenever(config.remoteLogLevel).doReturn(RemoteLogLevel.WARNING)
+
+    assertThat(remoteHandler.isLoggable(Log.VERBOSE)).isFalse()
+    assertThat(remoteHandler.isLoggable(Log.DEBUG)).isFalse()
+    assertThat(remoteHandler.isLoggable(Log.INFO)).isFalse()
+    assertThat(remoteHandler.isLoggable(Log.WARN)).isTrue()
+    assertThat(remoteHandler.isLoggable(Log.ERROR)).isTrue()
+  }
+
+  @Test
+  fun isLoggable_GivenConsentNotGiven_ReturnFalse() {
+    whenever(consentData.isConsentGiven()).thenReturn(false)
+
+    assertThat(remoteHandler.isLoggable(Log.ERROR)).isFalse()
+  }
+
+  @Test
+  fun log_GivenLogsWithSameContext_PushThemGrouped() {
+    val context = mock<RemoteLogContext>()
+    val logMessage1 = LogMessage(message = "dummy1")
+    val logMessage2 = LogMessage(message = "dummy2")
+    val record1 = RemoteLogRecord(RemoteLogLevel.INFO, listOf("dummy1"))
+    val record2 = RemoteLogRecord(RemoteLogLevel.INFO, listOf("dummy2"))
+
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage1), any(), any()))
+        .thenReturn(RemoteLogRecords(context, listOf(record1)))
+    whenever(remoteLogRecordsFactory.createLogRecords(eq(logMessage2), any(), any()))
+        .thenReturn(RemoteLogRecords(context, listOf(record2)))
+
+    val remoteHandler = givenHandlerWithManualExecution()
+    remoteHandler.log("tag", logMessage1)
+    remoteHandler.log("tag", logMessage2)
+    runSubmittedTasks()
+
+    assertThat(offeredLogRecords()).containsExactly(RemoteLogRecords(context, listOf(record1, record2)))
+  }
+
+  private fun givenHandlerWithManualExecution(
+      maxPendingLogs: Int = 256,
+      aggregationWindowInMillis: Int = 0
+  ): RemoteHandler {
+    val buildConfigWrapper = mock<BuildConfigWrapper> {
+      on { maxPendingRemoteLogs } doReturn maxPendingLogs
+      on { remoteLogAggregationWindowInMillis } doReturn aggregationWindowInMillis
+      on { maxAggregatedRemoteLogs } doReturn 64
+      on { maxRemoteLogRecordsPerGroup } doReturn 10
+    }
+
+    return RemoteHandler(
+        remoteLogRecordsFactory,
+        sendingQueue,
+        config,
+        consentData,
+        clock,
+        buildConfigWrapper,
+        Executor { submittedTasks.add(it) },
+        scheduledExecutorService
+    )
+  }
+
+  private fun givenLogRecords() = mock<RemoteLogRecords> {
+    on { context } doReturn mock()
+    on { logRecords } doReturn listOf(RemoteLogRecord(RemoteLogLevel.INFO, listOf("dummy")))
+  }
+
+  private fun runSubmittedTasks() {
+    val tasks = submittedTasks.toList()
+    submittedTasks.clear()
+    tasks.forEach { it.run() }
+  }
+
+  private fun offeredLogRecords(): List<RemoteLogRecords> {
+    val captor = argumentCaptor<Collection<RemoteLogRecords>>()
+    verify(sendingQueue, atLeastOnce()).offerAll(captor.capture())
+    return captor.allValues.flatten()
   }
 }
@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.logging
+
+import android.util.Log
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class RemoteLogAggregatorTest {
+
+  private val aggregator = RemoteLogAggregator(WINDOW, 3)
+
+  @Test
+  fun onOccurrence_GivenFirstOccurrence_LogIt() {
+    val logMessage = LogMessage(message = "dummy", logId = "myLogId")
+
+    assertThat(aggregator.onOccurrence(logMessage, 0, "thread")).isTrue()
+    assertThat(aggregator.hasRepetitions()).isFalse()
+    assertThat(aggregator.pollRepetitions(WINDOW)).isEmpty()
+  }
+
+  @Test
+  fun onOccurrence_GivenRepetitionsWithinWindow_CountThemAndSummarizeThemAtEndOfWindow() {
+    val logMessage1 = LogMessage(message = "dummy1", logId = "myLogId")
+    val logMessage2 = LogMessage(message = "dummy2", logId = "myLogId")
+    val logMessage3 = LogMessage(message = "dummy3", logId = "myLogId")
+
+    assertThat(aggregator.onOccurrence(logMessage1, 0, "thread1")).isTrue()
+    assertThat(aggregator.onOccurrence(logMessage2, 10, "thread2")).isFalse()
+    assertThat(aggregator.onOccurrence(logMessage3, 20, "thread3")).isFalse()
+
+    assertThat(aggregator.hasRepetitions()).isTrue()
+    assertThat(aggregator.pollRepetitions(WINDOW - 1)).isEmpty()
+
+    val repetitions = aggregator.pollRepetitions(WINDOW).single()
+    assertThat(repetitions.occurrences).isEqualTo(2)
+    assertThat(repetitions.firstTimestampInMillis).isEqualTo(10)
+    assertThat(repetitions.lastTimestampInMillis).isEqualTo(20)
+    assertThat(repetitions.lastLogMessage).isEqualTo(logMessage3)
+    assertThat(repetitions.lastThreadName).isEqualTo("thread3")
+    assertThat(aggregator.hasRepetitions()).isFalse()
+  }
+
+  @Test
+  fun onOccurrence_GivenOccurrenceAfterWindow_LogItAndSummarizePreviousWindow() {
+    val logMessage = LogMessage(message = "dummy", logId = "myLogId")
+
+    aggregator.onOccurrence(logMessage, 0, "thread")
+    aggregator.onOccurrence(logMessage, 10, "thread")
+
+    assertThat(aggregator.onOccurrence(logMessage, WINDOW, "thread")).isTrue()
+    assertThat(aggregator.pollRepetitions(WINDOW).single().occurrences).isEqualTo(1)
+  }
+
+  @Test
+  fun onOccurrence_GivenDifferentFingerprints_LogEachOfThem() {
+    val exception1 = IllegalStateException()
+    val exception2 = IllegalStateException()
+
+    val logMessages = listOf(
+        LogMessage(message = "dummy", logId = "myLogId1"),
+        LogMessage(message = "dummy", logId = "myLogId2"),
+        LogMessage(level = Log.WARN, message = "dummy", logId = "myLogId1"),
+        LogMessage(message = "dummy1"),
+        LogMessage(message = "dummy2"),
+        LogMessage(message = "dummy", throwable = exception1, logId = "myLogId1"),
+        LogMessage(message = "dummy", throwable = exception2, logId = "myLogId1"),
+        LogMessage(message = "dummy", throwable = IllegalArgumentException(), logId = "myLogId1")
+    )
+
+    val aggregator = RemoteLogAggregator(WINDOW, logMessages.size)
+
+    logMessages.forEach {
+      assertThat(aggregator.onOccurrence(it, 0, "thread")).isTrue()
+    }
+  }
+
+  @Test
+  fun onOccurrence_GivenSameExceptionThrownFromSamePlace_CountIt() {
+    val exceptions = (0 until 2).map { IllegalStateException("message $it") }
+
+    assertThat(aggregator.onOccurrence(LogMessage(message = "dummy", throwable = exceptions[0]), 0, "thread")).isTrue()
+    assertThat(aggregator.onOccurrence(LogMessage(message = "dummy", throwable = exceptions[1]), 0, "thread")).isFalse()
+  }
+
+  @Test
+  fun onOccurrence_GivenTooManyFingerprints_SummarizeOldestOne() {
+    val logMessages = (0 until 4).map { LogMessage(message = "dummy", logId = "myLogId$it") }
+
+    aggregator.onOccurrence(logMessages[0], 0, "thread")
+    aggregator.onOccurrence(logMessages[0], 1, "thread")
+    aggregator.onOccurrence(logMessages[1], 2, "thread")
+    aggregator.onOccurrence(logMessages[2], 3, "thread")
+    aggregator.onOccurrence(logMessages[3], 4, "thread")
+
+    val repetitions = aggregator.pollRepetitions(5).single()
+    assertThat(repetitions.lastLogMessage).isEqualTo(logMessages[0])
+    assertThat(repetitions.occurrences).isEqualTo(1)
+
+    assertThat(aggregator.onOccurrence(logMessages[0], 6, "thread")).isTrue()
+  }
+
+  private companion object {
+    const val WINDOW = 1000L
+  }
+}
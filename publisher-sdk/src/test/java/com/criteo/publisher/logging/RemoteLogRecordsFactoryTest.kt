@@ -157,4 +157,27 @@ class RemoteLogRecordsFactoryTest {
 
     assertThat(messageBody).isEqualTo("throwable message+stacktrace,threadId:thread-name,2042-06-22T13:37:28.012Z")
   }
+
+  @Test
+  fun createRepeatedLogRecords_GivenValidLog_ReturnLogRecordsWithOccurrences() {
+    val firstTimestamp = ZonedDateTime.of(2042, 6, 22, 13, 37, 28, 0, ZoneOffset.UTC).toInstant().toEpochMilli()
+    val lastTimestamp = ZonedDateTime.of(2042, 6, 22, 13, 38, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli()
+    val logMessage = LogMessage(Log.WARN, "dummy message", null, "myLogId")
+
+    whenever(buildConfigWrapper.sdkVersion).doReturn("1.2.3")
+    whenever(context.packageName).doReturn("org.dummy")
+    whenever(session.sessionId).doReturn("session-id")
+
+    val logRecords = factory.createRepeatedLogRecords(logMessage, 42, firstTimestamp, lastTimestamp, "thread-name")
+
+    assertThat(logRecords!!.context.logId).isEqualTo("myLogId")
+    assertThat(logRecords.logRecords).containsExactly(RemoteLogRecord(
+        RemoteLogLevel.WARNING,
+        listOf("dummy message," +
+            "occurrences:42," +
+            "firstOccurrence:2042-06-22T13:37:28.000Z," +
+            "threadId:thread-name," +
+            "2042-06-22T13:38:00.000Z")
+    ))
+  }
 }
@@ -146,4 +146,61 @@ class RemoteLogRecordsTest {
       ]
     """.trimIndent())
   }
+
+  @Test
+  fun groupByContext_GivenDistinctContexts_ReturnSameElements() {
+    val remoteLogRecords = listOf(
+        RemoteLogRecords(context("logId1"), listOf(record("message1"))),
+        RemoteLogRecords(context("logId2"), listOf(record("message2")))
+    )
+
+    val grouped = RemoteLogRecords.groupByContext(remoteLogRecords, 10)
+
+    assertThat(grouped).isSameAs(remoteLogRecords)
+  }
+
+  @Test
+  fun groupByContext_GivenSameContexts_MergeThemInOrder() {
+    val remoteLogRecords = listOf(
+        RemoteLogRecords(context("logId1"), listOf(record("message1"))),
+        RemoteLogRecords(context("logId2"), listOf(record("message2"))),
+        RemoteLogRecords(context("logId1"), listOf(record("message3"), record("message4"))),
+        RemoteLogRecords(context("logId2"), listOf(record("message5")))
+    )
+
+    val grouped = RemoteLogRecords.groupByContext(remoteLogRecords, 10)
+
+    assertThat(grouped).containsExactly(
+        RemoteLogRecords(context("logId1"), listOf(record("message1"), record("message3"), record("message4"))),
+        RemoteLogRecords(context("logId2"), listOf(record("message2"), record("message5")))
+    )
+  }
+
+  @Test
+  fun groupByContext_GivenMoreRecordsThanMax_SplitThem() {
+    val remoteLogRecords = (1..5).map {
+      RemoteLogRecords(context("logId"), listOf(record("message$it")))
+    }
+
+    val grouped = RemoteLogRecords.groupByContext(remoteLogRecords, 2)
+
+    assertThat(grouped).containsExactly(
+        RemoteLogRecords(context("logId"), listOf(record("message1"), record("message2"))),
+        RemoteLogRecords(context("logId"), listOf(record("message3"), record("message4"))),
+        RemoteLogRecords(context("logId"), listOf(record("message5")))
+    )
+  }
+
+  private fun context(logId: String) = RemoteLogContext(
+      "1.2.3",
+      "org.dummy.bundle",
+      "my-device-id",
+      "my-session-id",
+      42,
+      null,
+      logId,
+      "android-42"
+  )
+
+  private fun record(message: String) = RemoteLogRecord(RemoteLogLevel.INFO, listOf(message))
 }
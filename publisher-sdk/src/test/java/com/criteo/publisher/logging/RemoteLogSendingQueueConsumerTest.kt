@@ -18,6 +18,9 @@ package com.criteo.publisher.logging
 
 import com.criteo.publisher.concurrent.DirectMockExecutor
 import com.criteo.publisher.csm.ConcurrentSendingQueue
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogContext
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogRecord
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
 import com.criteo.publisher.network.PubSdkApi
@@ -32,11 +35,14 @@ import org.mockito.kotlin.any
 import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.never
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.io.IOException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
 
 class RemoteLogSendingQueueConsumerTest {
 
@@ -60,6 +66,9 @@ class RemoteLogSendingQueueConsumerTest {
   @SpyBean
   private lateinit var buildConfigWrapper: BuildConfigWrapper
 
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
   private val executor = DirectMockExecutor()
 
   private lateinit var consumer: RemoteLogSendingQueueConsumer
@@ -73,22 +82,22 @@ class RemoteLogSendingQueueConsumerTest {
         api,
         buildConfigWrapper,
         advertisingInfo,
-        executor
+        executor,
+        scheduledExecutorService
     )
   }
 
   @Test
   fun sendRemoteLogBatch_GivenSomeLogsAndIOException_RollbackLogs() {
-    val logs1 = mock<RemoteLogRecords>()
-    val logs2 = mock<RemoteLogRecords>()
+    val logs1 = givenLogs()
+    val logs2 = givenLogs()
 
     whenever(queue.poll(any())).doReturn(listOf(logs1, logs2))
     doThrow(IOException::class).whenever(api).postLogs(any())
 
     consumer.sendRemoteLogBatch()
 
-    verify(queue).offer(logs1)
-    verify(queue).offer(logs2)
+    verify(queue).offerAll(listOf(logs1, logs2))
   }
 
   @Test
@@ -103,8 +112,8 @@ class RemoteLogSendingQueueConsumerTest {
 
   @Test
   fun sendRemoteLogBatch_GivenSomeLogsInBatch_SendThemAsyncWithApi() {
-    val logs1 = mock<RemoteLogRecords>()
-    val logs2 = mock<RemoteLogRecords>()
+    val logs1 = givenLogs()
+    val logs2 = givenLogs()
 
     doReturn(42).whenever(buildConfigWrapper).remoteLogBatchSize
     whenever(queue.poll(any())).doReturn(listOf(logs1, logs2))
@@ -114,6 +123,37 @@ class RemoteLogSendingQueueConsumerTest {
     verify(api).postLogs(listOf(logs1, logs2))
   }
 
+  @Test
+  fun sendRemoteLogBatch_GivenRemainingLogsAfterSending_ScheduleAnotherSending() {
+    doReturn(42).whenever(buildConfigWrapper).sendingQueueRetryDelayInMillis
+    whenever(queue.poll(any())).doReturn(listOf(givenLogs()))
+    whenever(queue.isEmpty).doReturn(false)
+    consumer = RemoteLogSendingQueueConsumer(
+        queue,
+        api,
+        buildConfigWrapper,
+        advertisingInfo,
+        executor,
+        scheduledExecutorService
+    )
+
+    consumer.sendRemoteLogBatch()
+
+    verify(scheduledExecutorService).schedule(any<Runnable>(), eq(42L), eq(TimeUnit.MILLISECONDS))
+  }
+
+  @Test
+  fun sendRemoteLogBatch_GivenEmptyQueueWithMetadataAfterSending_DoNotScheduleAnotherSending() {
+    whenever(queue.poll(any())).doReturn(listOf(givenLogs()))
+    whenever(queue.totalSize).doReturn(16)
+    whenever(queue.isEmpty).doReturn(true)
+
+    consumer.sendRemoteLogBatch()
+
+    verify(api).postLogs(any())
+    verify(scheduledExecutorService, never()).schedule(any<Runnable>(), any(), any())
+  }
+
   @Test
   fun sendRemoteLogBatch_GivenExecutor_CallApiInExecutor() {
     val logs = mock<RemoteLogRecords>()
@@ -159,4 +199,31 @@ class RemoteLogSendingQueueConsumerTest {
     verify(api).postLogs(any())
     executor.verifyExpectations()
   }
+
+  @Test
+  fun sendRemoteLogBatch_GivenLogsWithSameContext_SendThemGrouped() {
+    val context1 = RemoteLogContext("1.2.3", "org.dummy", null, "session-id", 42, null, "logId1", null)
+    val context2 = context1.copy(logId = "logId2")
+    val record1 = RemoteLogRecord(RemoteLogLevel.INFO, listOf("message1"))
+    val record2 = RemoteLogRecord(RemoteLogLevel.INFO, listOf("message2"))
+    val record3 = RemoteLogRecord(RemoteLogLevel.INFO, listOf("message3"))
+
+    whenever(advertisingInfo.advertisingId).doReturn("device-id")
+    whenever(queue.poll(any())).doReturn(listOf(
+        RemoteLogRecords(context1.copy(deviceId = "device-id"), listOf(record1)),
+        RemoteLogRecords(context2, listOf(record2)),
+        RemoteLogRecords(context1, listOf(record3))
+    ))
+
+    consumer.sendRemoteLogBatch()
+
+    verify(api).postLogs(listOf(
+        RemoteLogRecords(context1.copy(deviceId = "device-id"), listOf(record1, record3)),
+        RemoteLogRecords(context2.copy(deviceId = "device-id"), listOf(record2))
+    ))
+  }
+
+  private fun givenLogs() = mock<RemoteLogRecords> {
+    on { context } doReturn mock()
+  }
 }
@@ -319,6 +319,16 @@ class CdbRequestFactoryTest {
     assertThat(nestedMap).isEqualTo(expectedMap)
   }
 
+  @Test
+  fun mergeToNestedMap_GivenSameKeysMultipleTimes_ReturnIndependentNestedMaps() {
+    val nestedMap1 = factory.mergeToNestedMap(mapOf("a.b" to 1, "a..c" to "skipped"))
+    val nestedMap2 = factory.mergeToNestedMap(mapOf("a.b" to 2, "a..c" to "skipped"))
+
+    assertThat(nestedMap1).isEqualTo(mapOf("a" to mapOf("b" to 1)))
+    assertThat(nestedMap2).isEqualTo(mapOf("a" to mapOf("b" to 2)))
+    assertThat(nestedMap1["a"]).isNotSameAs(nestedMap2["a"])
+  }
+
   @Test
   fun createRequest_GivenNullTagForChildDirectedTreatment_CreateRequestWithNullCdbRegs() {
     whenever(userPrivacyUtil.tagForChildDirectedTreatment).thenReturn(null)
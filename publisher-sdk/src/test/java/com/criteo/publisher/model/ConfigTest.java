@@ -40,7 +40,9 @@ import com.criteo.publisher.util.JsonSerializer;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.Function;
 import org.junit.Before;
 import org.junit.Rule;
@@ -114,6 +116,71 @@ public class ConfigTest {
     assertConfigContainsDefaultValues();
   }
 
+  @Test
+  public void new_GivenExecutorNotRunYet_ServeDefaultValuesAndEngagedKillSwitchWithoutWaiting() throws Exception {
+    when(sharedPreferences.getString(any(), any()))
+        .thenReturn("{\"killSwitch\": true, \"csmEnabled\": false}");
+    List<Runnable> pendingTasks = new ArrayList<>();
+
+    config = new Config(sharedPreferences, jsonSerializer, pendingTasks::add);
+
+    assertTrue(config.isCsmEnabled());
+    assertTrue(config.isKillSwitchEnabled());
+    assertEquals(1, pendingTasks.size());
+  }
+
+  @Test
+  public void new_GivenExecutorRunAndNoPersistedKillSwitch_ReleaseKillSwitch() throws Exception {
+    when(sharedPreferences.getString(any(), any())).thenReturn("{\"csmEnabled\": false}");
+    List<Runnable> pendingTasks = new ArrayList<>();
+
+    config = new Config(sharedPreferences, jsonSerializer, pendingTasks::add);
+    pendingTasks.forEach(Runnable::run);
+
+    assertFalse(config.isCsmEnabled());
+    assertFalse(config.isKillSwitchEnabled());
+  }
+
+  @Test
+  public void refreshConfig_GivenExecutorNotRunYet_MergeWithPersistedValuesAndIgnoreLateHydration() throws Exception {
+    when(sharedPreferences.getString(any(), any()))
+        .thenReturn("{\"killSwitch\": true, \"csmEnabled\": false}");
+    List<Runnable> pendingTasks = new ArrayList<>();
+
+    config = new Config(sharedPreferences, jsonSerializer, pendingTasks::add);
+
+    RemoteConfigResponse newConfig = new RemoteConfigResponse(
+        false,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null
+    );
+    config.refreshConfig(newConfig);
+    pendingTasks.forEach(Runnable::run);
+
+    assertFalse(config.isKillSwitchEnabled());
+    assertFalse(config.isCsmEnabled());
+  }
+
+  @Test
+  public void new_GivenExecutorRun_ServePersistedValues() throws Exception {
+    when(sharedPreferences.getString(any(), any()))
+        .thenReturn("{\"killSwitch\": false, \"csmEnabled\": false}");
+
+    config = new Config(sharedPreferences, jsonSerializer, Runnable::run);
+
+    assertFalse(config.isCsmEnabled());
+    assertFalse(config.isKillSwitchEnabled());
+  }
+
   @Test
   public void refreshConfig_GivenMissingKillSwitch_ItIsUnchanged() throws Exception {
     givenNewConfig();
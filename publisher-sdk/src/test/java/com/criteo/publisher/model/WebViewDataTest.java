@@ -51,6 +51,26 @@ public class WebViewDataTest {
     assertThat(webViewData.getContent()).isEqualTo("myContent: myTagData");
   }
 
+  @Test
+  public void setContent_GivenMultipleMacrosAndMultiLineData_ReplaceAllPlaceholders() {
+    when(config.getAdTagDataMacro()).thenReturn("%myMacro%");
+    when(config.getAdTagDataMode()).thenReturn("<%myMacro%>%myMacro%");
+
+    webViewData.setContent("line1\nline2");
+
+    assertThat(webViewData.getContent()).isEqualTo("<line1\nline2>line1\nline2");
+  }
+
+  @Test
+  public void setContent_GivenNoMacroInTemplate_ReturnTemplate() {
+    when(config.getAdTagDataMacro()).thenReturn("%myMacro%");
+    when(config.getAdTagDataMode()).thenReturn("myContent");
+
+    webViewData.setContent("myTagData");
+
+    assertThat(webViewData.getContent()).isEqualTo("myContent");
+  }
+
   @Test
   public void refresh_GivenLoading_CleanContentAndState() throws Exception {
     webViewData.downloadLoading();
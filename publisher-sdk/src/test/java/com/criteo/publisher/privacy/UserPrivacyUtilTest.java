@@ -26,10 +26,12 @@ import static org.mockito.Mockito.when;
 
 import android.content.SharedPreferences;
 import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import com.criteo.publisher.privacy.gdpr.GdprDataFetcher;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -214,5 +216,13 @@ public class UserPrivacyUtilTest {
   private void givenUsPrivacySetup(String iabUsPrivacyString, String usPrivacyOptout) {
     when(sharedPreferences.getString("IABUSPrivacy_String", "")).thenReturn(iabUsPrivacyString);
     when(sharedPreferences.getString("USPrivacy_Optout", "")).thenReturn(usPrivacyOptout);
+
+    // Values are cached until the store notifies a change
+    ArgumentCaptor<OnSharedPreferenceChangeListener> listenerCaptor = ArgumentCaptor.forClass(
+        OnSharedPreferenceChangeListener.class
+    );
+    verify(sharedPreferences).registerOnSharedPreferenceChangeListener(listenerCaptor.capture());
+    listenerCaptor.getValue().onSharedPreferenceChanged(sharedPreferences, "IABUSPrivacy_String");
+    listenerCaptor.getValue().onSharedPreferenceChanged(sharedPreferences, "USPrivacy_Optout");
   }
 }
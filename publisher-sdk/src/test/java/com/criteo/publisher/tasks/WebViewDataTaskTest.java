@@ -104,6 +104,17 @@ public class WebViewDataTaskTest {
     assertThat(creative).isEqualTo("<script />");
   }
 
+  @Test
+  public void downloadCreative_GivenMultiLineContent_KeepNewLines() throws Exception {
+    mockWebServer.enqueue(new MockResponse()
+        .setResponseCode(200)
+        .setBody("var a = 1 // comment\nvar b = 2;\r\n"));
+
+    String creative = task.downloadCreative();
+
+    assertThat(creative).isEqualTo("var a = 1 // comment\nvar b = 2;\r\n");
+  }
+
   @Test
   public void run_GivenServerRespondingNoBody_ReturnEmpty() throws Exception {
     mockWebServer.enqueue(new MockResponse().setResponseCode(200));
@@ -18,6 +18,7 @@ package com.criteo.publisher.util
 
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.squareup.moshi.JsonClass
+import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.Assertions.assertThatCode
 import org.junit.Rule
 import org.junit.Test
@@ -27,6 +28,7 @@ import org.mockito.kotlin.mock
 import org.mockito.kotlin.never
 import org.mockito.kotlin.verify
 import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 import java.io.EOFException
 import java.io.IOException
 import java.io.InputStream
@@ -77,6 +79,55 @@ class JsonSerializerTest {
     verify(stream, never()).close()
   }
 
+  @Test
+  fun write_GivenListOfSameClass_WriteAllElements() {
+    val value = listOf(Dummy("a"), Dummy("b"))
+    val stream = ByteArrayOutputStream()
+
+    serializer.write(value, stream)
+
+    assertThat(stream.toString("UTF-8")).isEqualTo("""[{"dummy":"a"},{"dummy":"b"}]""")
+  }
+
+  @Test
+  fun write_GivenListOfDifferentClasses_WriteAllElements() {
+    val value = listOf(Dummy("a"), "b", 1)
+    val stream = ByteArrayOutputStream()
+
+    serializer.write(value, stream)
+
+    assertThat(stream.toString("UTF-8")).isEqualTo("""[{"dummy":"a"},"b",1]""")
+  }
+
+  @Test
+  fun write_GivenListOfPlatformClasses_WriteAllElements() {
+    val value = listOf(arrayListOf("a", "b"), arrayListOf("c"))
+    val stream = ByteArrayOutputStream()
+
+    serializer.write(value, stream)
+
+    assertThat(stream.toString("UTF-8")).isEqualTo("""[["a","b"],["c"]]""")
+  }
+
+  @Test
+  fun write_GivenListOfMaps_WriteAllElements() {
+    val value = listOf(linkedMapOf("a" to 1), linkedMapOf("b" to 2))
+    val stream = ByteArrayOutputStream()
+
+    serializer.write(value, stream)
+
+    assertThat(stream.toString("UTF-8")).isEqualTo("""[{"a":1},{"b":2}]""")
+  }
+
+  @Test
+  fun write_GivenEmptyList_WriteEmptyArray() {
+    val stream = ByteArrayOutputStream()
+
+    serializer.write(emptyList<Dummy>(), stream)
+
+    assertThat(stream.toString("UTF-8")).isEqualTo("[]")
+  }
+
   @Test
   fun read_GivenEmptyInputStream_ThrowEOF() {
     assertThatCode {
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.util
+
+import android.content.SharedPreferences
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class SafeSharedPreferencesTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var sharedPreferences: SharedPreferences
+
+  private lateinit var safeSharedPreferences: SafeSharedPreferences
+
+  @Before
+  fun setUp() {
+    safeSharedPreferences = SafeSharedPreferences(sharedPreferences)
+  }
+
+  @Test
+  fun getString_GivenMultipleReadsWithoutChange_ReadStoreOnlyOnce() {
+    whenever(sharedPreferences.getString("key", "default")).doReturn("value")
+
+    val value1 = safeSharedPreferences.getString("key", "default")
+    val value2 = safeSharedPreferences.getString("key", "default")
+
+    assertThat(value1).isEqualTo("value")
+    assertThat(value2).isEqualTo("value")
+    verify(sharedPreferences, times(1)).getString("key", "default")
+  }
+
+  @Test
+  fun getInt_GivenChangeNotification_ReadStoreAgain() {
+    whenever(sharedPreferences.getInt("key", -1)).doReturn(1, 2)
+
+    val value1 = safeSharedPreferences.getInt("key", -1)
+    notifyChange("key")
+    val value2 = safeSharedPreferences.getInt("key", -1)
+
+    assertThat(value1).isEqualTo(1)
+    assertThat(value2).isEqualTo(2)
+  }
+
+  @Test
+  fun getBoolean_GivenClearNotification_ReadStoreAgain() {
+    whenever(sharedPreferences.getBoolean("key", false)).doReturn(true, false)
+
+    val value1 = safeSharedPreferences.getBoolean("key", false)
+    notifyChange(null)
+    val value2 = safeSharedPreferences.getBoolean("key", false)
+
+    assertThat(value1).isTrue()
+    assertThat(value2).isFalse()
+  }
+
+  @Test
+  fun getString_GivenDifferentDefaultValues_DoNotMixThem() {
+    whenever(sharedPreferences.getString("key", "default1")).doReturn("default1")
+    whenever(sharedPreferences.getString("key", "default2")).doReturn("default2")
+
+    val value1 = safeSharedPreferences.getString("key", "default1")
+    val value2 = safeSharedPreferences.getString("key", "default2")
+
+    assertThat(value1).isEqualTo("default1")
+    assertThat(value2).isEqualTo("default2")
+  }
+
+  @Test
+  fun putString_GivenSameValueAsStored_DoNotWrite() {
+    whenever(sharedPreferences.getString("key", null)).doReturn("value")
+
+    safeSharedPreferences.putString("key", "value")
+
+    verify(sharedPreferences, never()).edit()
+  }
+
+  @Test
+  fun putString_GivenNewValue_WriteItAndEvictCachedOne() {
+    val editor = mock<SharedPreferences.Editor>()
+    whenever(sharedPreferences.edit()).doReturn(editor)
+    whenever(sharedPreferences.getString("key", null)).doReturn("old", "new")
+
+    safeSharedPreferences.putString("key", "new")
+    val value = safeSharedPreferences.getString("key", null)
+
+    assertThat(value).isEqualTo("new")
+    verify(editor).putString("key", "new")
+    verify(editor).apply()
+  }
+
+  private fun notifyChange(key: String?) {
+    argumentCaptor<OnSharedPreferenceChangeListener> {
+      verify(sharedPreferences).registerOnSharedPreferenceChangeListener(capture())
+      firstValue.onSharedPreferenceChanged(sharedPreferences, key)
+    }
+  }
+}
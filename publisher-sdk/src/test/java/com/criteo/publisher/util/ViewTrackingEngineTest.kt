@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.criteo.publisher.util
+
+import com.criteo.publisher.concurrent.DirectMockRunOnUiThreadExecutor
+import com.criteo.publisher.util.ViewTrackingEngine.Companion.POLL_INTERVAL_IN_MILLIS
+import com.criteo.publisher.util.ViewTrackingEngine.TrackedView
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.never
+import org.mockito.kotlin.spy
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+class ViewTrackingEngineTest {
+
+  private lateinit var runOnUiThreadExecutor: DirectMockRunOnUiThreadExecutor
+
+  private lateinit var engine: ViewTrackingEngine
+
+  private var postedFrameCallbacks = 0
+
+  @Before
+  fun setUp() {
+    runOnUiThreadExecutor = spy(DirectMockRunOnUiThreadExecutor())
+    engine = ViewTrackingEngine(runOnUiThreadExecutor) { postedFrameCallbacks++ }
+  }
+
+  @Test
+  fun invalidate_GivenNotTrackedView_DoNothing() {
+    val trackedView = FakeTrackedView()
+
+    engine.invalidate(trackedView)
+    engine.doFrame(0)
+
+    assertThat(postedFrameCallbacks).isZero()
+    assertThat(trackedView.checkCount).isZero()
+  }
+
+  @Test
+  fun invalidate_GivenManyInvalidationsBeforeFrame_CheckEachViewOnceInSingleFrame() {
+    val trackedView1 = FakeTrackedView()
+    val trackedView2 = FakeTrackedView()
+    engine.track(trackedView1)
+    engine.track(trackedView1)
+    engine.track(trackedView2)
+
+    repeat(3) {
+      engine.invalidate(trackedView1)
+      engine.invalidate(trackedView2)
+    }
+    engine.doFrame(0)
+
+    assertThat(postedFrameCallbacks).isEqualTo(1)
+    assertThat(trackedView1.checkCount).isEqualTo(1)
+    assertThat(trackedView2.checkCount).isEqualTo(1)
+  }
+
+  @Test
+  fun invalidate_GivenViewOnScreen_PollAllViewsPeriodically() {
+    val viewOnScreen = FakeTrackedView(isOnScreen = true)
+    val viewOffScreen = FakeTrackedView()
+    engine.track(viewOnScreen)
+    engine.track(viewOffScreen)
+
+    engine.invalidate(viewOnScreen)
+    engine.doFrame(0)
+
+    val pollCaptor = argumentCaptor<Runnable>()
+    verify(runOnUiThreadExecutor).executeAsync(pollCaptor.capture(), eq(POLL_INTERVAL_IN_MILLIS))
+
+    pollCaptor.firstValue.run()
+    engine.doFrame(0)
+
+    assertThat(viewOnScreen.checkCount).isEqualTo(2)
+    assertThat(viewOffScreen.checkCount).isEqualTo(1)
+    verify(runOnUiThreadExecutor, times(2)).executeAsync(any(), eq(POLL_INTERVAL_IN_MILLIS))
+  }
+
+  @Test
+  fun invalidate_GivenNoViewOnScreen_DoNotPoll() {
+    val trackedView = FakeTrackedView()
+    engine.track(trackedView)
+
+    engine.invalidate(trackedView)
+    engine.doFrame(0)
+
+    verify(runOnUiThreadExecutor, never()).executeAsync(any(), any())
+  }
+
+  @Test
+  fun doFrame_GivenDeadView_ForgetIt() {
+    val trackedView = FakeTrackedView(isAlive = false)
+    engine.track(trackedView)
+
+    engine.invalidate(trackedView)
+    engine.doFrame(0)
+    engine.invalidate(trackedView)
+    engine.doFrame(0)
+
+    assertThat(trackedView.checkCount).isZero()
+    assertThat(postedFrameCallbacks).isEqualTo(1)
+  }
+
+  @Test
+  fun track_GivenViewDeadWithoutAnyPass_ForgetIt() {
+    val deadView = FakeTrackedView()
+    engine.track(deadView)
+    deadView.isAlive = false
+
+    engine.track(FakeTrackedView())
+    engine.invalidate(deadView)
+
+    assertThat(postedFrameCallbacks).isZero()
+  }
+
+  @Test
+  fun doFrame_GivenViewInvalidatedDuringItsCheck_CheckItAgainInNextFrame() {
+    val trackedView = object : FakeTrackedView() {
+      override fun check(): Boolean {
+        if (checkCount == 0) {
+          engine.invalidate(this)
+        }
+        return super.check()
+      }
+    }
+    engine.track(trackedView)
+
+    engine.invalidate(trackedView)
+    engine.doFrame(0)
+    assertThat(trackedView.checkCount).isEqualTo(1)
+
+    engine.doFrame(0)
+    assertThat(trackedView.checkCount).isEqualTo(2)
+    assertThat(postedFrameCallbacks).isEqualTo(2)
+  }
+
+  private open class FakeTrackedView(
+      override var isAlive: Boolean = true,
+      private val isOnScreen: Boolean = false
+  ) : TrackedView {
+    var checkCount = 0
+
+    override fun check(): Boolean {
+      checkCount++
+      return isOnScreen
+    }
+  }
+}